@@ -1,12 +1,22 @@
 package com.example.bankcards;
 
+import com.example.bankcards.config.CardCacheProperties;
 import com.example.bankcards.config.JwtProperties;
+import com.example.bankcards.config.LedgerProperties;
+import com.example.bankcards.config.OutboxProperties;
+import com.example.bankcards.config.PasswordProperties;
+import com.example.bankcards.config.RateLimitProperties;
+import com.example.bankcards.config.TransferProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import com.example.bankcards.config.CryptoProperties;
 
-@EnableConfigurationProperties({CryptoProperties.class, JwtProperties.class})
+@EnableConfigurationProperties({CryptoProperties.class, JwtProperties.class, TransferProperties.class, LedgerProperties.class,
+        OutboxProperties.class, PasswordProperties.class,
+        RateLimitProperties.class, CardCacheProperties.class})
+@EnableScheduling
 @SpringBootApplication
 public class BankRestApplication {
 
@@ -0,0 +1,23 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "app.card-cache")
+public class CardCacheProperties {
+    /**
+     * Cards kept in memory for GET /api/cards/{id} and GET /api/admin/cards/{id}; 0 disables the cache.
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * Upper bound on the age of a cached card. Writes through this instance evict on commit,
+     * so this only limits staleness from writes made by other instances.
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+}
@@ -2,6 +2,10 @@ package com.example.bankcards.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 @ConfigurationProperties(prefix = "app.crypto")
 public class CryptoProperties {
     /**
@@ -9,6 +13,100 @@ public class CryptoProperties {
      */
     private String aesKeyB64;
 
+    /**
+     * Id of that key. It must be 0, startup fails otherwise: aes-key-b64 is the key the PANs were encrypted
+     * with before key versions existed, and changelog 009 stamps id 0 on every converted row. New key
+     * versions go under {@code keys}.
+     */
+    private int keyId = 0;
+
+    /**
+     * Further data key versions, e.g. the new key during a rotation. Every key that still encrypts
+     * some card must stay listed until re-encryption has finished.
+     */
+    private List<DataKey> keys = new ArrayList<>();
+
+    /**
+     * Key version used for new ciphertexts and targeted by re-encryption; default is the highest configured id.
+     */
+    private Integer activeKeyId;
+
+    private Reencryption reencryption = new Reencryption();
+
+    /**
+     * Base64 HMAC-SHA256 key of the PAN blind index (cards.pan_index). Changing it invalidates every index
+     * value: clear the column and run the backfill again.
+     */
+    private String panIndexKeyB64;
+
+    /**
+     * Cards per chunk of the pan_index backfill.
+     */
+    private int panIndexBackfillChunkSize = 500;
+
     public String getAesKeyB64() { return aesKeyB64; }
     public void setAesKeyB64(String aesKeyB64) { this.aesKeyB64 = aesKeyB64; }
+
+    public int getKeyId() { return keyId; }
+    public void setKeyId(int keyId) { this.keyId = keyId; }
+
+    public List<DataKey> getKeys() { return keys; }
+    public void setKeys(List<DataKey> keys) { this.keys = keys; }
+
+    public Integer getActiveKeyId() { return activeKeyId; }
+    public void setActiveKeyId(Integer activeKeyId) { this.activeKeyId = activeKeyId; }
+
+    public Reencryption getReencryption() { return reencryption; }
+    public void setReencryption(Reencryption reencryption) { this.reencryption = reencryption; }
+
+    public String getPanIndexKeyB64() { return panIndexKeyB64; }
+    public void setPanIndexKeyB64(String panIndexKeyB64) { this.panIndexKeyB64 = panIndexKeyB64; }
+
+    public int getPanIndexBackfillChunkSize() { return panIndexBackfillChunkSize; }
+    public void setPanIndexBackfillChunkSize(int panIndexBackfillChunkSize) { this.panIndexBackfillChunkSize = panIndexBackfillChunkSize; }
+
+    public static class DataKey {
+        private int id;
+        private String aesKeyB64;
+
+        public int getId() { return id; }
+        public void setId(int id) { this.id = id; }
+
+        public String getAesKeyB64() { return aesKeyB64; }
+        public void setAesKeyB64(String aesKeyB64) { this.aesKeyB64 = aesKeyB64; }
+    }
+
+    /**
+     * Background job moving card PANs to the active key, one chunk of cards per run.
+     * Throughput is bounded by chunk-size per (chunk time + chunk-delay).
+     */
+    public static class Reencryption {
+        private boolean enabled = true;
+        private int chunkSize = 500;
+        private Duration chunkDelay = Duration.ofMillis(200);
+        /**
+         * Threads decrypting and encrypting one chunk in parallel.
+         */
+        private int threads = 2;
+        /**
+         * How long the job rests once there is nothing to do for this instance: the target key is done, or
+         * another instance switched the target to a key this one is not configured to use.
+         */
+        private Duration idleCheckInterval = Duration.ofMinutes(1);
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public int getChunkSize() { return chunkSize; }
+        public void setChunkSize(int chunkSize) { this.chunkSize = chunkSize; }
+
+        public Duration getChunkDelay() { return chunkDelay; }
+        public void setChunkDelay(Duration chunkDelay) { this.chunkDelay = chunkDelay; }
+
+        public int getThreads() { return threads; }
+        public void setThreads(int threads) { this.threads = threads; }
+
+        public Duration getIdleCheckInterval() { return idleCheckInterval; }
+        public void setIdleCheckInterval(Duration idleCheckInterval) { this.idleCheckInterval = idleCheckInterval; }
+    }
 }
@@ -4,6 +4,11 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
 @Setter
 @Getter
 @ConfigurationProperties(prefix = "app.jwt")
@@ -15,7 +20,98 @@ public class JwtProperties {
     private String secret;
 
     /**
-     * Token lifetime in minutes.
+     * Access token lifetime in minutes.
      */
     private long expirationMinutes = 60;
+
+    /**
+     * Signing algorithm of new tokens: HS256 (shared secret), ES256 or RS256 (key pairs, published as JWKS).
+     */
+    private String algorithm = "HS256";
+
+    /**
+     * Key pairs for ES256/RS256, newest first: the first signs, all verify. Without keys (and without rotation)
+     * one is generated at startup, which is only allowed in the dev and test profiles.
+     */
+    private List<KeyPairConfig> keys = new ArrayList<>();
+
+    /**
+     * Generate a new signing key pair this often (ES256/RS256); null keeps the configured key.
+     * Rotated keys are stored in jwt_signing_keys and shared by all instances; configured keys then only verify.
+     */
+    private Duration keyRotationInterval;
+
+    /**
+     * ES256/RS256 only: tokens without kid (signed with the secret before the switch) verify until this instant.
+     * Null rejects them; once the old tokens have expired, leave it unset so the secret cannot mint tokens.
+     */
+    private Instant legacyHs256Until;
+
+    /**
+     * With rotation: a token with an unknown kid reloads the shared keys at most this often.
+     */
+    private Duration keyReloadMinInterval = Duration.ofSeconds(1);
+
+    /**
+     * Lifetime of refresh tokens; each refresh replaces the token used.
+     */
+    private Duration refreshTokenTtl = Duration.ofDays(14);
+
+    /**
+     * Max number of verified tokens kept (by SHA-256 digest) until they expire; 0 disables the cache.
+     */
+    private long verifiedCacheSize = 10_000;
+
+    /**
+     * Build the authentication from the uid and roles claims only, without loading the user.
+     * Tokens issued without these claims still go through the database lookup.
+     */
+    private boolean stateless = true;
+
+    private Revocation revocation = new Revocation();
+
+    @Getter
+    @Setter
+    public static class KeyPairConfig {
+        private String kid;
+
+        /**
+         * Base64 DER, PKCS#8.
+         */
+        private String privateKey;
+
+        /**
+         * Base64 DER, X.509 SubjectPublicKeyInfo.
+         */
+        private String publicKey;
+    }
+
+    @Getter
+    @Setter
+    public static class Revocation {
+        /**
+         * How often the in-memory filter picks up tokens revoked by other instances.
+         */
+        private Duration refreshInterval = Duration.ofSeconds(1);
+
+        /**
+         * How far back each refresh looks, to cover revocations committed late.
+         */
+        private Duration refreshOverlap = Duration.ofSeconds(30);
+
+        /**
+         * How often the filter is rebuilt from scratch, dropping expired entries.
+         */
+        private Duration rebuildInterval = Duration.ofMinutes(10);
+
+        /**
+         * Revocations the filter is sized for (at least twice the live entries on rebuild).
+         */
+        private long expectedEntries = 100_000;
+
+        /**
+         * Share of non-revoked tokens that still need a database check.
+         */
+        private double falsePositiveRate = 0.001;
+    }
 }
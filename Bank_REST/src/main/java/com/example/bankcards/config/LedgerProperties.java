@@ -0,0 +1,30 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "app.ledger")
+public class LedgerProperties {
+    /**
+     * Cards read per query by the snapshot and reconciliation jobs.
+     */
+    private int chunkSize = 500;
+
+    /**
+     * Cron of the snapshot job, "-" disables it.
+     */
+    private String snapshotCron = "-";
+
+    /**
+     * Cron of the reconciliation job, "-" disables it.
+     */
+    private String reconcileCron = "-";
+
+    /**
+     * Max mismatches listed in a reconciliation report (all of them are counted and logged).
+     */
+    private int maxReportedMismatches = 100;
+}
@@ -0,0 +1,66 @@
+package com.example.bankcards.config;
+
+import jakarta.validation.constraints.Pattern;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Setter
+@Getter
+@Validated
+@ConfigurationProperties(prefix = "app.outbox")
+public class OutboxProperties {
+    /**
+     * Whether the scheduled relay drains the outbox; with false events only accumulate in the table.
+     */
+    private boolean relayEnabled = true;
+
+    /**
+     * Pause between relay runs when the outbox was drained (app.outbox.poll-interval).
+     */
+    private Duration pollInterval = Duration.ofMillis(200);
+
+    /**
+     * Events claimed, published and deleted per transaction.
+     */
+    private int batchSize = 200;
+
+    /**
+     * Max batches per relay run, so one run never holds the scheduler thread for long.
+     */
+    private int maxBatchesPerRun = 50;
+
+    /**
+     * First pause after the sink rejected a batch; doubles on every further failure up to max-backoff.
+     */
+    private Duration initialBackoff = Duration.ofMillis(500);
+
+    private Duration maxBackoff = Duration.ofSeconds(30);
+
+    /**
+     * Where events go: queue (bounded in-memory stand-in) or file (NDJSON appended to file-path).
+     * The prod profile has no default, so an instance never starts relaying into a pod-local file by accident.
+     */
+    @Pattern(regexp = "file|queue", message = "set OUTBOX_SINK to file or queue")
+    private String sink = "file";
+
+    private String filePath = "outbox/transfer-events.ndjson";
+
+    /**
+     * Refuse to start with a sink that loses events on restart (queue); set by the prod profile.
+     */
+    private boolean requireDurableSink = false;
+
+    /**
+     * Capacity of the in-memory queue sink; a full queue pushes back on the relay.
+     */
+    private int queueCapacity = 10_000;
+
+    /**
+     * How long the queue sink waits for free capacity before rejecting a batch.
+     */
+    private Duration queueOfferTimeout = Duration.ofSeconds(1);
+}
@@ -0,0 +1,37 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "app.password")
+public class PasswordProperties {
+    /**
+     * BCrypt cost (log2 rounds), 4..31. Every +1 doubles the time per hash.
+     */
+    private int bcryptStrength = 10;
+
+    /**
+     * Threads hashing and checking passwords; 0 means one per CPU.
+     */
+    private int hashingThreads = 0;
+
+    /**
+     * Hashing requests allowed to wait for a thread; beyond that requests fail fast with 503.
+     */
+    private int hashingQueueCapacity = 64;
+
+    /**
+     * Max time a request waits for its hash, queueing included.
+     */
+    private Duration hashingTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Retry-After sent with a rejected login or registration.
+     */
+    private Duration retryAfter = Duration.ofSeconds(2);
+}
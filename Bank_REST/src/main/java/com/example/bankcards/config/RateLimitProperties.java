@@ -0,0 +1,67 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Buckets untouched (and full again) for this long are dropped.
+     */
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * Route groups, checked in declaration order; a request counts against the first group matching its path.
+     */
+    private Map<String, Group> groups = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Group {
+        /**
+         * Path patterns, e.g. /api/transfers/**.
+         */
+        private List<String> paths = new ArrayList<>();
+
+        /**
+         * Limit per client address; null means none.
+         */
+        private Limit perIp;
+
+        /**
+         * Limit per authenticated user; null means none.
+         */
+        private Limit perUser;
+
+        /**
+         * Per-user limit overrides by role (USER, ADMIN).
+         */
+        private Map<String, Limit> perRole = new LinkedHashMap<>();
+    }
+
+    @Getter
+    @Setter
+    public static class Limit {
+        /**
+         * Burst size: requests allowed back to back with a full bucket.
+         */
+        private int capacity;
+
+        /**
+         * Sustained rate the bucket refills at.
+         */
+        private double perSecond;
+    }
+}
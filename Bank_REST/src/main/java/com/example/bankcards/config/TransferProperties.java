@@ -0,0 +1,124 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "app.transfer")
+public class TransferProperties {
+    /**
+     * How a single transfer touches the card rows.
+     * PESSIMISTIC — SELECT ... FOR UPDATE on both cards, balances changed on the entities.
+     * CONDITIONAL — one guarded UPDATE for the debit and one for the credit, no entities loaded.
+     * LEDGER — balances live in the ledger (latest snapshot + later entries): a transfer locks the source for
+     * update and the destination for share, checks the funds on the ledger and only inserts rows; cards.balance
+     * keeps the opening balance and is no longer written.
+     */
+    private Engine engine = Engine.PESSIMISTIC;
+
+    /**
+     * Where POST /api/transfers runs the transfer.
+     * DIRECT — on the request thread, one transaction per transfer.
+     * SERIALIZED — on a single-writer queue chosen by the source card id, committed in small groups.
+     * GROUP_COMMIT — collected over a short window from all callers and committed together.
+     */
+    private Dispatch dispatch = Dispatch.DIRECT;
+
+    private final Idempotency idempotency = new Idempotency();
+
+    private final Serialized serialized = new Serialized();
+
+    private final GroupCommit groupCommit = new GroupCommit();
+
+    private final Export export = new Export();
+
+    public enum Engine {PESSIMISTIC, CONDITIONAL, LEDGER}
+
+    public enum Dispatch {DIRECT, SERIALIZED, GROUP_COMMIT}
+
+    @Setter
+    @Getter
+    public static class Idempotency {
+        /**
+         * Max number of completed responses kept in the in-memory front cache.
+         */
+        private long cacheSize = 10_000;
+
+        /**
+         * How long a completed response stays in the front cache; older keys are answered from the table.
+         */
+        private Duration cacheTtl = Duration.ofHours(1);
+
+        /**
+         * How long a duplicate request waits for the in-flight request with the same key.
+         */
+        private Duration waitTimeout = Duration.ofSeconds(30);
+    }
+
+    @Setter
+    @Getter
+    public static class Serialized {
+        /**
+         * Number of single-writer queues; transfers from the same card always land on the same one.
+         */
+        private int stripes = 8;
+
+        /**
+         * Pending transfers per queue before new requests are rejected with 503.
+         */
+        private int queueCapacity = 1024;
+
+        /**
+         * Max transfers committed together in one transaction.
+         */
+        private int maxGroupSize = 16;
+
+        /**
+         * How long the request thread waits for its transfer to commit.
+         */
+        private Duration timeout = Duration.ofSeconds(30);
+    }
+
+    @Setter
+    @Getter
+    public static class GroupCommit {
+        /**
+         * How long the collector keeps a group open after its first transfer arrived.
+         */
+        private Duration window = Duration.ofMillis(2);
+
+        /**
+         * A group is closed early once it holds this many transfers.
+         */
+        private int maxGroupSize = 64;
+
+        /**
+         * Transfers waiting for a group before new requests are rejected with 503.
+         */
+        private int queueCapacity = 4096;
+
+        /**
+         * Groups committed in parallel; more than one may make groups touching the same cards deadlock
+         * (they are then retried one by one).
+         */
+        private int committers = 1;
+
+        /**
+         * How long the request thread waits for its transfer to commit.
+         */
+        private Duration timeout = Duration.ofSeconds(30);
+    }
+
+    @Setter
+    @Getter
+    public static class Export {
+        /**
+         * Rows fetched per round trip by the statement export cursor.
+         */
+        private int fetchSize = 1000;
+    }
+}
@@ -1,16 +1,23 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.card.CardCreateRequest;
+import com.example.bankcards.dto.card.CardLookupRequest;
 import com.example.bankcards.dto.card.CardResponse;
 import com.example.bankcards.dto.card.CardStatusUpdateRequest;
+import com.example.bankcards.dto.card.CardStripesUpdateRequest;
+import com.example.bankcards.dto.common.CursorSlice;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.repository.spec.HolderNameMatch;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.PanIndexBackfillService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/admin/cards")
 public class AdminCardController {
@@ -18,9 +25,11 @@ public class AdminCardController {
     private static final Logger log = LoggerFactory.getLogger(AdminCardController.class);
 
     private final CardService cardService;
+    private final PanIndexBackfillService panIndexBackfill;
 
-    public AdminCardController(CardService cardService) {
+    public AdminCardController(CardService cardService, PanIndexBackfillService panIndexBackfill) {
         this.cardService = cardService;
+        this.panIndexBackfill = panIndexBackfill;
     }
 
     @PostMapping
@@ -29,34 +38,83 @@ public class AdminCardController {
         return cardService.create(req);
     }
 
+    // exact search by full PAN through the blind index
+    @PostMapping("/lookup")
+    public CardResponse lookup(@Valid @RequestBody CardLookupRequest req) {
+        log.info("Admin looking up a card by PAN");
+        return cardService.findByPan(req.getPan());
+    }
+
+    // indexes cards created before pan_index existed
+    @PostMapping("/pan-index/backfill")
+    public Map<String, Integer> backfillPanIndex() {
+        log.info("Admin started PAN index backfill");
+        return Map.of("indexed", panIndexBackfill.backfill());
+    }
+
     @PutMapping("/{id}/status")
-    public CardResponse updateStatus(@PathVariable Long id,
+    public CardResponse updateStatus(@PathVariable("id") Long id,
                                      @Valid @RequestBody CardStatusUpdateRequest req) {
         log.info("Admin updating status of card {} to {}", id, req.getStatus());
         return cardService.updateStatus(id, req);
     }
 
+    // opt-in striped balance for cards with many incoming transfers, 0 turns it off
+    @PutMapping("/{id}/stripes")
+    public CardResponse updateStripes(@PathVariable("id") Long id,
+                                      @Valid @RequestBody CardStripesUpdateRequest req) {
+        log.info("Admin setting {} balance stripes on card {}", req.getStripes(), id);
+        return cardService.updateStripes(id, req);
+    }
+
     @DeleteMapping("/{id}")
-    public void delete(@PathVariable Long id) {
+    public void delete(@PathVariable("id") Long id) {
         log.warn("Admin deleting card with ID {}", id);
         cardService.delete(id);
     }
 
     @GetMapping
-    public Page<CardResponse> listAll(
-            @RequestParam(required = false) Long ownerId,
-            @RequestParam(required = false) CardStatus status,
-            @RequestParam(required = false) String holderName,
-            @RequestParam(required = false) @jakarta.validation.constraints.Size(max = 4) String last4,
-            @RequestParam(required = false) java.time.LocalDate expFrom,
-            @RequestParam(required = false) java.time.LocalDate expTo,
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+    public Slice<CardResponse> listAll(
+            @RequestParam(name = "ownerId", required = false) Long ownerId,
+            @RequestParam(name = "status", required = false) CardStatus status,
+            @RequestParam(name = "holderName", required = false) String holderName,
+            // PREFIX matches the start of the name only and is cheaper for short terms
+            @RequestParam(name = "holderMatch", defaultValue = "CONTAINS") HolderNameMatch holderMatch,
+            @RequestParam(name = "last4", required = false) @jakarta.validation.constraints.Size(max = 4) String last4,
+            @RequestParam(name = "expFrom", required = false) java.time.LocalDate expFrom,
+            @RequestParam(name = "expTo", required = false) java.time.LocalDate expTo,
+            @RequestParam(name = "page", defaultValue = "0") int page,
+            @RequestParam(name = "size", defaultValue = "10") int size,
+            // false skips the COUNT query, which is the expensive part over all cards
+            @RequestParam(name = "withTotal", defaultValue = "true") boolean withTotal
     ) {
         var pageable = org.springframework.data.domain.PageRequest.of(page, size, org.springframework.data.domain.Sort.by("id").descending());
-        log.debug("Admin requested cards list with filters: ownerId={}, status={}, holderName={}", ownerId, status, holderName);
+        log.debug("Admin requested cards list with filters: ownerId={}, status={}, holderName={} ({})",
+                ownerId, status, holderName, holderMatch);
         // ownerId == null => show ALL cards
-        return cardService.list(ownerId, status, holderName, last4, expFrom, expTo, pageable);
+        if (!withTotal) {
+            return cardService.listSlice(ownerId, status, holderName, holderMatch, last4, expFrom, expTo, pageable);
+        }
+        return cardService.list(ownerId, status, holderName, holderMatch, last4, expFrom, expTo, pageable);
+    }
+
+    // keyset variant of the list: deep pages over all cards cost the same as the first one;
+    // pass nextCursor of the previous response to get the next page
+    @GetMapping("/scroll")
+    public CursorSlice<CardResponse> scrollAll(
+            @RequestParam(name = "ownerId", required = false) Long ownerId,
+            @RequestParam(name = "status", required = false) CardStatus status,
+            @RequestParam(name = "holderName", required = false) String holderName,
+            @RequestParam(name = "holderMatch", defaultValue = "CONTAINS") HolderNameMatch holderMatch,
+            @RequestParam(name = "last4", required = false) @jakarta.validation.constraints.Size(max = 4) String last4,
+            @RequestParam(name = "expFrom", required = false) java.time.LocalDate expFrom,
+            @RequestParam(name = "expTo", required = false) java.time.LocalDate expTo,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size
+    ) {
+        log.debug("Admin scrolling cards with filters: ownerId={}, status={}, holderName={} ({})",
+                ownerId, status, holderName, holderMatch);
+        return cardService.scroll(ownerId, status, holderName, holderMatch, last4, expFrom, expTo, cursor, size);
     }
 
     // block card
@@ -80,9 +138,8 @@ public class AdminCardController {
     // get any card by id
     @GetMapping("/{id}")
     public CardResponse getById(@PathVariable("id") Long id) {
-        var card = cardService.findById(id)
-                .orElseThrow(() -> new com.example.bankcards.exception.NotFoundException("Card not found"));
         log.debug("Admin fetching card by ID {}", id);
-        return com.example.bankcards.mapper.CardMapper.toResponse(card);
+        return cardService.findResponseById(id)
+                .orElseThrow(() -> new com.example.bankcards.exception.NotFoundException("Card not found"));
     }
 }
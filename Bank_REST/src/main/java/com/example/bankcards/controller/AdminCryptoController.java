@@ -0,0 +1,23 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.crypto.ReencryptionStatus;
+import com.example.bankcards.service.PanReencryptionWorker;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/crypto")
+public class AdminCryptoController {
+
+    private final PanReencryptionWorker reencryptionWorker;
+
+    public AdminCryptoController(PanReencryptionWorker reencryptionWorker) {
+        this.reencryptionWorker = reencryptionWorker;
+    }
+
+    @GetMapping("/reencryption")
+    public ReencryptionStatus reencryption() {
+        return reencryptionWorker.status();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.ledger.LedgerBalanceResponse;
+import com.example.bankcards.dto.ledger.ReconciliationReport;
+import com.example.bankcards.service.LedgerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/ledger")
+public class AdminLedgerController {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminLedgerController.class);
+
+    private final LedgerService ledgerService;
+
+    public AdminLedgerController(LedgerService ledgerService) {
+        this.ledgerService = ledgerService;
+    }
+
+    @GetMapping("/cards/{id}")
+    public LedgerBalanceResponse balance(@PathVariable("id") Long id) {
+        log.debug("Admin fetching ledger balance of card {}", id);
+        return ledgerService.balance(id);
+    }
+
+    @PostMapping("/reconcile")
+    public ReconciliationReport reconcile() {
+        log.info("Admin started ledger reconciliation");
+        return ledgerService.reconcile();
+    }
+
+    @PostMapping("/snapshots")
+    public Map<String, Integer> snapshot() {
+        log.info("Admin started ledger snapshot");
+        return Map.of("snapshots", ledgerService.snapshot());
+    }
+}
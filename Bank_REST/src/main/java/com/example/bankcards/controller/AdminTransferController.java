@@ -0,0 +1,59 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.common.CursorSlice;
+import com.example.bankcards.dto.transfer.TransferResponse;
+import com.example.bankcards.service.TransferExportService;
+import com.example.bankcards.service.TransferHistoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.OffsetDateTime;
+
+@RestController
+@RequestMapping("/api/admin/transfers")
+public class AdminTransferController {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminTransferController.class);
+
+    private final TransferHistoryService historyService;
+    private final TransferExportService exportService;
+
+    public AdminTransferController(TransferHistoryService historyService, TransferExportService exportService) {
+        this.historyService = historyService;
+        this.exportService = exportService;
+    }
+
+    // newest first; pass nextCursor of the previous response to get the next page
+    @GetMapping
+    public CursorSlice<TransferResponse> list(@RequestParam(name = "cardId", required = false) Long cardId,
+                                              @RequestParam(name = "cursor", required = false) String cursor,
+                                              @RequestParam(name = "size", defaultValue = "20") int size) {
+        log.debug("Admin requested transfers: cardId={}, size={}", cardId, size);
+        return historyService.adminHistory(cardId, cursor, size);
+    }
+
+    // statement export, streamed row by row; from is inclusive, to exclusive
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(name = "cardId", required = false) Long cardId,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(name = "format", defaultValue = "NDJSON") TransferExportService.Format format) {
+        log.info("Admin exporting transfers: cardId={}, from={}, to={}, format={}", cardId, from, to, format);
+
+        boolean csv = format == TransferExportService.Format.CSV;
+        String fileName = "transfers" + (cardId == null ? "" : "-card-" + cardId) + (csv ? ".csv" : ".ndjson");
+        StreamingResponseBody body = out -> exportService.export(cardId, from, to, format, out);
+
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv") : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+}
@@ -2,16 +2,25 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.auth.LoginRequest;
 import com.example.bankcards.dto.auth.LoginResponse;
+import com.example.bankcards.dto.auth.RefreshRequest;
 import com.example.bankcards.dto.auth.RegisterRequest;
+import com.example.bankcards.exception.BusinessException;
+import com.example.bankcards.exception.ServiceUnavailableException;
+import com.example.bankcards.exception.UnauthorizedException;
+import com.example.bankcards.security.AuthUser;
+import com.example.bankcards.service.AuthTokenService;
 import com.example.bankcards.service.JwtService;
+import com.example.bankcards.service.RefreshTokenService;
+import com.example.bankcards.service.TokenRevocationService;
 import com.example.bankcards.service.UserService;
+import io.jsonwebtoken.Claims;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -25,11 +34,19 @@ public class AuthController {
     private final AuthenticationManager authManager;
     private final JwtService jwtService;
     private final UserService userService;
+    private final TokenRevocationService revocation;
+    private final AuthTokenService authTokens;
+    private final RefreshTokenService refreshTokens;
 
-    public AuthController(AuthenticationManager authManager, JwtService jwtService, UserService userService) {
+    public AuthController(AuthenticationManager authManager, JwtService jwtService, UserService userService,
+                          TokenRevocationService revocation, AuthTokenService authTokens,
+                          RefreshTokenService refreshTokens) {
         this.authManager = authManager;
         this.jwtService = jwtService;
         this.userService = userService;
+        this.revocation = revocation;
+        this.authTokens = authTokens;
+        this.refreshTokens = refreshTokens;
     }
 
     @PostMapping("/register")
@@ -39,6 +56,36 @@ public class AuthController {
         return ResponseEntity.ok(Map.of("id", id, "username", req.getUsername()));
     }
 
+    /**
+     * Exchanges a refresh token for a new access/refresh pair; the refresh token used becomes invalid.
+     */
+    @PostMapping("/refresh")
+    public LoginResponse refresh(@Valid @RequestBody RefreshRequest req) {
+        return authTokens.refresh(req.getRefreshToken());
+    }
+
+    /**
+     * Revokes the presented access token and, if given, the refresh token family; other sessions stay valid.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false) String header,
+                                       @RequestBody(required = false) RefreshRequest body) {
+        if (header == null || !header.startsWith("Bearer ")) {
+            throw new UnauthorizedException("Missing bearer token");
+        }
+        Claims claims = jwtService.verify(header.substring(7))
+                .orElseThrow(() -> new UnauthorizedException("Invalid token"));
+        if (claims.getId() == null) {
+            throw new BusinessException("Token has no id and cannot be revoked");
+        }
+        revocation.revokeToken(claims.getId(), claims.getExpiration());
+        if (body != null && body.getRefreshToken() != null) {
+            refreshTokens.revoke(body.getRefreshToken());
+        }
+        log.info("User logged out: username='{}'", claims.getSubject());
+        return ResponseEntity.noContent().build();
+    }
+
     @PostMapping("/login")
     public ResponseEntity<?> login(@Valid @RequestBody LoginRequest req) {
         try {
@@ -47,23 +94,21 @@ public class AuthController {
             Authentication auth = authManager.authenticate(
                     new UsernamePasswordAuthenticationToken(req.getUsername(), req.getPassword()));
 
-            UserDetails principal = (UserDetails) auth.getPrincipal();
+            AuthUser principal = (AuthUser) auth.getPrincipal();
 
             List<String> roles = principal.getAuthorities().stream()
                     .map(GrantedAuthority::getAuthority)
                     .toList();
 
-            String token = jwtService.generate(
-                    principal.getUsername(),
-                    Map.of("roles", roles)
-            );
+            LoginResponse tokens = authTokens.issue(principal.getId(), principal.getUsername(), roles);
+            String token = tokens.getToken();
 
             log.info("User authenticated: username='{}', roles={}, tokenPrefix='{}...'",
                     principal.getUsername(),
                     roles,
                     token.substring(0, Math.min(token.length(), 12)));
 
-            return ResponseEntity.ok(new LoginResponse(token));
+            return ResponseEntity.ok(tokens);
         } catch (BadCredentialsException e) {
             log.warn("Login failed (bad credentials) for username='{}'", req.getUsername());
             return ResponseEntity.status(401).body(Map.of("error", "Invalid username or password"));
@@ -73,6 +118,8 @@ public class AuthController {
         } catch (LockedException e) {
             log.warn("Login failed (account locked) for username='{}'", req.getUsername());
             return ResponseEntity.status(423).body(Map.of("error", "User account is locked"));
+        } catch (ServiceUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Login failed (unexpected) for username='{}': {}", req.getUsername(), e.getMessage(), e);
             return ResponseEntity.status(500).body(Map.of("error", "Unexpected error"));
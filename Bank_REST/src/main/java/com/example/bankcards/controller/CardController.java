@@ -1,9 +1,10 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.card.CardResponse;
+import com.example.bankcards.dto.common.CursorSlice;
 import com.example.bankcards.entity.CardStatus;
-import com.example.bankcards.entity.User;
-import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.spec.HolderNameMatch;
+import com.example.bankcards.security.CurrentUserResolver;
 import com.example.bankcards.service.CardService;
 import jakarta.validation.constraints.Size;
 import lombok.extern.slf4j.Slf4j;
@@ -20,73 +21,69 @@ import java.time.LocalDate;
 @RequestMapping("/api/cards")
 public class CardController {
     private final CardService cardService;
-    private final UserRepository userRepository;
+    private final CurrentUserResolver currentUser;
 
-    public CardController(CardService cardService, UserRepository userRepository) {
+    public CardController(CardService cardService, CurrentUserResolver currentUser) {
         this.cardService = cardService;
-        this.userRepository = userRepository;
+        this.currentUser = currentUser;
     }
 
     @GetMapping("/{id}")
     public CardResponse getCard(@PathVariable("id") Long id, Authentication auth) {
-        Long userId = resolveUserId(auth);
+        Long userId = currentUser.userId(auth);
         log.debug("getCard: userId={}, cardId={}", userId, id);
 
-        var card = cardService.findByIdAndUserId(id, userId)
+        return cardService.findResponseByIdAndUserId(id, userId)
                 .orElseThrow(() -> new com.example.bankcards.exception.NotFoundException("Card not found"));
-
-        return com.example.bankcards.mapper.CardMapper.toResponse(card);
     }
 
     @GetMapping
-    public Page<CardResponse> listCards(
+    public Slice<CardResponse> listCards(
             Authentication auth,
-            @RequestParam(required = false) CardStatus status,
-            @RequestParam(required = false) String holderName,
-            @RequestParam(required = false) @Size(max = 4) String last4,
-            @RequestParam(required = false) LocalDate expFrom,
-            @RequestParam(required = false) LocalDate expTo,
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(name = "status", required = false) CardStatus status,
+            @RequestParam(name = "holderName", required = false) String holderName,
+            @RequestParam(name = "last4", required = false) @Size(max = 4) String last4,
+            @RequestParam(name = "expFrom", required = false) LocalDate expFrom,
+            @RequestParam(name = "expTo", required = false) LocalDate expTo,
+            @RequestParam(name = "page", defaultValue = "0") int page,
+            @RequestParam(name = "size", defaultValue = "10") int size,
+            // false skips the COUNT query: the response has no totals, only whether a next page exists
+            @RequestParam(name = "withTotal", defaultValue = "true") boolean withTotal
     ) {
-        Long userId = resolveUserId(auth);
+        Long userId = currentUser.userId(auth);
 
         // normalize inputs a bit (avoid NPEs and accidental spaces)
         String holder = (holderName == null ? null : holderName.trim());
         String last4norm = (last4 == null ? null : last4.trim());
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
-        log.debug("listCards: userId={}, status={}, holderName='{}', last4='{}', expFrom={}, expTo={}, page={}, size={}",
-                userId, status, holder, last4norm, expFrom, expTo, page, size);
+        log.debug("listCards: userId={}, status={}, holderName='{}', last4='{}', expFrom={}, expTo={}, page={}, size={}, withTotal={}",
+                userId, status, holder, last4norm, expFrom, expTo, page, size, withTotal);
 
+        if (!withTotal) {
+            return cardService.listSlice(userId, status, holder, HolderNameMatch.CONTAINS, last4norm, expFrom, expTo, pageable);
+        }
         return cardService.list(userId, status, holder, last4norm, expFrom, expTo, pageable);
     }
 
-    private Long resolveUserId(Authentication auth) {
-        if (auth == null) {
-            log.warn("resolveUserId: auth is null");
-            throw new com.example.bankcards.exception.UnauthorizedException("Unknown user (no Authentication)");
-        }
-
-        Object details = auth.getDetails();
-        if (details instanceof Long l) {
-            log.debug("resolveUserId: got userId from details={}", l);
-            return l;
-        } else {
-            if (details != null) {
-                log.info("resolveUserId: details present but not Long ({}). Falling back to username.",
-                        details.getClass().getName());
-            } else {
-                log.info("resolveUserId: details is null. Falling back to username.");
-            }
-        }
+    // keyset variant of the list, newest first; pass nextCursor of the previous response to get the next page
+    @GetMapping("/scroll")
+    public CursorSlice<CardResponse> scrollCards(
+            Authentication auth,
+            @RequestParam(name = "status", required = false) CardStatus status,
+            @RequestParam(name = "holderName", required = false) String holderName,
+            @RequestParam(name = "last4", required = false) @Size(max = 4) String last4,
+            @RequestParam(name = "expFrom", required = false) LocalDate expFrom,
+            @RequestParam(name = "expTo", required = false) LocalDate expTo,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size
+    ) {
+        Long userId = currentUser.userId(auth);
+        String holder = (holderName == null ? null : holderName.trim());
+        String last4norm = (last4 == null ? null : last4.trim());
 
-        String username = auth.getName();
-        return userRepository.findByUsername(username)
-                .map(User::getId)
-                .orElseThrow(() -> {
-                    log.warn("resolveUserId: user not found by username='{}'", username);
-                    return new com.example.bankcards.exception.UnauthorizedException("User not found");
-                });
+        log.debug("scrollCards: userId={}, status={}, holderName='{}', last4='{}', expFrom={}, expTo={}, size={}",
+                userId, status, holder, last4norm, expFrom, expTo, size);
+        return cardService.scroll(userId, status, holder, HolderNameMatch.CONTAINS, last4norm, expFrom, expTo, cursor, size);
     }
 }
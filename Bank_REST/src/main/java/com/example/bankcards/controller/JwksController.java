@@ -0,0 +1,36 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.service.JwtSigningKeys;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Public keys for verifying access tokens elsewhere (gateways, other services). Verifiers should
+ * refetch on an unknown kid, as a rotated-in key signs immediately.
+ */
+@RestController
+public class JwksController {
+
+    private final JwtSigningKeys keys;
+
+    public JwksController(JwtSigningKeys keys) {
+        this.keys = keys;
+    }
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        if (!keys.isAsymmetric()) {
+            // HS256 keys are secret and never published
+            return ResponseEntity.ok(Map.of("keys", List.of()));
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic())
+                .body(keys.jwks());
+    }
+}
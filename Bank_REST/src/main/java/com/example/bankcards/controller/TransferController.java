@@ -1,10 +1,15 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.common.CursorSlice;
+import com.example.bankcards.dto.transfer.BatchTransferRequest;
+import com.example.bankcards.dto.transfer.BatchTransferResponse;
 import com.example.bankcards.dto.transfer.TransferRequest;
 import com.example.bankcards.dto.transfer.TransferResponse;
-import com.example.bankcards.entity.User;
-import com.example.bankcards.repository.UserRepository;
-import com.example.bankcards.service.TransferService;
+import com.example.bankcards.security.CurrentUserResolver;
+import com.example.bankcards.service.BatchTransferService;
+import com.example.bankcards.service.IdempotencyService;
+import com.example.bankcards.service.TransferDispatcher;
+import com.example.bankcards.service.TransferHistoryService;
 import jakarta.validation.Valid;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -12,20 +17,49 @@ import org.springframework.web.bind.annotation.*;
 @RestController
 @RequestMapping("/api/transfers")
 public class TransferController {
-    private final TransferService transferService;
-    private final UserRepository userRepository;
 
-    public TransferController(TransferService transferService, UserRepository userRepository) {
-        this.transferService = transferService;
-        this.userRepository = userRepository;
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private final TransferDispatcher transferDispatcher;
+    private final BatchTransferService batchTransferService;
+    private final IdempotencyService idempotencyService;
+    private final TransferHistoryService historyService;
+    private final CurrentUserResolver currentUser;
+
+    public TransferController(TransferDispatcher transferDispatcher,
+                              BatchTransferService batchTransferService,
+                              IdempotencyService idempotencyService,
+                              TransferHistoryService historyService,
+                              CurrentUserResolver currentUser) {
+        this.transferDispatcher = transferDispatcher;
+        this.batchTransferService = batchTransferService;
+        this.idempotencyService = idempotencyService;
+        this.historyService = historyService;
+        this.currentUser = currentUser;
     }
 
     @PostMapping
-    public TransferResponse transfer(Authentication auth, @Valid @RequestBody TransferRequest req) {
-        String username = auth.getName();
-        Long userId = userRepository.findByUsername(username)
-                .map(User::getId)
-                .orElseThrow(() -> new com.example.bankcards.exception.NotFoundException("User not found"));
-        return transferService.transfer(userId, req);
+    public TransferResponse transfer(Authentication auth,
+                                     @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                     @Valid @RequestBody TransferRequest req) {
+        Long userId = currentUser.userId(auth);
+        if (idempotencyKey == null) {
+            return transferDispatcher.transfer(userId, req, null);
+        }
+        return idempotencyService.execute(userId, idempotencyKey, req,
+                () -> transferDispatcher.transfer(userId, req, idempotencyKey));
+    }
+
+    // own transfers, newest first; pass nextCursor of the previous response to get the next page
+    @GetMapping
+    public CursorSlice<TransferResponse> history(Authentication auth,
+                                                 @RequestParam(name = "cursor", required = false) String cursor,
+                                                 @RequestParam(name = "size", defaultValue = "20") int size) {
+        return historyService.userHistory(currentUser.userId(auth), cursor, size);
+    }
+
+    @PostMapping("/batch")
+    public BatchTransferResponse transferBatch(Authentication auth, @Valid @RequestBody BatchTransferRequest req) {
+        return batchTransferService.transferBatch(currentUser.userId(auth), req.getItems());
     }
 }
@@ -2,6 +2,9 @@ package com.example.bankcards.dto.auth;
 
 public class LoginResponse {
     private String token;
+    private String refreshToken;
+    // access token lifetime, seconds
+    private Long expiresIn;
 
     public LoginResponse() {
     }
@@ -10,6 +13,12 @@ public class LoginResponse {
         this.token = token;
     }
 
+    public LoginResponse(String token, String refreshToken, Long expiresIn) {
+        this.token = token;
+        this.refreshToken = refreshToken;
+        this.expiresIn = expiresIn;
+    }
+
     public String getToken() {
         return token;
     }
@@ -17,4 +26,20 @@ public class LoginResponse {
     public void setToken(String token) {
         this.token = token;
     }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
+    public Long getExpiresIn() {
+        return expiresIn;
+    }
+
+    public void setExpiresIn(Long expiresIn) {
+        this.expiresIn = expiresIn;
+    }
 }
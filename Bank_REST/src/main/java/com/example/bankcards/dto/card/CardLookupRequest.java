@@ -0,0 +1,19 @@
+package com.example.bankcards.dto.card;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+
+// full PAN in the body, so it never shows up in URLs or access logs
+public class CardLookupRequest {
+    @NotBlank(message = "PAN is required.")
+    @Pattern(regexp = "[\\d -]{16,23}", message = "PAN must contain 16 digits.")
+    private String pan;
+
+    public String getPan() {
+        return pan;
+    }
+
+    public void setPan(String pan) {
+        this.pan = pan;
+    }
+}
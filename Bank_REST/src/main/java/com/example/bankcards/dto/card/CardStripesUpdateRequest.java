@@ -0,0 +1,14 @@
+package com.example.bankcards.dto.card;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+public class CardStripesUpdateRequest {
+    // 0 turns striping off
+    @Min(value = 0, message = "Stripes must be between 0 and 64.")
+    @Max(value = 64, message = "Stripes must be between 0 and 64.")
+    private int stripes;
+
+    public int getStripes() { return stripes; }
+    public void setStripes(int stripes) { this.stripes = stripes; }
+}
@@ -0,0 +1,81 @@
+package com.example.bankcards.dto.crypto;
+
+import java.time.OffsetDateTime;
+
+public class ReencryptionStatus {
+    private int targetKeyId;
+    // cards with an id up to this one have been checked
+    private long lastCardId;
+    private long reencrypted;
+    private long skipped;
+    // of the last chunk processed by this instance
+    private double rowsPerSecond;
+    private OffsetDateTime startedAt;
+    private OffsetDateTime updatedAt;
+    // null while the job is still running (or has not started)
+    private OffsetDateTime finishedAt;
+
+    public int getTargetKeyId() {
+        return targetKeyId;
+    }
+
+    public void setTargetKeyId(int targetKeyId) {
+        this.targetKeyId = targetKeyId;
+    }
+
+    public long getLastCardId() {
+        return lastCardId;
+    }
+
+    public void setLastCardId(long lastCardId) {
+        this.lastCardId = lastCardId;
+    }
+
+    public long getReencrypted() {
+        return reencrypted;
+    }
+
+    public void setReencrypted(long reencrypted) {
+        this.reencrypted = reencrypted;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(long skipped) {
+        this.skipped = skipped;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public OffsetDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(OffsetDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public OffsetDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(OffsetDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public OffsetDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(OffsetDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
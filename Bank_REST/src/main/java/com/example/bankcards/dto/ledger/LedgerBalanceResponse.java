@@ -0,0 +1,51 @@
+package com.example.bankcards.dto.ledger;
+
+import java.math.BigDecimal;
+
+public class LedgerBalanceResponse {
+    private Long cardId;
+    private BigDecimal cardBalance;
+    private BigDecimal ledgerBalance;
+    private Long snapshotEntryId;
+    private Long lastEntryId;
+
+    public Long getCardId() {
+        return cardId;
+    }
+
+    public void setCardId(Long cardId) {
+        this.cardId = cardId;
+    }
+
+    public BigDecimal getCardBalance() {
+        return cardBalance;
+    }
+
+    public void setCardBalance(BigDecimal cardBalance) {
+        this.cardBalance = cardBalance;
+    }
+
+    public BigDecimal getLedgerBalance() {
+        return ledgerBalance;
+    }
+
+    public void setLedgerBalance(BigDecimal ledgerBalance) {
+        this.ledgerBalance = ledgerBalance;
+    }
+
+    public Long getSnapshotEntryId() {
+        return snapshotEntryId;
+    }
+
+    public void setSnapshotEntryId(Long snapshotEntryId) {
+        this.snapshotEntryId = snapshotEntryId;
+    }
+
+    public Long getLastEntryId() {
+        return lastEntryId;
+    }
+
+    public void setLastEntryId(Long lastEntryId) {
+        this.lastEntryId = lastEntryId;
+    }
+}
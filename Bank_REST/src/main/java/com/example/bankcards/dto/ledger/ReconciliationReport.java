@@ -0,0 +1,45 @@
+package com.example.bankcards.dto.ledger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReconciliationReport {
+    private long cardsChecked;
+    private long mismatches;
+    // snapshots that had missed an entry and were rewritten from the full history; not counted as mismatches
+    private long repairedSnapshots;
+    // first mismatches only, see app.ledger.max-reported-mismatches
+    private List<LedgerBalanceResponse> items = new ArrayList<>();
+
+    public long getCardsChecked() {
+        return cardsChecked;
+    }
+
+    public void setCardsChecked(long cardsChecked) {
+        this.cardsChecked = cardsChecked;
+    }
+
+    public long getMismatches() {
+        return mismatches;
+    }
+
+    public void setMismatches(long mismatches) {
+        this.mismatches = mismatches;
+    }
+
+    public long getRepairedSnapshots() {
+        return repairedSnapshots;
+    }
+
+    public void setRepairedSnapshots(long repairedSnapshots) {
+        this.repairedSnapshots = repairedSnapshots;
+    }
+
+    public List<LedgerBalanceResponse> getItems() {
+        return items;
+    }
+
+    public void setItems(List<LedgerBalanceResponse> items) {
+        this.items = items;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.bankcards.dto.transfer;
+
+import com.example.bankcards.entity.TransferStatus;
+
+public class BatchTransferItemResult {
+    // position of the item in the request batch
+    private int index;
+    private TransferStatus status;
+    private TransferResponse transfer;
+    private String error;
+
+    public BatchTransferItemResult() {
+    }
+
+    public static BatchTransferItemResult success(int index, TransferResponse transfer) {
+        BatchTransferItemResult r = new BatchTransferItemResult();
+        r.setIndex(index);
+        r.setStatus(TransferStatus.SUCCESS);
+        r.setTransfer(transfer);
+        return r;
+    }
+
+    public static BatchTransferItemResult failed(int index, String error) {
+        BatchTransferItemResult r = new BatchTransferItemResult();
+        r.setIndex(index);
+        r.setStatus(TransferStatus.FAILED);
+        r.setError(error);
+        return r;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public TransferStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(TransferStatus status) {
+        this.status = status;
+    }
+
+    public TransferResponse getTransfer() {
+        return transfer;
+    }
+
+    public void setTransfer(TransferResponse transfer) {
+        this.transfer = transfer;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.dto.transfer;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchTransferRequest {
+    @NotEmpty(message = "Batch must contain at least one transfer.")
+    @Size(max = 1000, message = "Batch must contain at most 1000 transfers.")
+    private List<@Valid TransferRequest> items = new ArrayList<>();
+
+    public List<TransferRequest> getItems() {
+        return items;
+    }
+
+    public void setItems(List<TransferRequest> items) {
+        this.items = items;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.bankcards.dto.transfer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchTransferResponse {
+    private int succeeded;
+    private int failed;
+    private List<BatchTransferItemResult> items = new ArrayList<>();
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<BatchTransferItemResult> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BatchTransferItemResult> items) {
+        this.items = items;
+    }
+}
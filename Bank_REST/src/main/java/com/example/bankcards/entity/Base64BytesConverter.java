@@ -0,0 +1,23 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.Base64;
+
+/**
+ * Stores a Base64 string attribute as the raw bytes it encodes (bytea), a third smaller than the text.
+ */
+@Converter
+public class Base64BytesConverter implements AttributeConverter<String, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(String attribute) {
+        return attribute == null ? null : Base64.getDecoder().decode(attribute);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] dbData) {
+        return dbData == null ? null : Base64.getEncoder().encodeToString(dbData);
+    }
+}
@@ -8,8 +8,13 @@ import java.time.OffsetDateTime;
 
 @Entity
 @Table(name = "cards", indexes = {
-        @Index(name = "idx_cards_owner_id", columnList = "owner_id"),
-        @Index(name = "idx_cards_status", columnList = "status")
+        // "my cards" listings, newest first without a sort step: all of an owner's cards, or one status of them
+        @Index(name = "idx_cards_owner_id_desc", columnList = "owner_id, id DESC"),
+        @Index(name = "idx_cards_owner_status_id", columnList = "owner_id, status, id DESC"),
+        @Index(name = "idx_cards_owner_last4", columnList = "owner_id, last4"),
+        @Index(name = "idx_cards_last4", columnList = "last4"),
+        @Index(name = "idx_cards_status", columnList = "status"),
+        @Index(name = "uk_cards_pan_index", columnList = "pan_index", unique = true)
 })
 public class Card {
 
@@ -22,13 +27,22 @@ public class Card {
             foreignKey = @ForeignKey(name = "fk_cards_owner"))
     private User owner;
 
-    @Column(name = "encrypted_pan", nullable = false, length = 700)
+    // binary envelope from CryptoService, kept as Base64 on the entity
+    @Convert(converter = Base64BytesConverter.class)
+    @Column(name = "encrypted_pan", nullable = false, length = 128)
     private String encryptedPan;
 
+    // keyed HMAC of the PAN (CryptoService.blindIndex) for exact lookups; null until backfilled
+    @Column(name = "pan_index", length = 32)
+    private byte[] panIndex;
+
     // The PAN mask that we give out: **** **** **** 1234
     @Column(name = "pan_mask", nullable = false, length = 32)
     private String panMask;
 
+    @Column(name = "last4", nullable = false, length = 4)
+    private String last4;
+
     @Column(name = "holder_name", nullable = false, length = 128)
     private String holderName;
 
@@ -42,6 +56,10 @@ public class Card {
     @Column(name = "balance", nullable = false, precision = 19, scale = 2)
     private BigDecimal balance = BigDecimal.ZERO;
 
+    // number of sub-balance rows in card_balance_stripes, 0 = not striped
+    @Column(name = "balance_stripes", nullable = false)
+    private int balanceStripes = 0;
+
     @Version
     private Long version;
 
@@ -120,6 +138,30 @@ public class Card {
         this.balance = balance;
     }
 
+    public int getBalanceStripes() {
+        return balanceStripes;
+    }
+
+    public void setBalanceStripes(int balanceStripes) {
+        this.balanceStripes = balanceStripes;
+    }
+
+    public String getLast4() {
+        return last4;
+    }
+
+    public void setLast4(String last4) {
+        this.last4 = last4;
+    }
+
+    public byte[] getPanIndex() {
+        return panIndex;
+    }
+
+    public void setPanIndex(byte[] panIndex) {
+        this.panIndex = panIndex;
+    }
+
     public Long getVersion() {
         return version;
     }
@@ -0,0 +1,63 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+/**
+ * One sub-balance of a striped card. Credits to a striped card go to one of its stripes instead of
+ * cards.balance, so concurrent credits update different rows; the card balance is cards.balance plus all stripes.
+ * Rows are only changed with bulk statements, never through managed entities. card_id references cards
+ * with ON DELETE CASCADE, so deleting a card removes its stripes.
+ */
+@Entity
+@Table(name = "card_balance_stripes", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_card_balance_stripes_card_stripe", columnNames = {"card_id", "stripe_no"})
+})
+public class CardBalanceStripe {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "card_id", nullable = false)
+    private Long cardId;
+
+    @Column(name = "stripe_no", nullable = false)
+    private int stripeNo;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance = BigDecimal.ZERO;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getCardId() {
+        return cardId;
+    }
+
+    public void setCardId(Long cardId) {
+        this.cardId = cardId;
+    }
+
+    public int getStripeNo() {
+        return stripeNo;
+    }
+
+    public void setStripeNo(int stripeNo) {
+        this.stripeNo = stripeNo;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+}
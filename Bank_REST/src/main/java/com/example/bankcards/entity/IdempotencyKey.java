@@ -0,0 +1,86 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Idempotency-Key of a completed transfer request.
+ * Written in the same transaction as the transfer row, so a key exists only for a committed transfer.
+ */
+@Entity
+@Table(name = "transfer_idempotency_keys", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_transfer_idem_user_key", columnNames = {"user_id", "idem_key"})
+})
+public class IdempotencyKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "idem_key", nullable = false, length = 128)
+    private String key;
+
+    // SHA-256 (hex) of the request payload, detects reuse of a key for a different transfer
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "transfer_id", nullable = false,
+            foreignKey = @ForeignKey(name = "fk_transfer_idem_transfer"))
+    private Transfer transfer;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt = OffsetDateTime.now();
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public Transfer getTransfer() {
+        return transfer;
+    }
+
+    public void setTransfer(Transfer transfer) {
+        this.transfer = transfer;
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(OffsetDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
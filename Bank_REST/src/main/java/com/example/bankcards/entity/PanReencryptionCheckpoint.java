@@ -0,0 +1,104 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Progress of re-encrypting card PANs to one key version: cards up to {@code lastCardId} are done.
+ */
+@Entity
+@Table(name = "pan_reencryption_checkpoints")
+public class PanReencryptionCheckpoint {
+
+    @Id
+    @Column(name = "target_key_id")
+    private Integer targetKeyId;
+
+    // generation of the target this progress was made for, see PanReencryptionTarget
+    @Column(name = "generation", nullable = false)
+    private long generation;
+
+    @Column(name = "last_card_id", nullable = false)
+    private long lastCardId;
+
+    @Column(name = "reencrypted", nullable = false)
+    private long reencrypted;
+
+    // rows that could not be read: unknown envelope version or a key that is no longer configured
+    @Column(name = "skipped", nullable = false)
+    private long skipped;
+
+    @Column(name = "started_at", nullable = false)
+    private OffsetDateTime startedAt = OffsetDateTime.now();
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt = OffsetDateTime.now();
+
+    @Column(name = "finished_at")
+    private OffsetDateTime finishedAt;
+
+    public Integer getTargetKeyId() {
+        return targetKeyId;
+    }
+
+    public void setTargetKeyId(Integer targetKeyId) {
+        this.targetKeyId = targetKeyId;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(long generation) {
+        this.generation = generation;
+    }
+
+    public long getLastCardId() {
+        return lastCardId;
+    }
+
+    public void setLastCardId(long lastCardId) {
+        this.lastCardId = lastCardId;
+    }
+
+    public long getReencrypted() {
+        return reencrypted;
+    }
+
+    public void setReencrypted(long reencrypted) {
+        this.reencrypted = reencrypted;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(long skipped) {
+        this.skipped = skipped;
+    }
+
+    public OffsetDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(OffsetDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public OffsetDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(OffsetDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public OffsetDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(OffsetDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Key version every instance re-encrypts card PANs to; a single row. {@code generation} grows on every switch,
+ * so a checkpoint written for an earlier switch to the same key is recognised as outdated.
+ */
+@Entity
+@Table(name = "pan_reencryption_target")
+public class PanReencryptionTarget {
+
+    public static final int ID = 1;
+
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    @Column(name = "target_key_id", nullable = false)
+    private int targetKeyId;
+
+    @Column(name = "generation", nullable = false)
+    private long generation;
+
+    @Column(name = "switched_at", nullable = false)
+    private OffsetDateTime switchedAt = OffsetDateTime.now();
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public int getTargetKeyId() {
+        return targetKeyId;
+    }
+
+    public void setTargetKeyId(int targetKeyId) {
+        this.targetKeyId = targetKeyId;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(long generation) {
+        this.generation = generation;
+    }
+
+    public OffsetDateTime getSwitchedAt() {
+        return switchedAt;
+    }
+
+    public void setSwitchedAt(OffsetDateTime switchedAt) {
+        this.switchedAt = switchedAt;
+    }
+}
@@ -6,9 +6,9 @@ import java.time.OffsetDateTime;
 
 @Entity
 @Table(name = "transfers", indexes = {
-        @Index(name = "idx_transfers_from", columnList = "from_card_id"),
-        @Index(name = "idx_transfers_to", columnList = "to_card_id"),
-        @Index(name = "idx_transfers_created_at", columnList = "created_at")
+        @Index(name = "idx_transfers_from_created", columnList = "from_card_id, created_at, id"),
+        @Index(name = "idx_transfers_to_created", columnList = "to_card_id, created_at, id"),
+        @Index(name = "idx_transfers_created_id", columnList = "created_at, id")
 })
 public class Transfer {
 
@@ -0,0 +1,10 @@
+package com.example.bankcards.exception;
+
+/**
+ * The transfer found a card in a state its locks do not cover (a destination that lost its balance stripes while
+ * the transfer held only a shared lock on it). Its transaction must roll back; running the transfer again in a new
+ * transaction with exclusive locks succeeds. Reaches the client as 503 only if nobody retried it.
+ */
+public class RetryableTransferException extends ServiceUnavailableException {
+    public RetryableTransferException(String message) { super(message); }
+}
@@ -0,0 +1,18 @@
+package com.example.bankcards.exception;
+
+import java.time.Duration;
+
+public class ServiceUnavailableException extends RuntimeException {
+
+    // sent as Retry-After when set
+    private final Duration retryAfter;
+
+    public ServiceUnavailableException(String message) { this(message, null); }
+
+    public ServiceUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() { return retryAfter; }
+}
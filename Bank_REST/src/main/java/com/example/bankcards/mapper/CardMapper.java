@@ -2,10 +2,13 @@ package com.example.bankcards.mapper;
 
 import com.example.bankcards.dto.card.CardResponse;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.repository.CardListRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
+import java.math.BigDecimal;
+
 public final class CardMapper {
 
     private static final Logger log = LoggerFactory.getLogger(CardMapper.class);
@@ -14,6 +17,13 @@ public final class CardMapper {
     }
 
     public static CardResponse toResponse(Card c) {
+        return toResponse(c, BigDecimal.ZERO);
+    }
+
+    /**
+     * @param stripedBalance sum of the card's balance stripes, added to the exposed balance
+     */
+    public static CardResponse toResponse(Card c, BigDecimal stripedBalance) {
         String reqId = MDC.get("reqId");
         if (c == null) {
             log.warn("[{}] CardMapper.toResponse called with null Card", reqId);
@@ -35,7 +45,7 @@ public final class CardMapper {
         dto.setPanMask(c.getPanMask()); // masked, safe to log if needed
         dto.setExpiryDate(c.getExpiryDate());
         dto.setStatus(c.getStatus());
-        dto.setBalance(c.getBalance());
+        dto.setBalance(c.getBalance().add(stripedBalance));
         dto.setCreatedAt(c.getCreatedAt());
         dto.setUpdatedAt(c.getUpdatedAt());
 
@@ -44,4 +54,21 @@ public final class CardMapper {
         }
         return dto;
     }
+
+    /**
+     * @param stripedBalance sum of the card's balance stripes, added to the exposed balance
+     */
+    public static CardResponse toResponse(CardListRepository.Row row, BigDecimal stripedBalance) {
+        CardResponse dto = new CardResponse();
+        dto.setId(row.id());
+        dto.setOwnerId(row.ownerId());
+        dto.setHolderName(row.holderName());
+        dto.setPanMask(row.panMask());
+        dto.setExpiryDate(row.expiryDate());
+        dto.setStatus(row.status());
+        dto.setBalance(row.balance().add(stripedBalance));
+        dto.setCreatedAt(row.createdAt());
+        dto.setUpdatedAt(row.updatedAt());
+        return dto;
+    }
 }
@@ -0,0 +1,25 @@
+package com.example.bankcards.mapper;
+
+import com.example.bankcards.dto.transfer.TransferResponse;
+import com.example.bankcards.entity.Transfer;
+
+public final class TransferMapper {
+
+    private TransferMapper() {
+    }
+
+    public static TransferResponse toResponse(Transfer t) {
+        if (t == null) {
+            return null;
+        }
+        TransferResponse resp = new TransferResponse();
+        resp.setId(t.getId());
+        resp.setFromCardId(t.getFromCard() != null ? t.getFromCard().getId() : null);
+        resp.setToCardId(t.getToCard() != null ? t.getToCard().getId() : null);
+        resp.setAmount(t.getAmount());
+        resp.setStatus(t.getStatus());
+        resp.setDescription(t.getDescription());
+        resp.setCreatedAt(t.getCreatedAt());
+        return resp;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardBalanceStripe;
+import com.example.bankcards.entity.CardStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface CardBalanceStripeRepository extends JpaRepository<CardBalanceStripe, Long> {
+
+    // Credit one stripe, only if the card is owned and active; the card row itself is not locked
+    @Modifying
+    @Query("update CardBalanceStripe s set s.balance = s.balance + :amount " +
+            "where s.cardId = :cardId and s.stripeNo = :stripeNo and exists " +
+            "(select c.id from Card c where c.id = :cardId and c.owner.id = :ownerId and c.status = :status)")
+    int creditIfActive(@Param("cardId") Long cardId,
+                       @Param("stripeNo") int stripeNo,
+                       @Param("ownerId") Long ownerId,
+                       @Param("amount") BigDecimal amount,
+                       @Param("status") CardStatus status);
+
+    // Row locks on all stripes of a card, in stripe order
+    @Query(value = "select stripe_no from card_balance_stripes where card_id = :cardId order by stripe_no for update",
+            nativeQuery = true)
+    List<Integer> lockAllByCardId(@Param("cardId") Long cardId);
+
+    @Query("select coalesce(sum(s.balance), 0) from CardBalanceStripe s where s.cardId = :cardId")
+    BigDecimal sumByCardId(@Param("cardId") Long cardId);
+
+    @Modifying
+    @Query("update CardBalanceStripe s set s.balance = 0 where s.cardId = :cardId")
+    int zeroAllByCardId(@Param("cardId") Long cardId);
+
+    @Modifying
+    @Query("delete from CardBalanceStripe s where s.cardId = :cardId")
+    int deleteAllByCardId(@Param("cardId") Long cardId);
+}
@@ -0,0 +1,97 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Card listings as {@link Row} projections: only the columns of a CardResponse are selected,
+ * so no Card entity (and no encrypted PAN) is loaded into the persistence context.
+ */
+@Repository
+public class CardListRepository {
+
+    private final EntityManager em;
+    private final CardRepository cardRepo;
+
+    public CardListRepository(EntityManager em, CardRepository cardRepo) {
+        this.em = em;
+        this.cardRepo = cardRepo;
+    }
+
+    /**
+     * The total is counted only when it cannot be derived from the page itself (e.g. not on a short last page).
+     */
+    public Page<Row> page(Specification<Card> spec, Pageable pageable) {
+        List<Row> rows = select(spec, pageable, pageable.getPageSize());
+        return PageableExecutionUtils.getPage(rows, pageable, () -> cardRepo.count(spec));
+    }
+
+    /**
+     * No COUNT query: one extra row is read to tell whether there is a next slice.
+     */
+    public Slice<Row> slice(Specification<Card> spec, Pageable pageable) {
+        List<Row> rows = select(spec, pageable, pageable.getPageSize() + 1);
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    private List<Row> select(Specification<Card> spec, Pageable pageable, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Row> q = cb.createQuery(Row.class);
+        Root<Card> c = q.from(Card.class);
+        q.select(cb.construct(Row.class,
+                c.get("id"),
+                c.get("owner").get("id"),
+                c.get("holderName"),
+                c.get("panMask"),
+                c.get("expiryDate"),
+                c.get("status"),
+                c.get("balance"),
+                c.get("balanceStripes"),
+                c.get("createdAt"),
+                c.get("updatedAt")));
+
+        Predicate where = spec == null ? null : spec.toPredicate(c, q, cb);
+        if (where != null) {
+            q.where(where);
+        }
+        if (pageable.getSort().isSorted()) {
+            q.orderBy(QueryUtils.toOrders(pageable.getSort(), c, cb));
+        }
+
+        return em.createQuery(q)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public record Row(Long id,
+                      Long ownerId,
+                      String holderName,
+                      String panMask,
+                      LocalDate expiryDate,
+                      CardStatus status,
+                      BigDecimal balance,
+                      Integer balanceStripes,
+                      OffsetDateTime createdAt,
+                      OffsetDateTime updatedAt) {
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.bankcards.repository;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Raw access to cards.encrypted_pan for re-encryption and the pan_index backfill:
+ * keyset-ordered chunks and batched compare-and-set updates.
+ */
+@Repository
+public class CardPanJdbcRepository {
+
+    private static final String CHUNK_SQL =
+            "select id, encrypted_pan from cards where id > ? order by id limit ?";
+
+    // the old ciphertext in the where clause leaves cards alone that were changed since the chunk was read;
+    // the version bump makes a JPA update based on the old row fail instead of writing the old ciphertext back
+    private static final String UPDATE_SQL =
+            "update cards set encrypted_pan = ?, version = version + 1 where id = ? and encrypted_pan = ?";
+
+    private static final String UNINDEXED_CHUNK_SQL =
+            "select id, encrypted_pan from cards where id > ? and pan_index is null order by id limit ?";
+
+    // a PAN that is already indexed on another card (duplicate in old data) is left unindexed
+    private static final String SET_INDEX_SQL =
+            "update cards set pan_index = ? where id = ? and pan_index is null " +
+                    "and not exists (select 1 from cards c2 where c2.pan_index = ?)";
+
+    private final JdbcTemplate jdbc;
+
+    public CardPanJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public List<PanRow> chunk(long afterCardId, int limit) {
+        return jdbc.query(CHUNK_SQL, (rs, i) -> new PanRow(rs.getLong("id"), rs.getBytes("encrypted_pan")),
+                afterCardId, limit);
+    }
+
+    public List<PanRow> unindexedChunk(long afterCardId, int limit) {
+        return jdbc.query(UNINDEXED_CHUNK_SQL, (rs, i) -> new PanRow(rs.getLong("id"), rs.getBytes("encrypted_pan")),
+                afterCardId, limit);
+    }
+
+    /**
+     * Sets pan_index of {@code cardIds.get(i)} to {@code indexes.get(i)} in one JDBC batch.
+     *
+     * @return number of cards updated
+     */
+    public int setPanIndexes(List<Long> cardIds, List<byte[]> indexes) {
+        if (cardIds.isEmpty()) {
+            return 0;
+        }
+        return sum(jdbc.batchUpdate(SET_INDEX_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setBytes(1, indexes.get(i));
+                ps.setLong(2, cardIds.get(i));
+                ps.setBytes(3, indexes.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return cardIds.size();
+            }
+        }));
+    }
+
+    /**
+     * Single-row variant of {@link #setPanIndexes}, for retrying a batch that hit a concurrently issued PAN.
+     *
+     * @return 1 if the card was updated
+     */
+    public int setPanIndex(Long cardId, byte[] index) {
+        return jdbc.update(SET_INDEX_SQL, index, cardId, index);
+    }
+
+    /**
+     * Replaces {@code rows.get(i).encryptedPan()} by {@code replacements.get(i)} in one JDBC batch.
+     *
+     * @return number of cards updated
+     */
+    public int replaceAll(List<PanRow> rows, List<byte[]> replacements) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        return sum(jdbc.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                PanRow row = rows.get(i);
+                ps.setBytes(1, replacements.get(i));
+                ps.setLong(2, row.cardId());
+                ps.setBytes(3, row.encryptedPan());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        }));
+    }
+
+    private static int sum(int[] counts) {
+        int updated = 0;
+        for (int c : counts) {
+            // drivers may report SUCCESS_NO_INFO for batched statements
+            updated += c == Statement.SUCCESS_NO_INFO ? 1 : c;
+        }
+        return updated;
+    }
+
+    public record PanRow(long cardId, byte[] encryptedPan) {
+    }
+}
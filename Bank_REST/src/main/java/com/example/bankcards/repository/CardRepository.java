@@ -9,14 +9,26 @@ import org.springframework.data.repository.query.Param;
 
 import jakarta.persistence.LockModeType;
 
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface CardRepository extends JpaRepository<Card, Long>, JpaSpecificationExecutor<Card> {
 
     Page<Card> findByOwner_Id(Long ownerId, Pageable pageable);
 
+    // exact PAN lookup through the unique blind index
+    Optional<Card> findByPanIndex(byte[] panIndex);
+
+    boolean existsByPanIndex(byte[] panIndex);
+
     long countByOwner_IdAndStatus(Long ownerId, CardStatus status);
 
+    @Query("select c.id from Card c where c.owner.id = :ownerId")
+    List<Long> findIdsByOwnerId(@Param("ownerId") Long ownerId);
+
     // Read WITHOUT lock only for the owner's card
     Optional<Card> findByIdAndOwner_Id(Long id, Long ownerId);
 
@@ -25,6 +37,64 @@ public interface CardRepository extends JpaRepository<Card, Long>, JpaSpecificat
     @Query("select c from Card c where c.id = :id and c.owner.id = :ownerId")
     Optional<Card> findByIdAndOwner_IdForUpdate(@Param("id") Long id, @Param("ownerId") Long ownerId);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id = :id")
+    Optional<Card> findByIdForUpdate(@Param("id") Long id);
+
+    // Pessimistic lock for a set of the owner's cards in one round trip, rows are locked in ascending id order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id in :ids and c.owner.id = :ownerId order by c.id")
+    List<Card> findAllByIdInAndOwner_IdForUpdate(@Param("ids") Collection<Long> ids, @Param("ownerId") Long ownerId);
+
+    // Same for cards of any owner; used to take all locks of a transfer group up front
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id in :ids order by c.id")
+    List<Card> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    // Shared locks for a set of cards of any owner, in ascending id order
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select c from Card c where c.id in :ids order by c.id")
+    List<Card> findAllByIdInForShare(@Param("ids") Collection<Long> ids);
+
+    // Shared lock: keeps status and stripe count stable while a credit lands on one of the card's stripes
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select c from Card c where c.id = :id and c.owner.id = :ownerId")
+    Optional<Card> findByIdAndOwner_IdForShare(@Param("id") Long id, @Param("ownerId") Long ownerId);
+
+    @Query("select c.balanceStripes from Card c where c.id = :id")
+    Optional<Integer> findBalanceStripesById(@Param("id") Long id);
+
+    @Query("select c.id from Card c where c.id in :ids and c.balanceStripes > 0")
+    List<Long> findStripedIds(@Param("ids") Collection<Long> ids);
+
+    // Guarded debit without loading the card: 1 row updated only if owned, active and funded
+    @Modifying
+    @Query("update Card c set c.balance = c.balance - :amount, c.version = c.version + 1, c.updatedAt = :now " +
+            "where c.id = :id and c.owner.id = :ownerId and c.status = :status and c.balance >= :amount")
+    int debitIfAvailable(@Param("id") Long id,
+                         @Param("ownerId") Long ownerId,
+                         @Param("amount") BigDecimal amount,
+                         @Param("status") CardStatus status,
+                         @Param("now") OffsetDateTime now);
+
+    // Guarded credit without loading the card: 1 row updated only if owned, active and not striped
+    @Modifying
+    @Query("update Card c set c.balance = c.balance + :amount, c.version = c.version + 1, c.updatedAt = :now " +
+            "where c.id = :id and c.owner.id = :ownerId and c.status = :status and c.balanceStripes = 0")
+    int creditIfActive(@Param("id") Long id,
+                       @Param("ownerId") Long ownerId,
+                       @Param("amount") BigDecimal amount,
+                       @Param("status") CardStatus status,
+                       @Param("now") OffsetDateTime now);
+
+    // Unguarded balance change, for callers that already checked the card
+    @Modifying
+    @Query("update Card c set c.balance = c.balance + :amount, c.version = c.version + 1, c.updatedAt = :now " +
+            "where c.id = :id")
+    int addToBalance(@Param("id") Long id,
+                     @Param("amount") BigDecimal amount,
+                     @Param("now") OffsetDateTime now);
+
     // Aliases in case userId is used somewhere instead of ownerId
     default Optional<Card> findByIdAndUserId(Long id, Long userId) {
         return findByIdAndOwner_Id(id, userId);
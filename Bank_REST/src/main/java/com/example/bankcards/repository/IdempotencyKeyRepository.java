@@ -0,0 +1,15 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+
+    // Key together with its transfer, enough to rebuild the original response in one query
+    @Query("select k from IdempotencyKey k join fetch k.transfer where k.userId = :userId and k.key = :key")
+    Optional<IdempotencyKey> findWithTransfer(@Param("userId") Long userId, @Param("key") String key);
+}
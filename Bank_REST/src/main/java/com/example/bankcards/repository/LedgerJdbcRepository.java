@@ -0,0 +1,214 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.LedgerEntry;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+/**
+ * Plain JDBC access to ledger_entries and card_balance_snapshots.
+ * Entries are appended with JDBC batches inside the caller's transaction; the read side works
+ * on chunks of cards in id order so jobs never hold more than one chunk in memory.
+ */
+@Repository
+public class LedgerJdbcRepository {
+
+    private static final String INSERT_ENTRY_SQL =
+            "insert into ledger_entries (card_id, transfer_id, entry_type, amount, created_at) values (?, ?, ?, ?, ?)";
+
+    private static final String INSERT_SNAPSHOT_SQL =
+            "insert into card_balance_snapshots (card_id, balance, last_entry_id, created_at) values (?, ?, ?, ?)";
+
+    // what the ledger is checked against: cards.balance plus stripes, or the full history when the ledger holds
+    // the balances (cards.balance is then not written by transfers)
+    private static final String CARD_BALANCE =
+            "c.balance + coalesce((select sum(b.balance) from card_balance_stripes b where b.card_id = c.id), 0)";
+    private static final String HISTORY_BALANCE =
+            "coalesce((select sum(e.amount) from ledger_entries e where e.card_id = c.id), 0)";
+
+    // latest snapshot per card plus the entries after it, up to an upper entry id
+    private static final String ROW_SQL =
+            "select c.id, %s as balance, " +
+                    "s.last_entry_id as snapshot_entry_id, " +
+                    "coalesce(s.balance, 0) + coalesce((select sum(e.amount) from ledger_entries e " +
+                    "   where e.card_id = c.id and e.id > coalesce(s.last_entry_id, 0) and e.id <= ?), 0) as ledger_balance, " +
+                    "(select max(e.id) from ledger_entries e where e.card_id = c.id and e.id <= ?) as last_entry_id " +
+                    "from cards c " +
+                    "left join card_balance_snapshots s on s.id = " +
+                    "   (select max(s2.id) from card_balance_snapshots s2 where s2.card_id = c.id) ";
+
+    private static final String CHUNK_SQL = ROW_SQL + "where c.id > ? order by c.id limit ?";
+
+    private static final String ROWS_SQL = ROW_SQL + "where c.id in (%s) order by c.id";
+
+    // same card as ROW_SQL, but the ledger side summed over the whole history, ignoring snapshots
+    private static final String FULL_HISTORY_SQL =
+            "select c.id, " + CARD_BALANCE + " as balance, " +
+                    "coalesce((select sum(e.amount) from ledger_entries e where e.card_id = c.id), 0) as ledger_balance, " +
+                    "(select max(e.id) from ledger_entries e where e.card_id = c.id) as last_entry_id " +
+                    "from cards c where c.id = ?";
+
+    private static final String BALANCES_SQL =
+            "select c.id, coalesce(s.balance, 0) + coalesce((select sum(e.amount) from ledger_entries e " +
+                    "   where e.card_id = c.id and e.id > coalesce(s.last_entry_id, 0)), 0) as ledger_balance " +
+                    "from cards c " +
+                    "left join card_balance_snapshots s on s.id = " +
+                    "   (select max(s2.id) from card_balance_snapshots s2 where s2.card_id = c.id) " +
+                    "where c.id in (%s)";
+
+    private static final RowMapper<CardLedgerRow> ROW_MAPPER = (rs, i) -> new CardLedgerRow(
+            rs.getLong("id"),
+            rs.getBigDecimal("balance"),
+            rs.getBigDecimal("ledger_balance"),
+            rs.getObject("snapshot_entry_id", Long.class),
+            rs.getObject("last_entry_id", Long.class)
+    );
+
+    private final JdbcTemplate jdbc;
+
+    public LedgerJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Appends entries in one JDBC batch; must run in the transaction that changed the balances.
+     */
+    public void insertAll(List<LedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbc.batchUpdate(INSERT_ENTRY_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                LedgerEntry e = entries.get(i);
+                ps.setLong(1, e.getCardId());
+                ps.setObject(2, e.getTransferId());
+                ps.setString(3, e.getEntryType().name());
+                ps.setBigDecimal(4, e.getAmount());
+                ps.setObject(5, e.getCreatedAt());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return entries.size();
+            }
+        });
+    }
+
+    /**
+     * Ledger view of one card: balance from the latest snapshot plus all later entries.
+     *
+     * @param history compare with the full history instead of cards.balance
+     */
+    public CardLedgerRow findByCardId(Long cardId, boolean history) {
+        List<CardLedgerRow> rows = chunk(cardId - 1, 1, Long.MAX_VALUE, history);
+        return rows.isEmpty() || !rows.get(0).cardId().equals(cardId) ? null : rows.get(0);
+    }
+
+    /**
+     * Up to {@code limit} cards with id greater than {@code afterCardId}, ledger entries counted up to {@code maxEntryId}.
+     *
+     * @param history fill {@code cardBalance} with the sum of all entries instead of cards.balance plus stripes
+     */
+    public List<CardLedgerRow> chunk(long afterCardId, int limit, long maxEntryId, boolean history) {
+        return jdbc.query(CHUNK_SQL.formatted(history ? HISTORY_BALANCE : CARD_BALANCE), ROW_MAPPER,
+                maxEntryId, maxEntryId, afterCardId, limit);
+    }
+
+    /**
+     * Same as {@link #chunk} for the given cards, all entries counted.
+     */
+    public List<CardLedgerRow> rows(Collection<Long> cardIds, boolean history) {
+        if (cardIds.isEmpty()) {
+            return List.of();
+        }
+        List<Object> args = new ArrayList<>(cardIds.size() + 2);
+        args.add(Long.MAX_VALUE);
+        args.add(Long.MAX_VALUE);
+        args.addAll(cardIds);
+        String sql = ROWS_SQL.formatted(history ? HISTORY_BALANCE : CARD_BALANCE, placeholders(cardIds.size()));
+        return jdbc.query(sql, ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * Ledger view of one card summed over all its entries, without snapshots; null if there is no such card.
+     * {@code snapshotEntryId} of the result is always null.
+     */
+    public CardLedgerRow fullHistory(Long cardId) {
+        List<CardLedgerRow> rows = jdbc.query(FULL_HISTORY_SQL, (rs, i) -> new CardLedgerRow(
+                rs.getLong("id"),
+                rs.getBigDecimal("balance"),
+                rs.getBigDecimal("ledger_balance"),
+                null,
+                rs.getObject("last_entry_id", Long.class)
+        ), cardId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Current ledger balances (latest snapshot plus later entries) of the given cards; cards that do not exist
+     * are missing from the result.
+     */
+    public Map<Long, BigDecimal> balances(Collection<Long> cardIds) {
+        Map<Long, BigDecimal> out = new HashMap<>();
+        if (cardIds.isEmpty()) {
+            return out;
+        }
+        jdbc.query(BALANCES_SQL.formatted(placeholders(cardIds.size())), rs -> {
+            out.put(rs.getLong("id"), rs.getBigDecimal("ledger_balance"));
+        }, cardIds.toArray());
+        return out;
+    }
+
+    /**
+     * Row locks on the given cards in ascending id order, held until the caller's transaction ends. Every writer
+     * of ledger entries holds a lock on the card row, so once these are granted no entry of these cards is in flight.
+     */
+    public void lockCards(Collection<Long> cardIds) {
+        if (cardIds.isEmpty()) {
+            return;
+        }
+        jdbc.queryForList("select id from cards where id in (" + placeholders(cardIds.size()) + ") order by id for update",
+                Long.class, cardIds.toArray());
+    }
+
+    private static String placeholders(int n) {
+        return String.join(",", Collections.nCopies(n, "?"));
+    }
+
+    public void insertSnapshots(List<CardLedgerRow> rows, OffsetDateTime now) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbc.batchUpdate(INSERT_SNAPSHOT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                CardLedgerRow r = rows.get(i);
+                ps.setLong(1, r.cardId());
+                ps.setBigDecimal(2, r.ledgerBalance());
+                ps.setLong(3, r.lastEntryId());
+                ps.setObject(4, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    /**
+     * @param snapshotEntryId last entry covered by the card's latest snapshot, null without snapshot
+     * @param lastEntryId     last entry counted into {@code ledgerBalance}, null if the card has none
+     */
+    public record CardLedgerRow(Long cardId, BigDecimal cardBalance, BigDecimal ledgerBalance,
+                                Long snapshotEntryId, Long lastEntryId) {
+    }
+}
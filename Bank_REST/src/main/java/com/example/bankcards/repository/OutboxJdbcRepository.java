@@ -0,0 +1,75 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.OutboxEvent;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Plain JDBC access to outbox_events: batched inserts from the transfer paths, claim/delete for the relay.
+ */
+@Repository
+public class OutboxJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "insert into outbox_events (aggregate_type, aggregate_id, event_type, payload, created_at) values (?, ?, ?, ?, ?)";
+
+    // rows claimed by another relay instance are skipped instead of waited for
+    private static final String CLAIM_SQL =
+            "select id, aggregate_type, aggregate_id, event_type, payload, created_at from outbox_events " +
+                    "order by id fetch first ? rows only for update skip locked";
+
+    private final JdbcTemplate jdbc;
+
+    public OutboxJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public void insertAll(List<OutboxEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        jdbc.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                OutboxEvent e = events.get(i);
+                ps.setString(1, e.getAggregateType());
+                ps.setLong(2, e.getAggregateId());
+                ps.setString(3, e.getEventType());
+                ps.setString(4, e.getPayload());
+                ps.setObject(5, e.getCreatedAt());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return events.size();
+            }
+        });
+    }
+
+    /**
+     * Locks and returns the oldest {@code limit} unclaimed events; must run in a transaction.
+     */
+    public List<OutboxEvent> claim(int limit) {
+        return jdbc.query(CLAIM_SQL, (rs, i) -> {
+            OutboxEvent e = new OutboxEvent();
+            e.setId(rs.getLong("id"));
+            e.setAggregateType(rs.getString("aggregate_type"));
+            e.setAggregateId(rs.getLong("aggregate_id"));
+            e.setEventType(rs.getString("event_type"));
+            e.setPayload(rs.getString("payload"));
+            e.setCreatedAt(rs.getObject("created_at", OffsetDateTime.class));
+            return e;
+        }, limit);
+    }
+
+    public void deleteAll(List<OutboxEvent> events) {
+        jdbc.batchUpdate("delete from outbox_events where id = ?", events, events.size(),
+                (ps, e) -> ps.setLong(1, e.getId()));
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.PanReencryptionCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+
+public interface PanReencryptionCheckpointRepository extends JpaRepository<PanReencryptionCheckpoint, Integer> {
+
+    // only called under the lock of the target row, but kept idempotent like the target insert
+    @Modifying
+    @Query(value = "insert into pan_reencryption_checkpoints " +
+            "(target_key_id, generation, last_card_id, reencrypted, skipped, started_at, updated_at) " +
+            "values (:keyId, :generation, 0, 0, 0, :now, :now) on conflict do nothing",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("keyId") Integer keyId, @Param("generation") long generation,
+                       @Param("now") OffsetDateTime now);
+}
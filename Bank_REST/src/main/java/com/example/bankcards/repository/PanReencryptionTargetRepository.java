@@ -0,0 +1,27 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.PanReencryptionTarget;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+public interface PanReencryptionTargetRepository extends JpaRepository<PanReencryptionTarget, Integer> {
+
+    // serializes the re-encryption workers of all instances, one chunk at a time
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from PanReencryptionTarget t where t.id = :id")
+    Optional<PanReencryptionTarget> findForUpdate(@Param("id") Integer id);
+
+    // creates the row to lock; a worker of another instance may be inserting it at the same time
+    @Modifying
+    @Query(value = "insert into pan_reencryption_target (id, target_key_id, generation, switched_at) " +
+            "values (:id, :keyId, 0, :now) on conflict do nothing",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("id") Integer id, @Param("keyId") Integer keyId, @Param("now") OffsetDateTime now);
+}
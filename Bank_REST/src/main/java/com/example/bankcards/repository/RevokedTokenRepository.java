@@ -0,0 +1,25 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    // Entries still covering unexpired tokens, revoked at or after :since
+    @Query("select r from RevokedToken r where r.revokedAt >= :since and r.expiresAt > :now")
+    List<RevokedToken> findActiveSince(@Param("since") OffsetDateTime since, @Param("now") OffsetDateTime now);
+
+    boolean existsByJti(String jti);
+
+    boolean existsByUserIdAndRevokedAtGreaterThanEqual(Long userId, OffsetDateTime issuedAt);
+
+    @Modifying
+    @Query("delete from RevokedToken r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") OffsetDateTime now);
+}
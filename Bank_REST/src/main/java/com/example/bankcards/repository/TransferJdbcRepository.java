@@ -0,0 +1,123 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.transfer.TransferResponse;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.TransferStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain JDBC access to the transfers table for bulk writes and the multi-card history read.
+ * Hibernate cannot batch inserts of IDENTITY entities, so batch jobs go through here.
+ */
+@Repository
+public class TransferJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "insert into transfers (from_card_id, to_card_id, amount, status, description, created_at) " +
+                    "values (?, ?, ?, ?, ?, ?)";
+
+    private static final String COLUMNS =
+            "select id, from_card_id, to_card_id, amount, status, description, created_at from transfers";
+
+    private static final String BEFORE = " and (created_at < ? or (created_at = ? and id < ?))";
+
+    private static final String NEWEST_FIRST = " order by created_at desc, id desc limit ?";
+
+    private final JdbcTemplate jdbc;
+
+    public TransferJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Transfers from or to any of the given cards before the keyset position, newest first, at most
+     * {@code limit} rows, in one statement. It is a UNION ALL of one keyset scan per card and direction, each
+     * limited on its own (card, created_at, id) index; incoming scans leave out transfers from one of the
+     * given cards, which the outgoing scans already return.
+     */
+    public List<TransferResponse> findByCardsBefore(List<Long> cardIds, OffsetDateTime createdAt, long id, int limit) {
+        if (cardIds.isEmpty()) {
+            return List.of();
+        }
+        String own = String.join(",", Collections.nCopies(cardIds.size(), "?"));
+        StringBuilder sql = new StringBuilder("select * from (");
+        List<Object> args = new ArrayList<>();
+        for (int i = 0; i < cardIds.size(); i++) {
+            Long cardId = cardIds.get(i);
+            sql.append(i == 0 ? "" : " union all ")
+                    .append("select * from (").append(COLUMNS).append(" where from_card_id = ?")
+                    .append(BEFORE).append(NEWEST_FIRST).append(") o").append(i)
+                    .append(" union all ")
+                    .append("select * from (").append(COLUMNS).append(" where to_card_id = ?")
+                    .append(" and from_card_id not in (").append(own).append(")")
+                    .append(BEFORE).append(NEWEST_FIRST).append(") i").append(i);
+            args.addAll(List.of(cardId, createdAt, createdAt, id, limit, cardId));
+            args.addAll(cardIds);
+            args.addAll(List.of(createdAt, createdAt, id, limit));
+        }
+        sql.append(") t").append(NEWEST_FIRST);
+        args.add(limit);
+        return jdbc.query(sql.toString(), (rs, n) -> {
+            TransferResponse r = new TransferResponse();
+            r.setId(rs.getLong("id"));
+            r.setFromCardId(rs.getLong("from_card_id"));
+            r.setToCardId(rs.getLong("to_card_id"));
+            r.setAmount(rs.getBigDecimal("amount"));
+            r.setStatus(TransferStatus.valueOf(rs.getString("status")));
+            r.setDescription(rs.getString("description"));
+            r.setCreatedAt(rs.getObject("created_at", OffsetDateTime.class));
+            return r;
+        }, args.toArray());
+    }
+
+    /**
+     * Inserts all transfers in a single JDBC batch and writes the generated ids back into the given objects.
+     * Must be called inside the surrounding JPA transaction so the rows commit together with the balances.
+     */
+    public void insertAll(List<Transfer> transfers) {
+        if (transfers.isEmpty()) {
+            return;
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbc.batchUpdate(con -> con.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Transfer t = transfers.get(i);
+                        ps.setLong(1, t.getFromCard().getId());
+                        ps.setLong(2, t.getToCard().getId());
+                        ps.setBigDecimal(3, t.getAmount());
+                        ps.setString(4, t.getStatus().name());
+                        ps.setString(5, t.getDescription());
+                        ps.setObject(6, t.getCreatedAt());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return transfers.size();
+                    }
+                },
+                keys);
+
+        List<Map<String, Object>> keyList = keys.getKeyList();
+        if (keyList.size() != transfers.size()) {
+            throw new IllegalStateException("Expected " + transfers.size() + " generated keys, got " + keyList.size());
+        }
+        for (int i = 0; i < transfers.size(); i++) {
+            Number id = (Number) keyList.get(i).values().iterator().next();
+            transfers.get(i).setId(id.longValue());
+        }
+    }
+}
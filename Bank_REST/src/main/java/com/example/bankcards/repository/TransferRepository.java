@@ -1,10 +1,25 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.Transfer;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * The history over all transfers is a keyset query ordered by (created_at desc, id desc), a single range scan
+ * of the (created_at, id) index; the Pageable only carries the limit, no count is run. Per-card history is
+ * read by {@link TransferJdbcRepository#findByCardsBefore}.
+ */
 public interface TransferRepository extends JpaRepository<Transfer, Long> {
-    Page<Transfer> findByFromCard_Owner_IdOrToCard_Owner_Id(Long fromOwnerId, Long toOwnerId, Pageable pageable);
+
+    @Query("select t from Transfer t " +
+            "where t.createdAt < :createdAt or (t.createdAt = :createdAt and t.id < :id) " +
+            "order by t.createdAt desc, t.id desc")
+    List<Transfer> findAllBefore(@Param("createdAt") OffsetDateTime createdAt,
+                                 @Param("id") Long id,
+                                 Pageable limit);
 }
@@ -7,11 +7,14 @@ import org.slf4j.LoggerFactory;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDate;
+import java.util.Locale;
 
 public final class CardSpecs {
 
     private static final Logger log = LoggerFactory.getLogger(CardSpecs.class);
 
+    private static final char LIKE_ESCAPE = '\\';
+
     private CardSpecs() {
     }
 
@@ -30,24 +33,42 @@ public final class CardSpecs {
     }
 
     public static Specification<Card> holderNameContains(String text) {
+        return holderName(text, HolderNameMatch.CONTAINS);
+    }
+
+    /**
+     * lower(holder_name) LIKE '%text%' or 'text%'; LIKE wildcards in the text are matched literally.
+     * The expression is the one the holder name indexes are built on, see {@link HolderNameMatch}.
+     */
+    public static Specification<Card> holderName(String text, HolderNameMatch match) {
         if (log.isDebugEnabled()) {
-            log.debug("Spec holderNameContains: {}",
+            log.debug("Spec holderName {}: {}", match,
                     (text == null || text.isBlank()) ? "<empty>" : "'" + text + "'");
         }
-        return (root, q, cb) -> (text == null || text.isBlank())
-                ? null
-                : cb.like(cb.lower(root.get("holderName")), "%" + text.toLowerCase() + "%");
+        if (text == null || text.isBlank()) {
+            return (root, q, cb) -> null;
+        }
+        String term = escapeLike(text.toLowerCase(Locale.ROOT));
+        String pattern = match == HolderNameMatch.PREFIX ? term + "%" : "%" + term + "%";
+        return (root, q, cb) -> cb.like(cb.lower(root.get("holderName")), pattern, LIKE_ESCAPE);
     }
 
-    public static Specification<Card> panMaskEndsWith(String last4) {
+    public static Specification<Card> last4(String last4) {
         if (log.isDebugEnabled()) {
             // last4 is safe to log; never log full PAN
-            log.debug("Spec panMaskEndsWith (last4): {}",
-                    (last4 == null || last4.isBlank()) ? "<empty>" : last4.trim());
+            log.debug("Spec last4: {}", (last4 == null || last4.isBlank()) ? "<empty>" : last4.trim());
         }
+        // equality on the stored column, so (owner_id, last4) and (last4) can be used
         return (root, q, cb) -> (last4 == null || last4.isBlank())
                 ? null
-                : cb.like(root.get("panMask"), "% " + last4.trim());
+                : cb.equal(root.get("last4"), last4.trim());
+    }
+
+    /**
+     * Keyset condition for lists ordered by id desc: only cards after the last one returned.
+     */
+    public static Specification<Card> idBefore(Long id) {
+        return (root, q, cb) -> id == null ? null : cb.lessThan(root.get("id"), id);
     }
 
     public static Specification<Card> expiryBetween(LocalDate from, LocalDate to) {
@@ -62,4 +83,16 @@ public final class CardSpecs {
                     : cb.lessThanOrEqualTo(root.get("expiryDate"), to);
         };
     }
+
+    static String escapeLike(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 4);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                sb.append(LIKE_ESCAPE);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
 }
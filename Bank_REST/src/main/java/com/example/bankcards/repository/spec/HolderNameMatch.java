@@ -0,0 +1,11 @@
+package com.example.bankcards.repository.spec;
+
+/**
+ * How a holder name search term is matched, case-insensitively. On PostgreSQL CONTAINS is served by
+ * the pg_trgm GIN index idx_cards_holder_name_trgm (terms of 3+ characters), PREFIX by the
+ * text_pattern_ops B-tree idx_cards_holder_name_prefix.
+ */
+public enum HolderNameMatch {
+    CONTAINS,
+    PREFIX
+}
@@ -0,0 +1,24 @@
+package com.example.bankcards.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Spring Security user that also carries the database id, so login can put it into the token.
+ */
+public class AuthUser extends User {
+
+    private final Long id;
+
+    public AuthUser(Long id, String username, String password, boolean enabled,
+                    Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, enabled, true, true, true, authorities);
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.config.PasswordProperties;
+import com.example.bankcards.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt on a small dedicated pool instead of on the request thread, so a burst of logins
+ * cannot take every CPU away from card and transfer requests. The pool has a short queue;
+ * when it is full the caller gets a 503 with Retry-After right away instead of waiting.
+ * Metrics: executor.* with name=password.hashing, plus password.hashing.rejected.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final ExecutorService monitored;
+    private final long timeoutMillis;
+    private final Duration retryAfter;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordProperties props, MeterRegistry registry) {
+        this(new BCryptPasswordEncoder(props.getBcryptStrength()), props, registry);
+    }
+
+    BoundedPasswordEncoder(PasswordEncoder delegate, PasswordProperties props, MeterRegistry registry) {
+        this.delegate = delegate;
+        int threads = props.getHashingThreads() > 0 ? props.getHashingThreads() : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, props.getHashingQueueCapacity())), r -> {
+                    Thread t = new Thread(r, "password-hashing");
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.monitored = ExecutorServiceMetrics.monitor(registry, executor, "password.hashing");
+        this.timeoutMillis = props.getHashingTimeout().toMillis();
+        this.retryAfter = props.getRetryAfter();
+        this.rejected = Counter.builder("password.hashing.rejected").register(registry);
+        log.info("Password hashing pool started: threads={}, queueCapacity={}, bcryptStrength={}",
+                threads, props.getHashingQueueCapacity(), props.getBcryptStrength());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Supplier<T> task) {
+        Future<T> future;
+        try {
+            future = monitored.submit(task::get);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Password hashing queue is full, rejecting request");
+            throw new ServiceUnavailableException("Too many login attempts, retry later", retryAfter);
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceUnavailableException("Password check is taking too long, retry later", retryAfter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new ServiceUnavailableException("Password check was interrupted", retryAfter);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
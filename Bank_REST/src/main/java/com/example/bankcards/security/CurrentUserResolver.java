@@ -0,0 +1,43 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.UnauthorizedException;
+import com.example.bankcards.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+/**
+ * Id of the authenticated user. {@link JwtAuthFilter} stores it as the authentication details,
+ * so the lookup by username is only a fallback for authentications created elsewhere.
+ */
+@Slf4j
+@Component
+public class CurrentUserResolver {
+
+    private final UserRepository userRepository;
+
+    public CurrentUserResolver(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public Long userId(Authentication auth) {
+        if (auth == null) {
+            log.warn("resolveUserId: auth is null");
+            throw new UnauthorizedException("Unknown user (no Authentication)");
+        }
+
+        if (auth.getDetails() instanceof Long id) {
+            return id;
+        }
+
+        String username = auth.getName();
+        log.debug("resolveUserId: no userId in details, looking up username='{}'", username);
+        return userRepository.findByUsername(username)
+                .map(User::getId)
+                .orElseThrow(() -> {
+                    log.warn("resolveUserId: user not found by username='{}'", username);
+                    return new UnauthorizedException("User not found");
+                });
+    }
+}
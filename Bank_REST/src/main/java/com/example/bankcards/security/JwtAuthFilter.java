@@ -1,13 +1,17 @@
 package com.example.bankcards.security;
 
+import com.example.bankcards.config.JwtProperties;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.service.JwtService;
+import com.example.bankcards.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Component;
@@ -19,6 +23,8 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Slf4j
@@ -28,11 +34,16 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     private final JwtService jwt;
     private final UserDetailsService uds;
     private final UserRepository repo;
+    private final JwtProperties props;
+    private final TokenRevocationService revocation;
 
-    public JwtAuthFilter(JwtService jwt, UserDetailsService uds, UserRepository repo) {
+    public JwtAuthFilter(JwtService jwt, UserDetailsService uds, UserRepository repo, JwtProperties props,
+                         TokenRevocationService revocation) {
         this.jwt = jwt;
         this.uds = uds;
         this.repo = repo;
+        this.props = props;
+        this.revocation = revocation;
     }
 
     @Override
@@ -59,16 +70,31 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             log.debug("JwtAuthFilter: Received token (first 12 chars) = {}...",
                     token.substring(0, Math.min(token.length(), 12)));
 
-            if (!jwt.isValid(token)) {
+            Optional<Claims> claims = jwt.verify(token);
+            if (claims.isEmpty()) {
                 log.warn("JwtAuthFilter: Invalid JWT token");
                 chain.doFilter(request, response);
                 return;
             }
+            if (revocation.isRevoked(claims.get())) {
+                log.warn("JwtAuthFilter: Revoked JWT token for '{}'", claims.get().getSubject());
+                chain.doFilter(request, response);
+                return;
+            }
 
-            String username = jwt.extractUsername(token);
+            String username = claims.get().getSubject();
             MDC.put("user", username);
             log.debug("JwtAuthFilter: Extracted username from token: {}", username);
 
+            Authentication fromClaims = props.isStateless() ? fromClaims(username, claims.get()) : null;
+            if (fromClaims != null) {
+                // stateless: everything needed is in the verified token, no user lookup
+                MDC.put("userId", String.valueOf(fromClaims.getDetails()));
+                SecurityContextHolder.getContext().setAuthentication(fromClaims);
+                chain.doFilter(request, response);
+                return;
+            }
+
             Long userId = repo.findByUsername(username).map(User::getId).orElse(null);
             if (userId == null) {
                 log.warn("JwtAuthFilter: userId not found for username='{}' — proceeding with username only", username);
@@ -119,4 +145,19 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             MDC.clear();
         }
     }
+
+    private static Authentication fromClaims(String username, Claims claims) {
+        Long userId = claims.get(JwtService.CLAIM_USER_ID, Long.class);
+        List<?> roles = claims.get(JwtService.CLAIM_ROLES, List.class);
+        if (userId == null || roles == null) {
+            // token issued before the uid claim existed
+            return null;
+        }
+        List<SimpleGrantedAuthority> authorities = roles.stream()
+                .map(r -> new SimpleGrantedAuthority(String.valueOf(r)))
+                .toList();
+        var authToken = new UsernamePasswordAuthenticationToken(username, null, authorities);
+        authToken.setDetails(userId);
+        return authToken;
+    }
 }
@@ -0,0 +1,147 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.config.RateLimitProperties;
+import com.example.bankcards.config.RateLimitProperties.Group;
+import com.example.bankcards.config.RateLimitProperties.Limit;
+import com.example.bankcards.service.JwtService;
+import com.example.bankcards.util.TokenBucketMap;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process rate limiting per route group, by client address and by authenticated user, ahead of
+ * {@link JwtAuthFilter}. The user and role come from the token claims (verified tokens are cached by
+ * {@link JwtService}), so a rejection never touches the database. Rejected requests get 429 with Retry-After.
+ */
+@Slf4j
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final byte[] REJECTED_BODY =
+            "{\"code\":\"TOO_MANY_REQUESTS\",\"message\":\"Rate limit exceeded, retry later\"}"
+                    .getBytes(StandardCharsets.UTF_8);
+
+    private final RateLimitProperties props;
+    private final JwtService jwt;
+    private final List<RouteGroup> groups = new ArrayList<>();
+    private final AntPathMatcher matcher = new AntPathMatcher();
+
+    public RateLimitFilter(RateLimitProperties props, JwtService jwt, MeterRegistry registry) {
+        this.props = props;
+        this.jwt = jwt;
+        props.getGroups().forEach((name, group) -> groups.add(new RouteGroup(name, group,
+                Counter.builder("rate_limit.rejected").tag("group", name).register(registry))));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RouteGroup group = props.isEnabled() ? match(request.getRequestURI()) : null;
+        if (group == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Limit perIp = group.config.getPerIp();
+        if (perIp != null) {
+            long wait = group.byIp.tryAcquire(request.getRemoteAddr(), perIp.getCapacity(), perIp.getPerSecond());
+            if (wait > 0) {
+                reject(group, response, wait);
+                return;
+            }
+        }
+
+        if (group.config.getPerUser() != null || !group.config.getPerRole().isEmpty()) {
+            Optional<Claims> claims = bearer(request).flatMap(jwt::verify);
+            Long userId = claims.map(c -> c.get(JwtService.CLAIM_USER_ID, Long.class)).orElse(null);
+            Limit limit = userId == null ? null : userLimit(group.config, claims.get());
+            if (limit != null) {
+                long wait = group.byUser.tryAcquire(userId, limit.getCapacity(), limit.getPerSecond());
+                if (wait > 0) {
+                    reject(group, response, wait);
+                    return;
+                }
+            }
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.idle-timeout:PT10M}")
+    public void evictIdle() {
+        long idle = props.getIdleTimeout().toNanos();
+        for (RouteGroup g : groups) {
+            int evicted = g.byIp.evictIdle(idle) + g.byUser.evictIdle(idle);
+            if (evicted > 0) {
+                log.debug("Rate limiter group '{}': evicted {} idle buckets", g.name, evicted);
+            }
+        }
+    }
+
+    private RouteGroup match(String path) {
+        for (RouteGroup g : groups) {
+            for (String pattern : g.config.getPaths()) {
+                if (matcher.match(pattern, path)) {
+                    return g;
+                }
+            }
+        }
+        return null;
+    }
+
+    // the first role with its own limit wins, otherwise the plain per-user limit
+    private static Limit userLimit(Group group, Claims claims) {
+        List<?> roles = claims.get(JwtService.CLAIM_ROLES, List.class);
+        if (roles != null) {
+            for (Object role : roles) {
+                String name = String.valueOf(role);
+                Limit l = group.getPerRole().get(name.startsWith("ROLE_") ? name.substring(5) : name);
+                if (l != null) {
+                    return l;
+                }
+            }
+        }
+        return group.getPerUser();
+    }
+
+    private static Optional<String> bearer(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        return header != null && header.startsWith("Bearer ") ? Optional.of(header.substring(7)) : Optional.empty();
+    }
+
+    private static void reject(RouteGroup group, HttpServletResponse response, long waitNanos) throws IOException {
+        group.rejected.increment();
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L))));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(REJECTED_BODY.length);
+        response.getOutputStream().write(REJECTED_BODY);
+    }
+
+    private record RouteGroup(String name, Group config, Counter rejected, TokenBucketMap byIp, TokenBucketMap byUser) {
+        RouteGroup(String name, Group config, Counter rejected) {
+            this(name, config, rejected, new TokenBucketMap(), new TokenBucketMap());
+        }
+    }
+}
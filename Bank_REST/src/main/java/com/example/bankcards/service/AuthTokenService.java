@@ -0,0 +1,63 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.JwtProperties;
+import com.example.bankcards.dto.auth.LoginResponse;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.UnauthorizedException;
+import com.example.bankcards.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Issues access/refresh token pairs. Access tokens are short-lived JWTs; refresh tokens are exchanged
+ * for a new pair, with the user's current roles and status.
+ */
+@Service
+public class AuthTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthTokenService.class);
+
+    private final JwtService jwtService;
+    private final RefreshTokenService refreshTokens;
+    private final UserRepository userRepo;
+    private final JwtProperties props;
+
+    public AuthTokenService(JwtService jwtService, RefreshTokenService refreshTokens,
+                            UserRepository userRepo, JwtProperties props) {
+        this.jwtService = jwtService;
+        this.refreshTokens = refreshTokens;
+        this.userRepo = userRepo;
+        this.props = props;
+    }
+
+    @Transactional
+    public LoginResponse issue(Long userId, String username, List<String> roles) {
+        return new LoginResponse(accessToken(userId, username, roles), refreshTokens.issue(userId), expiresIn());
+    }
+
+    @Transactional(noRollbackFor = UnauthorizedException.class)
+    public LoginResponse refresh(String refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokens.rotate(refreshToken);
+        User u = userRepo.findById(rotation.userId()).orElse(null);
+        if (u == null || !u.isEnabled()) {
+            refreshTokens.revokeAll(rotation.userId());
+            throw new UnauthorizedException("User is disabled");
+        }
+        log.debug("Tokens refreshed for user {}", u.getId());
+        List<String> roles = List.of("ROLE_" + u.getRole().name());
+        return new LoginResponse(accessToken(u.getId(), u.getUsername(), roles), rotation.refreshToken(), expiresIn());
+    }
+
+    private String accessToken(Long userId, String username, List<String> roles) {
+        return jwtService.generate(username, Map.of(JwtService.CLAIM_USER_ID, userId, JwtService.CLAIM_ROLES, roles));
+    }
+
+    private long expiresIn() {
+        return props.getExpirationMinutes() * 60L;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.transfer.BatchTransferItemResult;
+import com.example.bankcards.dto.transfer.BatchTransferResponse;
+import com.example.bankcards.dto.transfer.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.TransferStatus;
+import com.example.bankcards.mapper.TransferMapper;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferJdbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+/**
+ * Applies many card-to-card transfers of one user in a single transaction.
+ * Every card involved is locked once (ascending id order, one statement), all debits and credits
+ * are applied in memory in request order, and the transfer rows are written with one JDBC batch.
+ * Each item succeeds or fails on its own; a failed item does not touch any balance.
+ * When the ledger holds the balances they are read once for all cards and tracked in memory; the cards
+ * themselves are then not updated.
+ */
+@Service
+public class BatchTransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchTransferService.class);
+
+    private final CardRepository cardRepo;
+    private final TransferJdbcRepository transferJdbc;
+    private final LedgerService ledger;
+    private final StripedBalanceService stripes;
+    private final OutboxService outbox;
+    private final CardCache cardCache;
+
+    public BatchTransferService(CardRepository cardRepo,
+                                TransferJdbcRepository transferJdbc,
+                                LedgerService ledger,
+                                StripedBalanceService stripes,
+                                OutboxService outbox,
+                                CardCache cardCache) {
+        this.cardRepo = cardRepo;
+        this.transferJdbc = transferJdbc;
+        this.ledger = ledger;
+        this.stripes = stripes;
+        this.outbox = outbox;
+        this.cardCache = cardCache;
+    }
+
+    @Transactional
+    public BatchTransferResponse transferBatch(Long userId, List<TransferRequest> items) {
+        log.debug("Starting batch transfer: userId={}, items={}", userId, items.size());
+
+        BatchTransferItemResult[] results = new BatchTransferItemResult[items.size()];
+
+        // sorted set keeps the lock order identical to the single transfer path
+        SortedSet<Long> cardIds = new TreeSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            TransferRequest req = items.get(i);
+            String error = validate(req);
+            if (error != null) {
+                results[i] = BatchTransferItemResult.failed(i, error);
+                continue;
+            }
+            cardIds.add(req.getFromCardId());
+            cardIds.add(req.getToCardId());
+        }
+
+        Map<Long, Card> cards = new HashMap<>();
+        if (!cardIds.isEmpty()) {
+            for (Card c : cardRepo.findAllByIdInAndOwner_IdForUpdate(cardIds, userId)) {
+                cards.put(c.getId(), c);
+            }
+        }
+        log.debug("Locked {} of {} requested cards for user {}", cards.size(), cardIds.size(), userId);
+        Map<Long, BigDecimal> ledgerBalances = ledger.holdsBalances() ? ledger.currentBalances(cards.keySet()) : null;
+
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Transfer> rows = new ArrayList<>();
+        List<Integer> rowIndexes = new ArrayList<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            TransferRequest req = items.get(i);
+            Card from = cards.get(req.getFromCardId());
+            Card to = cards.get(req.getToCardId());
+
+            if (ledgerBalances == null && from != null && from.getBalanceStripes() > 0
+                    && from.getBalance().compareTo(req.getAmount()) < 0) {
+                // cards are locked anyway, credits in this batch go to cards.balance
+                from.setBalance(from.getBalance().add(stripes.sweep(from.getId())));
+            }
+            String error = check(from, to, req.getAmount(), ledgerBalances);
+            if (error != null) {
+                log.warn("Batch item {} failed: {} (fromCardId={}, toCardId={})",
+                        i, error, req.getFromCardId(), req.getToCardId());
+                results[i] = BatchTransferItemResult.failed(i, error);
+                continue;
+            }
+
+            if (ledgerBalances != null) {
+                ledgerBalances.merge(from.getId(), req.getAmount().negate(), BigDecimal::add);
+                ledgerBalances.merge(to.getId(), req.getAmount(), BigDecimal::add);
+            } else {
+                from.setBalance(from.getBalance().subtract(req.getAmount()));
+                to.setBalance(to.getBalance().add(req.getAmount()));
+            }
+
+            Transfer tr = new Transfer();
+            tr.setFromCard(from);
+            tr.setToCard(to);
+            tr.setAmount(req.getAmount());
+            tr.setStatus(TransferStatus.SUCCESS);
+            tr.setDescription(req.getDescription());
+            tr.setCreatedAt(now);
+            rows.add(tr);
+            rowIndexes.add(i);
+        }
+
+        transferJdbc.insertAll(rows);
+        ledger.recordTransfers(rows);
+        outbox.transfersCompleted(rows);
+        cardCache.evictAfterCommit(cards.keySet().toArray(Long[]::new));
+
+        for (int r = 0; r < rows.size(); r++) {
+            int i = rowIndexes.get(r);
+            results[i] = BatchTransferItemResult.success(i, TransferMapper.toResponse(rows.get(r)));
+        }
+
+        BatchTransferResponse resp = new BatchTransferResponse();
+        resp.setItems(Arrays.asList(results));
+        resp.setSucceeded(rows.size());
+        resp.setFailed(items.size() - rows.size());
+
+        log.info("Batch transfer finished: userId={}, succeeded={}, failed={}",
+                userId, resp.getSucceeded(), resp.getFailed());
+        return resp;
+    }
+
+    private String validate(TransferRequest req) {
+        if (req.getFromCardId() == null || req.getToCardId() == null) {
+            return "Card ids are required";
+        }
+        if (req.getFromCardId().equals(req.getToCardId())) {
+            return "Cannot transfer to the same card";
+        }
+        if (req.getAmount() == null || req.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Amount must be greater than 0";
+        }
+        return null;
+    }
+
+    private String check(Card from, Card to, BigDecimal amount, Map<Long, BigDecimal> ledgerBalances) {
+        if (from == null || to == null) {
+            return "Card not found or does not belong to user";
+        }
+        if (from.getStatus() != CardStatus.ACTIVE) {
+            return "Source card is not available";
+        }
+        if (to.getStatus() != CardStatus.ACTIVE) {
+            return "Destination card is not available";
+        }
+        BigDecimal balance = ledgerBalances == null ? from.getBalance() : ledgerBalances.get(from.getId());
+        if (balance.compareTo(amount) < 0) {
+            return "Insufficient funds";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.CardCacheProperties;
+import com.example.bankcards.dto.card.CardResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of single-card responses, keyed by card id (Caffeine: W-TinyLFU eviction, TTL after write).
+ * Every write to a card evicts it after its transaction commits. A load that overlaps such a commit cannot leave
+ * the old balance behind: Caffeine blocks the eviction until the load has finished and then removes its result.
+ * Hit and miss counts are published as cache.gets{cache=cards,result=hit|miss}.
+ */
+@Component
+public class CardCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CardCache.class);
+
+    private final Cache<Long, CardResponse> cards;
+
+    public CardCache(CardCacheProperties props, MeterRegistry registry) {
+        this.cards = Caffeine.newBuilder()
+                .maximumSize(props.getMaximumSize())
+                .expireAfterWrite(props.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cards, "cards");
+    }
+
+    /**
+     * @param loader reads the card when it is not cached; a null result (no such card) is not cached
+     */
+    public CardResponse get(Long cardId, Function<Long, CardResponse> loader) {
+        return cards.get(cardId, loader);
+    }
+
+    /**
+     * Evicts the cards once the current transaction has committed, or right away outside a transaction.
+     * Nothing is evicted on rollback: the cached state is then still the committed one.
+     */
+    public void evictAfterCommit(Long... cardIds) {
+        List<Long> ids = List.of(cardIds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cards.invalidateAll(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cards.invalidateAll(ids);
+                log.debug("Evicted cards {} after commit", ids);
+            }
+        });
+    }
+
+    public CacheStats stats() {
+        return cards.stats();
+    }
+}
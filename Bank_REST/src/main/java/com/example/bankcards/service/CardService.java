@@ -3,18 +3,25 @@ package com.example.bankcards.service;
 import com.example.bankcards.dto.card.CardCreateRequest;
 import com.example.bankcards.dto.card.CardResponse;
 import com.example.bankcards.dto.card.CardStatusUpdateRequest;
+import com.example.bankcards.dto.card.CardStripesUpdateRequest;
+import com.example.bankcards.dto.common.CursorSlice;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.BusinessException;
+import com.example.bankcards.exception.ConflictException;
 import com.example.bankcards.exception.NotFoundException;
 import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.repository.CardListRepository;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.repository.spec.CardSpecs;
+import com.example.bankcards.repository.spec.HolderNameMatch;
+import com.example.bankcards.util.CardCursor;
 import com.example.bankcards.util.MaskUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -22,20 +29,40 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Slf4j
 @Service
 public class CardService {
 
+    public static final int MAX_SCROLL_SIZE = 100;
+
     private final CardRepository cardRepo;
+    private final CardListRepository cardList;
     private final UserRepository userRepo;
     private final CryptoService crypto;
+    private final LedgerService ledger;
+    private final StripedBalanceService stripes;
+    private final CardCache cache;
 
-    public CardService(CardRepository cardRepo, UserRepository userRepo, CryptoService crypto) {
+    public CardService(CardRepository cardRepo,
+                       CardListRepository cardList,
+                       UserRepository userRepo,
+                       CryptoService crypto,
+                       LedgerService ledger,
+                       StripedBalanceService stripes,
+                       CardCache cache) {
         this.cardRepo = cardRepo;
+        this.cardList = cardList;
         this.userRepo = userRepo;
         this.crypto = crypto;
+        this.ledger = ledger;
+        this.stripes = stripes;
+        this.cache = cache;
     }
 
     @Transactional
@@ -53,19 +80,37 @@ public class CardService {
             throw new BusinessException("Expiry date is in the past");
         }
 
+        byte[] panIndex = crypto.blindIndex(req.getPan());
+        if (cardRepo.existsByPanIndex(panIndex)) {
+            log.warn("[{}] Attempt to create a card with a PAN that is already issued", MDC.get("reqId"));
+            throw new ConflictException("Card with this PAN already exists");
+        }
+
         String panMask = MaskUtils.maskPan(req.getPan());
         String encPan = crypto.encrypt(req.getPan());
 
         Card c = new Card();
         c.setOwner(owner);
         c.setEncryptedPan(encPan);
+        c.setPanIndex(panIndex);
         c.setPanMask(panMask);
+        c.setLast4(MaskUtils.last4(req.getPan()));
         c.setHolderName(req.getHolderName());
         c.setExpiryDate(req.getExpiryDate());
         c.setStatus(CardStatus.ACTIVE);
         c.setBalance(req.getInitialBalance() == null ? BigDecimal.ZERO : req.getInitialBalance());
 
-        cardRepo.save(c);
+        try {
+            cardRepo.save(c);
+        } catch (DataIntegrityViolationException e) {
+            if (!isPanIndexConflict(e)) {
+                throw e;
+            }
+            // the same PAN was issued concurrently, after our existsByPanIndex check
+            log.warn("[{}] Attempt to create a card with a PAN that is already issued", MDC.get("reqId"));
+            throw new ConflictException("Card with this PAN already exists");
+        }
+        ledger.recordOpening(c);
 
         log.info("[{}] Card created successfully: {}", MDC.get("reqId"), panMask);
         return CardMapper.toResponse(c);
@@ -79,15 +124,112 @@ public class CardService {
                                    LocalDate expFrom,
                                    LocalDate expTo,
                                    Pageable pageable) {
-        Specification<Card> spec = Specification.allOf(
+        return list(ownerId, status, holderSearch, HolderNameMatch.CONTAINS, last4, expFrom, expTo, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<CardResponse> list(Long ownerId,
+                                   CardStatus status,
+                                   String holderSearch,
+                                   HolderNameMatch holderMatch,
+                                   String last4,
+                                   LocalDate expFrom,
+                                   LocalDate expTo,
+                                   Pageable pageable) {
+        Specification<Card> spec = listSpec(ownerId, status, holderSearch, holderMatch, last4, expFrom, expTo);
+        return withLedgerBalances(cardList.page(spec, pageable).map(this::toResponse));
+    }
+
+    /**
+     * Same filters as {@link #list}, without the COUNT query: the result only tells whether a next slice exists.
+     */
+    @Transactional(readOnly = true)
+    public Slice<CardResponse> listSlice(Long ownerId,
+                                         CardStatus status,
+                                         String holderSearch,
+                                         HolderNameMatch holderMatch,
+                                         String last4,
+                                         LocalDate expFrom,
+                                         LocalDate expTo,
+                                         Pageable pageable) {
+        Specification<Card> spec = listSpec(ownerId, status, holderSearch, holderMatch, last4, expFrom, expTo);
+        return withLedgerBalances(cardList.slice(spec, pageable).map(this::toResponse));
+    }
+
+    /**
+     * Keyset variant of {@link #list}, newest first: each page is "id &lt; last id" on the same indexes,
+     * so a deep page costs the same as the first one. Pass nextCursor of the previous result to continue.
+     */
+    @Transactional(readOnly = true)
+    public CursorSlice<CardResponse> scroll(Long ownerId,
+                                            CardStatus status,
+                                            String holderSearch,
+                                            HolderNameMatch holderMatch,
+                                            String last4,
+                                            LocalDate expFrom,
+                                            LocalDate expTo,
+                                            String cursor,
+                                            int size) {
+        if (size < 1 || size > MAX_SCROLL_SIZE) {
+            throw new BusinessException("Page size must be between 1 and " + MAX_SCROLL_SIZE);
+        }
+        int filterHash = filterHash(ownerId, status, holderSearch, holderMatch, last4, expFrom, expTo);
+        CardCursor after = CardCursor.decode(cursor, filterHash);
+
+        Specification<Card> spec = listSpec(ownerId, status, holderSearch, holderMatch, last4, expFrom, expTo)
+                .and(CardSpecs.idBefore(after == null ? null : after.lastId()));
+        Slice<CardListRepository.Row> rows = cardList.slice(spec, PageRequest.of(0, size, Sort.by("id").descending()));
+
+        String next = null;
+        if (rows.hasNext()) {
+            List<CardListRepository.Row> content = rows.getContent();
+            next = new CardCursor(content.get(content.size() - 1).id(), filterHash).encode();
+        }
+        return new CursorSlice<>(withLedgerBalances(rows.map(this::toResponse)).getContent(), size, next);
+    }
+
+    // stable across restarts: enums by name, no identity hash codes
+    private static int filterHash(Long ownerId,
+                                  CardStatus status,
+                                  String holderSearch,
+                                  HolderNameMatch holderMatch,
+                                  String last4,
+                                  LocalDate expFrom,
+                                  LocalDate expTo) {
+        return Objects.hash(ownerId,
+                status == null ? null : status.name(),
+                holderSearch,
+                holderMatch == null ? null : holderMatch.name(),
+                last4,
+                expFrom,
+                expTo);
+    }
+
+    private static Specification<Card> listSpec(Long ownerId,
+                                                CardStatus status,
+                                                String holderSearch,
+                                                HolderNameMatch holderMatch,
+                                                String last4,
+                                                LocalDate expFrom,
+                                                LocalDate expTo) {
+        return Specification.allOf(
                 CardSpecs.ownerId(ownerId),
                 CardSpecs.status(status),
-                CardSpecs.holderNameContains(holderSearch),
-                CardSpecs.panMaskEndsWith(last4),
+                CardSpecs.holderName(holderSearch, holderMatch),
+                CardSpecs.last4(last4),
                 CardSpecs.expiryBetween(expFrom, expTo)
         );
+    }
 
-        return cardRepo.findAll(spec, pageable).map(CardMapper::toResponse);
+    /**
+     * Exact lookup by full PAN: one probe on the unique pan_index, nothing is decrypted.
+     */
+    @Transactional(readOnly = true)
+    public CardResponse findByPan(String pan) {
+        Card c = cardRepo.findByPanIndex(crypto.blindIndex(pan))
+                .orElseThrow(() -> new NotFoundException("Card not found"));
+        log.info("[{}] Card {} found by PAN lookup", MDC.get("reqId"), c.getId());
+        return toResponse(c);
     }
 
     @Transactional(readOnly = true)
@@ -109,9 +251,10 @@ public class CardService {
         });
 
         c.setStatus(req.getStatus());
+        cache.evictAfterCommit(cardId);
 
         log.info("[{}] Card ID {} status updated to {}", MDC.get("reqId"), cardId, req.getStatus());
-        return CardMapper.toResponse(c);
+        return toResponse(c);
     }
 
     @Transactional
@@ -124,9 +267,72 @@ public class CardService {
         }
 
         cardRepo.deleteById(id);
+        cache.evictAfterCommit(id);
         log.info("[{}] Card ID {} deleted successfully", MDC.get("reqId"), id);
     }
 
+    @Transactional
+    public CardResponse updateStripes(Long cardId, CardStripesUpdateRequest req) {
+        log.info("[{}] Updating balance stripes. Card ID: {}, stripes: {}", MDC.get("reqId"), cardId, req.getStripes());
+        Card c = stripes.configure(cardId, req.getStripes());
+        cache.evictAfterCommit(cardId);
+        return toResponse(c);
+    }
+
+    /**
+     * Maps a card with its full balance: the ledger balance when the ledger holds the balances, otherwise
+     * cards.balance plus the stripes of a striped card.
+     */
+    public CardResponse toResponse(Card c) {
+        if (ledger.holdsBalances()) {
+            CardResponse resp = CardMapper.toResponse(c);
+            resp.setBalance(ledger.currentBalance(c.getId()));
+            return resp;
+        }
+        if (c.getBalanceStripes() == 0) {
+            return CardMapper.toResponse(c);
+        }
+        return CardMapper.toResponse(c, stripes.total(c.getId()));
+    }
+
+    // listing rows get their ledger balances per page in withLedgerBalances, not one query per row
+    private CardResponse toResponse(CardListRepository.Row row) {
+        boolean ownBalance = row.balanceStripes() == 0 || ledger.holdsBalances();
+        return CardMapper.toResponse(row, ownBalance ? BigDecimal.ZERO : stripes.total(row.id()));
+    }
+
+    private <S extends Slice<CardResponse>> S withLedgerBalances(S page) {
+        if (!ledger.holdsBalances() || !page.hasContent()) {
+            return page;
+        }
+        Map<Long, BigDecimal> balances = ledger.currentBalances(page.map(CardResponse::getId).getContent());
+        for (CardResponse c : page.getContent()) {
+            c.setBalance(balances.get(c.getId()));
+        }
+        return page;
+    }
+
+    /**
+     * Card by id through {@link CardCache}; no transaction is opened when the card is cached.
+     */
+    public Optional<CardResponse> findResponseById(Long id) {
+        return Optional.ofNullable(cache.get(id, this::load));
+    }
+
+    public Optional<CardResponse> findResponseByIdAndUserId(Long id, Long userId) {
+        return findResponseById(id).filter(c -> userId.equals(c.getOwnerId()));
+    }
+
+    private CardResponse load(Long id) {
+        return cardRepo.findById(id).map(this::toResponse).orElse(null);
+    }
+
+    // unique violation of cards.pan_index; PostgreSQL and H2 both name the index in the message
+    static boolean isPanIndexConflict(DataIntegrityViolationException e) {
+        String msg = e.getMostSpecificCause().getMessage();
+        return msg != null && msg.toLowerCase(Locale.ROOT).contains("uk_cards_pan_index");
+    }
+
     public Optional<Card> findByIdAndUserId(Long id, Long userId) {
         return cardRepo.findByIdAndOwner_Id(id, userId);
     }
@@ -8,23 +8,55 @@ import org.springframework.stereotype.Service;
 
 import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
 
+/**
+ * AES-256-GCM for card numbers. Output is Base64 of the envelope stored in cards.encrypted_pan:
+ * version (1 byte), key id (2 bytes), IV (12 bytes), ciphertext and tag.
+ * New data is encrypted with the active key version; any configured version can be decrypted, so keys are
+ * rotated by adding a new version and letting {@link PanReencryptionWorker} move old rows over.
+ * PANs also get a blind index, a keyed HMAC of the digits, for exact lookups without decryption.
+ * Cipher and Mac instances are kept per thread and re-initialised with a fresh IV on every call, so the
+ * provider lookup happens once per thread; IVs come from one shared non-blocking SecureRandom.
+ */
 @Service
 public class CryptoService {
 
     private static final Logger log = LoggerFactory.getLogger(CryptoService.class);
 
-    private final CryptoProperties props;
-    private SecretKey key;
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
     private static final int GCM_TAG_BITS = 128;
     private static final int IV_BYTES = 12;
+    private static final byte ENVELOPE_VERSION = 1;
+    private static final int HEADER_BYTES = 3;
+    private static final int MAX_KEY_ID = 0xffff;
+    // id changelog 009 writes into the PANs it converts from the pre-envelope Base64 column
+    private static final int LEGACY_KEY_ID = 0;
+    private static final String INDEX_ALGORITHM = "HmacSHA256";
+
+    private final CryptoProperties props;
+    private final SecureRandom random = newRandom();
+    private final ThreadLocal<Cipher> ciphers = ThreadLocal.withInitial(CryptoService::newCipher);
+    // initialised with the index key on first use; doFinal resets a Mac for the next call
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(() -> newMac(this.indexKey));
+    private Map<Integer, SecretKey> keys;
+    private int activeKeyId;
+    private SecretKey activeKey;
+    private SecretKey indexKey;
 
     public CryptoService(CryptoProperties props) {
         this.props = props;
@@ -33,37 +65,56 @@ public class CryptoService {
     @PostConstruct
     void init() {
         log.debug("Initializing CryptoService...");
-        if (props.getAesKeyB64() == null || props.getAesKeyB64().isBlank()) {
-            log.warn("AES key not provided in properties. Generating a new one...");
+        if (props.getKeyId() != LEGACY_KEY_ID) {
+            throw new IllegalStateException("app.crypto.key-id must be " + LEGACY_KEY_ID + ": converted PANs carry "
+                    + "that id for app.crypto.aes-key-b64; configure further key versions under app.crypto.keys");
+        }
+        Map<Integer, SecretKey> ring = new HashMap<>();
+        if (props.getAesKeyB64() != null && !props.getAesKeyB64().isBlank()) {
+            log.debug("AES key provided. Decoding from Base64...");
+            addKey(ring, LEGACY_KEY_ID, props.getAesKeyB64());
+        }
+        for (CryptoProperties.DataKey k : props.getKeys()) {
+            addKey(ring, k.getId(), k.getAesKeyB64());
+        }
+        if (ring.isEmpty()) {
+            log.warn("AES key not provided in properties. Generating a new one; data encrypted with it " +
+                    "cannot be read after a restart");
             try {
                 KeyGenerator kg = KeyGenerator.getInstance("AES");
                 kg.init(256);
-                key = kg.generateKey();
+                ring.put(LEGACY_KEY_ID, kg.generateKey());
                 log.info("AES key successfully generated.");
-            } catch (Exception e) {
+            } catch (GeneralSecurityException e) {
                 log.error("AES key generation failed", e);
                 throw new IllegalStateException("AES init error", e);
             }
+        }
+        activeKeyId = props.getActiveKeyId() != null ? props.getActiveKeyId() : Collections.max(ring.keySet());
+        activeKey = ring.get(activeKeyId);
+        if (activeKey == null) {
+            throw new IllegalStateException("app.crypto.active-key-id " + activeKeyId + " is not configured");
+        }
+        keys = Map.copyOf(ring);
+        log.info("AES keys loaded: versions={}, active={}", keys.keySet(), activeKeyId);
+
+        if (props.getPanIndexKeyB64() == null || props.getPanIndexKeyB64().isBlank()) {
+            log.warn("PAN index key not provided in properties. Generating a new one; cards indexed with it " +
+                    "cannot be found after a restart");
+            byte[] raw = new byte[32];
+            random.nextBytes(raw);
+            indexKey = new SecretKeySpec(raw, INDEX_ALGORITHM);
         } else {
-            log.debug("AES key provided. Decoding from Base64...");
-            byte[] raw = Base64.getDecoder().decode(props.getAesKeyB64());
-            key = new SecretKeySpec(raw, "AES");
-            log.info("AES key successfully loaded from properties.");
+            indexKey = new SecretKeySpec(Base64.getDecoder().decode(props.getPanIndexKeyB64()), INDEX_ALGORITHM);
         }
     }
 
     public String encrypt(String plain) {
-        log.debug("Encrypting data... Hash: {}", hash(plain));
+        if (log.isDebugEnabled()) {
+            log.debug("Encrypting data... Hash: {}", hash(plain));
+        }
         try {
-            byte[] iv = new byte[IV_BYTES];
-            new SecureRandom().nextBytes(iv);
-            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_BITS, iv));
-            byte[] ct = cipher.doFinal(plain.getBytes(StandardCharsets.UTF_8));
-            byte[] out = new byte[iv.length + ct.length];
-            System.arraycopy(iv, 0, out, 0, iv.length);
-            System.arraycopy(ct, 0, out, iv.length, ct.length);
-            String encoded = Base64.getEncoder().encodeToString(out);
+            String encoded = Base64.getEncoder().encodeToString(seal(plain.getBytes(StandardCharsets.UTF_8)));
             log.debug("Data successfully encrypted. Output length: {} bytes", encoded.length());
             return encoded;
         } catch (Exception e) {
@@ -75,16 +126,11 @@ public class CryptoService {
     public String decrypt(String b64) {
         log.debug("Decrypting data... Encoded length: {} bytes", b64.length());
         try {
-            byte[] in = Base64.getDecoder().decode(b64);
-            byte[] iv = new byte[IV_BYTES];
-            byte[] ct = new byte[in.length - IV_BYTES];
-            System.arraycopy(in, 0, iv, 0, IV_BYTES);
-            System.arraycopy(in, IV_BYTES, ct, 0, ct.length);
-            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_BITS, iv));
-            byte[] pt = cipher.doFinal(ct);
+            byte[] pt = open(Base64.getDecoder().decode(b64));
             String decrypted = new String(pt, StandardCharsets.UTF_8);
-            log.debug("Data successfully decrypted. Hash: {}", hash(decrypted));
+            if (log.isDebugEnabled()) {
+                log.debug("Data successfully decrypted. Hash: {}", hash(decrypted));
+            }
             return decrypted;
         } catch (Exception e) {
             log.error("Decryption error", e);
@@ -92,17 +138,148 @@ public class CryptoService {
         }
     }
 
+    public int activeKeyId() {
+        return activeKeyId;
+    }
+
+    public boolean hasKey(int keyId) {
+        return keys.containsKey(keyId);
+    }
+
+    /**
+     * Key version recorded in a binary envelope.
+     *
+     * @throws IllegalArgumentException if the bytes are not an envelope this service can read
+     */
+    public static int keyIdOf(byte[] envelope) {
+        if (envelope == null || envelope.length < HEADER_BYTES + IV_BYTES || envelope[0] != ENVELOPE_VERSION) {
+            throw new IllegalArgumentException("Unsupported PAN envelope");
+        }
+        return ((envelope[1] & 0xff) << 8) | (envelope[2] & 0xff);
+    }
+
+    /**
+     * Decrypts a binary envelope and encrypts the plaintext again with the active key.
+     */
+    public byte[] reencrypt(byte[] envelope) {
+        byte[] pt = null;
+        try {
+            pt = open(envelope);
+            return seal(pt);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Re-encrypt error", e);
+        } finally {
+            if (pt != null) {
+                Arrays.fill(pt, (byte) 0);
+            }
+        }
+    }
+
+    /**
+     * Blind index of a PAN: HMAC-SHA256 of its digits, so "4111 1111 1111 1111" and "4111111111111111" match.
+     */
+    public byte[] blindIndex(String pan) {
+        return index(pan.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Blind index of the PAN inside a binary envelope; the plaintext never becomes a String.
+     */
+    public byte[] blindIndexOf(byte[] envelope) {
+        byte[] pt = null;
+        try {
+            pt = open(envelope);
+            return index(pt);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Decrypt error", e);
+        } finally {
+            if (pt != null) {
+                Arrays.fill(pt, (byte) 0);
+            }
+        }
+    }
+
+    private byte[] index(byte[] pan) {
+        Mac mac = macs.get();
+        for (byte b : pan) {
+            if (b >= '0' && b <= '9') {
+                mac.update(b);
+            }
+        }
+        return mac.doFinal();
+    }
+
+    private byte[] seal(byte[] pt) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_BYTES];
+        random.nextBytes(iv);
+        Cipher cipher = ciphers.get();
+        cipher.init(Cipher.ENCRYPT_MODE, activeKey, new GCMParameterSpec(GCM_TAG_BITS, iv));
+        byte[] out = new byte[HEADER_BYTES + IV_BYTES + cipher.getOutputSize(pt.length)];
+        out[0] = ENVELOPE_VERSION;
+        out[1] = (byte) (activeKeyId >>> 8);
+        out[2] = (byte) activeKeyId;
+        System.arraycopy(iv, 0, out, HEADER_BYTES, IV_BYTES);
+        cipher.doFinal(pt, 0, pt.length, out, HEADER_BYTES + IV_BYTES);
+        return out;
+    }
+
+    private byte[] open(byte[] in) throws GeneralSecurityException {
+        int keyId = keyIdOf(in);
+        SecretKey key = keys.get(keyId);
+        if (key == null) {
+            throw new IllegalArgumentException("Unknown key id " + keyId);
+        }
+        Cipher cipher = ciphers.get();
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_BITS, in, HEADER_BYTES, IV_BYTES));
+        int offset = HEADER_BYTES + IV_BYTES;
+        return cipher.doFinal(in, offset, in.length - offset);
+    }
+
+    private static void addKey(Map<Integer, SecretKey> ring, int id, String b64) {
+        byte[] raw = Base64.getDecoder().decode(b64);
+        if (ring.put(checkId(id), new SecretKeySpec(raw, "AES")) != null) {
+            throw new IllegalStateException("AES key id " + id + " is configured twice");
+        }
+    }
+
+    private static int checkId(int id) {
+        if (id < 0 || id > MAX_KEY_ID) {
+            throw new IllegalStateException("AES key ids must be between 0 and " + MAX_KEY_ID);
+        }
+        return id;
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES/GCM is not available", e);
+        }
+    }
+
+    private static Mac newMac(SecretKey key) {
+        try {
+            Mac mac = Mac.getInstance(INDEX_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static SecureRandom newRandom() {
+        // reads /dev/urandom without ever blocking on the entropy pool; not available on every platform
+        try {
+            return SecureRandom.getInstance("NativePRNGNonBlocking");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+
     private String hash(String data) {
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = digest.digest(data.getBytes(StandardCharsets.UTF_8));
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hashBytes) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
-            return hexString.toString();
+            return HexFormat.of().formatHex(digest.digest(data.getBytes(StandardCharsets.UTF_8)));
         } catch (Exception e) {
             log.error("Hash calculation error", e);
             return "ERROR";
@@ -0,0 +1,48 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.JwtSigningKey;
+import com.example.bankcards.repository.JwtSigningKeyRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Keeps the key pairs in jwt_signing_keys; private keys are encrypted by {@link CryptoService}.
+ */
+@Component
+public class DbJwtKeyStore implements JwtKeyStore {
+
+    private final JwtSigningKeyRepository repo;
+    private final CryptoService crypto;
+
+    public DbJwtKeyStore(JwtSigningKeyRepository repo, CryptoService crypto) {
+        this.repo = repo;
+        this.crypto = crypto;
+    }
+
+    @Override
+    public List<StoredKey> findAll(String algorithm) {
+        return repo.findByAlgorithmOrderByCreatedAtDesc(algorithm).stream()
+                .map(k -> new StoredKey(k.getKid(), k.getAlgorithm(), crypto.decrypt(k.getPrivateKey()),
+                        k.getPublicKey(), k.getCreatedAt().toInstant()))
+                .toList();
+    }
+
+    @Override
+    public void insert(StoredKey key) {
+        JwtSigningKey k = new JwtSigningKey();
+        k.setKid(key.kid());
+        k.setAlgorithm(key.algorithm());
+        k.setPrivateKey(crypto.encrypt(key.privateKey()));
+        k.setPublicKey(key.publicKey());
+        k.setCreatedAt(OffsetDateTime.ofInstant(key.createdAt(), ZoneOffset.UTC));
+        repo.save(k);
+    }
+
+    @Override
+    public void delete(String kid) {
+        repo.deleteById(kid);
+    }
+}
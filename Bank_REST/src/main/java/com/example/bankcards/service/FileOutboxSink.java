@@ -0,0 +1,63 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.OutboxProperties;
+import com.example.bankcards.entity.OutboxEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends events as NDJSON lines to app.outbox.file-path, one write and one fsync per batch.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+
+    public FileOutboxSink(OutboxProperties props, ObjectMapper objectMapper) {
+        this.path = Path.of(props.getFilePath());
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> batch) throws IOException {
+        Path dir = path.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+             BufferedWriter out = new BufferedWriter(Channels.newWriter(ch, StandardCharsets.UTF_8))) {
+            for (OutboxEvent e : batch) {
+                out.write(objectMapper.writeValueAsString(toJson(e)));
+                out.newLine();
+            }
+            out.flush();
+            ch.force(false);
+        }
+    }
+
+    private ObjectNode toJson(OutboxEvent e) throws IOException {
+        ObjectNode n = objectMapper.createObjectNode();
+        n.put("id", e.getId());
+        n.put("aggregateType", e.getAggregateType());
+        n.put("aggregateId", e.getAggregateId());
+        n.put("eventType", e.getEventType());
+        n.put("createdAt", e.getCreatedAt().toString());
+        n.set("payload", objectMapper.readTree(e.getPayload()));
+        return n;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.TransferProperties;
+import com.example.bankcards.dto.transfer.TransferRequest;
+import com.example.bankcards.dto.transfer.TransferResponse;
+import com.example.bankcards.exception.ServiceUnavailableException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Group commit in front of {@link TransferService}: a collector thread opens a group with the first
+ * waiting transfer and closes it after the configured window or once it is full; the group is then
+ * committed in one transaction by {@link TransferGroupCommitter}. Under load many transfers share one
+ * commit (and its fsync), with an idle system the added latency is at most one window.
+ * Threads are started on first use.
+ */
+@Service
+public class GroupCommitTransferPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitTransferPipeline.class);
+
+    private final TransferGroupCommitter committer;
+    private final TransferProperties.GroupCommit props;
+    private final BlockingQueue<PendingTransfer> queue;
+    private volatile ExecutorService committers;
+    private volatile Thread collector;
+
+    public GroupCommitTransferPipeline(TransferGroupCommitter committer, TransferProperties props) {
+        this.committer = committer;
+        this.props = props.getGroupCommit();
+        this.queue = new LinkedBlockingQueue<>(this.props.getQueueCapacity());
+    }
+
+    public CompletableFuture<TransferResponse> submit(Long userId, TransferRequest req, String idempotencyKey) {
+        start();
+        PendingTransfer p = new PendingTransfer(userId, req, idempotencyKey);
+        if (!queue.offer(p)) {
+            log.warn("Group commit queue is full, rejecting transfer from card {}", req.getFromCardId());
+            p.result.completeExceptionally(new ServiceUnavailableException("Transfer queue is full, retry later"));
+        }
+        return p.result;
+    }
+
+    private void start() {
+        if (collector != null) {
+            return;
+        }
+        synchronized (this) {
+            if (collector != null) {
+                return;
+            }
+            int n = Math.max(1, props.getCommitters());
+            // the collector blocks once every committer is busy and this many groups are waiting
+            committers = new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(n), r -> {
+                        Thread t = new Thread(r, "transfer-group-commit");
+                        t.setDaemon(true);
+                        return t;
+                    }, new ThreadPoolExecutor.CallerRunsPolicy());
+            Thread t = new Thread(this::collect, "transfer-group-collector");
+            t.setDaemon(true);
+            t.start();
+            collector = t;
+            log.info("Started transfer group commit (window={}, maxGroupSize={}, committers={})",
+                    props.getWindow(), props.getMaxGroupSize(), n);
+        }
+    }
+
+    private void collect() {
+        int maxGroup = Math.max(1, props.getMaxGroupSize());
+        long windowNanos = props.getWindow().toNanos();
+        while (!Thread.currentThread().isInterrupted()) {
+            List<PendingTransfer> group = new ArrayList<>(maxGroup);
+            try {
+                group.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (group.size() < maxGroup) {
+                    // take what is already there without waking up per item
+                    queue.drainTo(group, maxGroup - group.size());
+                    long left = deadline - System.nanoTime();
+                    if (group.size() >= maxGroup || left <= 0) {
+                        break;
+                    }
+                    PendingTransfer next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(group);
+                return;
+            }
+            committers.execute(() -> commit(group));
+        }
+    }
+
+    private void commit(List<PendingTransfer> group) {
+        try {
+            committer.commit(group);
+        } catch (RuntimeException e) {
+            log.error("Failed to commit a group of {} transfers", group.size(), e);
+            group.forEach(p -> p.result.completeExceptionally(e));
+        }
+    }
+
+    private void fail(List<PendingTransfer> group) {
+        group.forEach(p -> p.result.completeExceptionally(
+                new ServiceUnavailableException("Transfer pipeline is shutting down")));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        Thread t = collector;
+        if (t == null) {
+            return;
+        }
+        t.interrupt();
+        committers.shutdown();
+        List<PendingTransfer> left = new ArrayList<>();
+        queue.drainTo(left);
+        fail(left);
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.TransferProperties;
+import com.example.bankcards.dto.transfer.TransferRequest;
+import com.example.bankcards.dto.transfer.TransferResponse;
+import com.example.bankcards.entity.IdempotencyKey;
+import com.example.bankcards.exception.BusinessException;
+import com.example.bankcards.exception.ConflictException;
+import com.example.bankcards.mapper.TransferMapper;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates POST /api/transfers by the Idempotency-Key header.
+ * Lookup order: bounded in-memory cache -> request in flight on this instance -> transfer_idempotency_keys table.
+ * The key row is written by {@link #record} inside the transfer transaction, the unique constraint
+ * on (user_id, idem_key) resolves races between instances.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final int MAX_KEY_LENGTH = 128;
+
+    private final IdempotencyKeyRepository repo;
+    private final TransferRepository transferRepo;
+    private final TransferProperties.Idempotency props;
+    private final Cache<String, Completed> completed;
+    private final ConcurrentMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyKeyRepository repo, TransferRepository transferRepo, TransferProperties props) {
+        this.repo = repo;
+        this.transferRepo = transferRepo;
+        this.props = props.getIdempotency();
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(this.props.getCacheSize())
+                .expireAfterWrite(this.props.getCacheTtl())
+                .build();
+    }
+
+    /**
+     * Runs {@code action} at most once per (user, key). A replay returns the stored response,
+     * a concurrent duplicate waits for the first request and gets its outcome.
+     */
+    public TransferResponse execute(Long userId, String key, TransferRequest req, Supplier<TransferResponse> action) {
+        validateKey(key);
+        String cacheKey = userId + ":" + key;
+        String hash = fingerprint(req);
+
+        Completed done = completed.getIfPresent(cacheKey);
+        if (done != null) {
+            log.debug("Idempotent replay from cache: userId={}, key={}", userId, key);
+            return replay(done, hash);
+        }
+
+        InFlight mine = new InFlight(hash);
+        InFlight running = inFlight.putIfAbsent(cacheKey, mine);
+        if (running != null) {
+            log.debug("Waiting for in-flight request with the same key: userId={}, key={}", userId, key);
+            return await(running, hash);
+        }
+
+        try {
+            TransferResponse resp = lookup(userId, key)
+                    .map(stored -> replay(stored, hash))
+                    .orElseGet(() -> runOnce(userId, key, hash, action));
+            completed.put(cacheKey, new Completed(hash, resp));
+            mine.future.complete(resp);
+            return resp;
+        } catch (RuntimeException e) {
+            mine.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, mine);
+        }
+    }
+
+    /**
+     * Stores the key for a transfer; must run in the transaction that created the transfer.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long userId, String key, TransferRequest req, Long transferId) {
+        IdempotencyKey k = new IdempotencyKey();
+        k.setUserId(userId);
+        k.setKey(key);
+        k.setRequestHash(fingerprint(req));
+        k.setTransfer(transferRepo.getReferenceById(transferId));
+        repo.save(k);
+    }
+
+    private TransferResponse runOnce(Long userId, String key, String hash, Supplier<TransferResponse> action) {
+        try {
+            return action.get();
+        } catch (DataIntegrityViolationException e) {
+            // another instance committed the same key first; our transfer was rolled back
+            log.info("Idempotency key committed concurrently elsewhere: userId={}, key={}", userId, key);
+            return lookup(userId, key)
+                    .map(stored -> replay(stored, hash))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private Optional<Completed> lookup(Long userId, String key) {
+        return repo.findWithTransfer(userId, key)
+                .map(k -> new Completed(k.getRequestHash(), TransferMapper.toResponse(k.getTransfer())));
+    }
+
+    private TransferResponse replay(Completed done, String hash) {
+        if (!done.requestHash.equals(hash)) {
+            throw new ConflictException("Idempotency-Key was already used for a different request");
+        }
+        return done.response;
+    }
+
+    private TransferResponse await(InFlight running, String hash) {
+        if (!running.requestHash.equals(hash)) {
+            throw new ConflictException("Idempotency-Key was already used for a different request");
+        }
+        try {
+            return running.future.get(props.getWaitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ConflictException("A request with the same Idempotency-Key is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("A request with the same Idempotency-Key is still in progress");
+        }
+    }
+
+    private void validateKey(String key) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException("Idempotency-Key must be 1.." + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    static String fingerprint(TransferRequest req) {
+        String canonical = req.getFromCardId() + "|" + req.getToCardId() + "|"
+                + (req.getAmount() == null ? "" : req.getAmount().stripTrailingZeros().toPlainString()) + "|"
+                + (req.getDescription() == null ? "" : req.getDescription());
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Completed(String requestHash, TransferResponse response) {
+    }
+
+    private static final class InFlight {
+        private final String requestHash;
+        private final CompletableFuture<TransferResponse> future = new CompletableFuture<>();
+
+        private InFlight(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.bankcards.service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Key pairs shared by all instances, so a token signed with a rotated-in key verifies everywhere.
+ * Keys are Base64 DER: PKCS#8 private, X.509 public.
+ */
+public interface JwtKeyStore {
+
+    /**
+     * @return keys of the algorithm, newest first
+     */
+    List<StoredKey> findAll(String algorithm);
+
+    void insert(StoredKey key);
+
+    void delete(String kid);
+
+    record StoredKey(String kid, String algorithm, String privateKey, String publicKey, Instant createdAt) {
+    }
+}
@@ -1,73 +1,130 @@
 package com.example.bankcards.service;
 
 import com.example.bankcards.config.JwtProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.Date;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class JwtService {
 
     private static final Logger log = LoggerFactory.getLogger(JwtService.class);
 
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLES = "roles";
+    // iat has second precision; revocation needs to order tokens against revoked_at exactly
+    public static final String CLAIM_ISSUED_AT_MICROS = "iat_us";
+
     private final JwtProperties props;
-    private final SecretKey key;
+    private final JwtSigningKeys keys;
+    private final JwtParser parser;
+    private final Cache<String, Claims> verified;
 
-    public JwtService(JwtProperties props, SecretKey key) {
+    public JwtService(JwtProperties props, JwtSigningKeys keys) {
         this.props = props;
-        this.key = key;
+        this.keys = keys;
+        // parsers are immutable and thread-safe, one is enough; the key is picked per token by kid
+        this.parser = Jwts.parser().keyLocator(keys).build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(props.getVerifiedCacheSize())
+                .expireAfter(new UntilExpiration())
+                .build();
     }
 
     public String generate(String subject, Map<String, Object> claims) {
         log.debug("Generating JWT for subject: {} with claims: {}", subject, claims);
         Instant now = Instant.now();
         Instant exp = now.plusSeconds(props.getExpirationMinutes() * 60L);
-        String token = Jwts.builder()
-                .claims(claims)
-                .subject(subject)
-                .issuedAt(Date.from(now))
-                .expiration(Date.from(exp))
-                .signWith(key, Jwts.SIG.HS256)
+        String token = keys.sign(Jwts.builder()
+                        .claims(claims)
+                        .subject(subject)
+                        .id(UUID.randomUUID().toString())
+                        .claim(CLAIM_ISSUED_AT_MICROS, ChronoUnit.MICROS.between(Instant.EPOCH, now))
+                        .issuedAt(Date.from(now))
+                        .expiration(Date.from(exp)))
                 .compact();
         log.info("JWT generated successfully for subject: {}, expires at: {}", subject, exp);
         return token;
     }
 
-    public String extractUsername(String token) {
-        log.debug("Extracting username from JWT token");
+    /**
+     * Verifies the token once and returns its claims; empty if the signature or the expiry check fails.
+     * Verified tokens are cached by digest until their exp claim, so a client reusing a token
+     * is not re-verified on every request.
+     */
+    public Optional<Claims> verify(String token) {
+        String digest = digest(token);
+        Claims cached = verified.getIfPresent(digest);
+        if (cached != null) {
+            if (cached.getExpiration().toInstant().isAfter(Instant.now())) {
+                return Optional.of(cached);
+            }
+            verified.invalidate(digest);
+        }
         try {
-            String username = Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload()
-                    .getSubject();
-            log.info("Username extracted from token: {}", username);
-            return username;
-        } catch (Exception e) {
-            log.error("Failed to extract username from token: {}", e.getMessage());
-            throw e;
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            if (claims.getExpiration() != null) {
+                verified.put(digest, claims);
+            }
+            return Optional.of(claims);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.warn("Invalid JWT token: {}", e.getMessage());
+            return Optional.empty();
         }
     }
 
+    public String extractUsername(String token) {
+        return verify(token).map(Claims::getSubject)
+                .orElseThrow(() -> new JwtException("Invalid JWT token"));
+    }
+
     public boolean isValid(String token) {
-        log.debug("Validating JWT token");
+        return verify(token).isPresent();
+    }
+
+    private static String digest(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token);
-            log.info("JWT token is valid");
-            return true;
-        } catch (Exception e) {
-            log.warn("Invalid JWT token: {}", e.getMessage());
-            return false;
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class UntilExpiration implements Expiry<String, Claims> {
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long millis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
         }
     }
 }
@@ -0,0 +1,245 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.JwtProperties;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.security.*;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Keys of issued tokens. HS256 uses the shared secret; ES256/RS256 sign with the newest key pair and put
+ * its id in the kid header, and every key that may still verify an unexpired token is published as JWKS,
+ * so other services verify tokens without the secret.
+ * Key pairs are shared by all instances: either configured (app.jwt.keys) or, with app.jwt.key-rotation-interval,
+ * rotated through {@link JwtKeyStore}. A token with an unknown kid makes the instance reload the store once.
+ * Tokens without kid (signed with the secret before the switch to key pairs) verify only until
+ * app.jwt.legacy-hs256-until.
+ */
+@Component
+public class JwtSigningKeys extends LocatorAdapter<Key> {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtSigningKeys.class);
+
+    private final JwtProperties props;
+    private final SecretKey secret;
+    private final SignatureAlgorithm algorithm;
+    private final JwtKeyStore store;
+    // configured key pairs; they verify, and sign only when keys do not rotate
+    private final List<SigningKey> configured;
+    // newest first; replaced as a whole on reload
+    private volatile List<SigningKey> keys;
+    private volatile long lastReloadNanos;
+
+    @Autowired
+    public JwtSigningKeys(JwtProperties props, SecretKey secret, JwtKeyStore store, Environment env) {
+        this(props, secret, store, env.acceptsProfiles(Profiles.of("dev", "test")));
+    }
+
+    /**
+     * @param allowGeneratedKeys sign with a key pair generated at startup when none is configured (single instance only)
+     */
+    public JwtSigningKeys(JwtProperties props, SecretKey secret, JwtKeyStore store, boolean allowGeneratedKeys) {
+        this.props = props;
+        this.secret = secret;
+        this.store = store;
+        this.algorithm = switch (props.getAlgorithm().toUpperCase(Locale.ROOT)) {
+            case "HS256" -> null;
+            case "ES256" -> Jwts.SIG.ES256;
+            case "RS256" -> Jwts.SIG.RS256;
+            default -> throw new IllegalStateException("Unsupported app.jwt.algorithm: " + props.getAlgorithm());
+        };
+        List<SigningKey> loaded = new ArrayList<>();
+        if (algorithm != null) {
+            for (JwtProperties.KeyPairConfig k : props.getKeys()) {
+                loaded.add(new SigningKey(k.getKid(), decode(k.getKid(), k.getPrivateKey(), k.getPublicKey()), Instant.now()));
+            }
+        }
+        this.configured = List.copyOf(loaded);
+        this.keys = configured;
+
+        if (algorithm == null) {
+            return;
+        }
+        if (rotates()) {
+            if (store == null) {
+                throw new IllegalStateException("app.jwt.key-rotation-interval needs a shared key store");
+            }
+            reload();
+            if (rotationDue()) {
+                rotate();
+            }
+        } else if (configured.isEmpty()) {
+            if (!allowGeneratedKeys) {
+                throw new IllegalStateException("No JWT key pairs configured: set app.jwt.keys or " +
+                        "app.jwt.key-rotation-interval; a generated key is not known to other instances");
+            }
+            log.warn("No JWT key pairs configured, generating an ephemeral {} key", algorithm.getId());
+            keys = List.of(new SigningKey(UUID.randomUUID().toString(), algorithm.keyPair().build(), Instant.now()));
+        }
+        log.info("JWT signing with {} key '{}', {} key(s) published", algorithm.getId(),
+                keys.get(0).kid(), keys.size());
+    }
+
+    public boolean isAsymmetric() {
+        return algorithm != null;
+    }
+
+    /**
+     * Signs with the current key: the secret for HS256, otherwise the newest key pair (with its kid).
+     */
+    public JwtBuilder sign(JwtBuilder builder) {
+        if (algorithm == null) {
+            return builder.signWith(secret, Jwts.SIG.HS256);
+        }
+        SigningKey active = keys.get(0);
+        return builder.header().keyId(active.kid()).and()
+                .signWith(active.pair().getPrivate(), algorithm);
+    }
+
+    @Override
+    protected Key locate(JwsHeader header) {
+        String kid = header.getKeyId();
+        if (kid == null) {
+            return legacySecret();
+        }
+        Key key = find(kid);
+        if (key == null && rotates() && System.nanoTime() - lastReloadNanos >= props.getKeyReloadMinInterval().toNanos()) {
+            // rotated in by another instance since our last reload
+            reload();
+            key = find(kid);
+        }
+        return key;
+    }
+
+    private Key find(String kid) {
+        for (SigningKey k : keys) {
+            if (k.kid().equals(kid)) {
+                return k.pair().getPublic();
+            }
+        }
+        return null;
+    }
+
+    // null rejects the token
+    private Key legacySecret() {
+        if (algorithm == null) {
+            return secret;
+        }
+        Instant until = props.getLegacyHs256Until();
+        return until != null && Instant.now().isBefore(until) ? secret : null;
+    }
+
+    /**
+     * Public keys as a JWK set ({"keys": [...]}); empty for HS256.
+     */
+    public Map<String, Object> jwks() {
+        List<Map<String, ?>> jwks = new ArrayList<>();
+        for (SigningKey k : keys) {
+            jwks.add(Jwks.builder().key(k.pair().getPublic()).id(k.kid())
+                    .algorithm(algorithm.getId()).publicKeyUse("sig").build());
+        }
+        return Map.of("keys", jwks);
+    }
+
+    /**
+     * Picks up keys rotated in by other instances, and adds a new one to the store once the newest is older
+     * than app.jwt.key-rotation-interval. Two instances rotating at once only leave one extra valid key.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.key-rotation-check-interval:PT1M}")
+    public void rotateIfDue() {
+        if (algorithm == null || !rotates()) {
+            return;
+        }
+        reload();
+        if (rotationDue()) {
+            rotate();
+        }
+    }
+
+    /**
+     * Stores a fresh key pair, which signs from now on. Replaced keys stay published until every token
+     * they signed has expired, then they are deleted from the store.
+     */
+    public synchronized void rotate() {
+        if (algorithm == null) {
+            throw new IllegalStateException("HS256 has no key pairs to rotate");
+        }
+        if (!rotates() || store == null) {
+            throw new IllegalStateException("Key rotation needs app.jwt.key-rotation-interval and a shared key store");
+        }
+        Instant now = Instant.now();
+        KeyPair pair = algorithm.keyPair().build();
+        String kid = UUID.randomUUID().toString();
+        store.insert(new JwtKeyStore.StoredKey(kid, algorithm.getId(),
+                Base64.getEncoder().encodeToString(pair.getPrivate().getEncoded()),
+                Base64.getEncoder().encodeToString(pair.getPublic().getEncoded()),
+                now));
+
+        // a replaced key verifies tokens for at most one access token lifetime (plus a minute of slack)
+        Instant keepAfter = now.minus(Duration.ofMinutes(props.getExpirationMinutes() + 1));
+        List<JwtKeyStore.StoredKey> stored = store.findAll(algorithm.getId());
+        for (int i = 1; i < stored.size(); i++) {
+            // key i was replaced when key i - 1 was created
+            if (stored.get(i - 1).createdAt().isBefore(keepAfter)) {
+                store.delete(stored.get(i).kid());
+            }
+        }
+        reload();
+        log.info("JWT signing key rotated: active='{}', published={}", kid, keys.size());
+    }
+
+    private boolean rotates() {
+        return props.getKeyRotationInterval() != null;
+    }
+
+    private boolean rotationDue() {
+        List<SigningKey> current = keys;
+        return current.isEmpty() || current == configured
+                || !current.get(0).createdAt().plus(props.getKeyRotationInterval()).isAfter(Instant.now());
+    }
+
+    private synchronized void reload() {
+        List<SigningKey> next = new ArrayList<>();
+        for (JwtKeyStore.StoredKey k : store.findAll(algorithm.getId())) {
+            next.add(new SigningKey(k.kid(), decode(k.kid(), k.privateKey(), k.publicKey()), k.createdAt()));
+        }
+        if (next.isEmpty()) {
+            keys = configured;
+        } else {
+            next.addAll(configured);
+            keys = List.copyOf(next);
+        }
+        lastReloadNanos = System.nanoTime();
+    }
+
+    private KeyPair decode(String kid, String privateKey, String publicKey) {
+        try {
+            KeyFactory kf = KeyFactory.getInstance(algorithm == Jwts.SIG.RS256 ? "RSA" : "EC");
+            PrivateKey priv = kf.generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateKey)));
+            PublicKey pub = kf.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(publicKey)));
+            return new KeyPair(pub, priv);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid JWT key pair '" + kid + "'", e);
+        }
+    }
+
+    private record SigningKey(String kid, KeyPair pair, Instant createdAt) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.bankcards.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodic ledger maintenance; both jobs are disabled unless their cron is configured.
+ */
+@Component
+public class LedgerJobs {
+
+    private final LedgerService ledgerService;
+
+    public LedgerJobs(LedgerService ledgerService) {
+        this.ledgerService = ledgerService;
+    }
+
+    @Scheduled(cron = "${app.ledger.snapshot-cron:-}")
+    public void snapshot() {
+        ledgerService.snapshot();
+    }
+
+    @Scheduled(cron = "${app.ledger.reconcile-cron:-}")
+    public void reconcile() {
+        ledgerService.reconcile();
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.LedgerProperties;
+import com.example.bankcards.config.TransferProperties;
+import com.example.bankcards.dto.ledger.LedgerBalanceResponse;
+import com.example.bankcards.dto.ledger.ReconciliationReport;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.LedgerEntry;
+import com.example.bankcards.entity.LedgerEntryType;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.exception.NotFoundException;
+import com.example.bankcards.repository.LedgerJdbcRepository;
+import com.example.bankcards.repository.LedgerJdbcRepository.CardLedgerRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Double-entry ledger: every transfer appends a debit and a credit entry in its own transaction.
+ * Ledger balance of a card = latest snapshot + entries after it; snapshots are taken periodically
+ * so reads never sum the full history.
+ * <p>
+ * With app.transfer.engine=LEDGER the ledger holds the balances: transfers check the funds on it and only insert
+ * rows, card reads return the ledger balance, and cards.balance stays at the opening balance. With the other
+ * engines transfers still update cards.balance (or its stripes) and the ledger is the history next to it.
+ * Reconciliation compares, chunk by chunk, the ledger balance with cards.balance, or under LEDGER with the
+ * full history of the card, which checks the snapshots.
+ * <p>
+ * Every writer of entries holds a lock on the card row (shared for a ledger credit, exclusive otherwise), so
+ * the snapshot job locks a chunk of cards for update before it sums their entries and cannot miss one that is
+ * still being committed.
+ */
+@Service
+public class LedgerService {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerService.class);
+
+    private final LedgerJdbcRepository ledgerRepo;
+    private final LedgerProperties props;
+    private final TransferProperties transferProps;
+    private final TransactionTemplate tx;
+
+    public LedgerService(LedgerJdbcRepository ledgerRepo,
+                         LedgerProperties props,
+                         TransferProperties transferProps,
+                         PlatformTransactionManager txManager) {
+        this.ledgerRepo = ledgerRepo;
+        this.props = props;
+        this.transferProps = transferProps;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    /**
+     * True when the ledger, not cards.balance, holds the balances (app.transfer.engine=LEDGER).
+     */
+    public boolean holdsBalances() {
+        return transferProps.getEngine() == TransferProperties.Engine.LEDGER;
+    }
+
+    /**
+     * Ledger balance of a card: latest snapshot plus the entries after it. Callers that act on it must hold
+     * the card's lock, otherwise an entry may commit right after the read.
+     */
+    public BigDecimal currentBalance(Long cardId) {
+        BigDecimal balance = ledgerRepo.balances(List.of(cardId)).get(cardId);
+        if (balance == null) {
+            throw new NotFoundException("Card not found");
+        }
+        return balance;
+    }
+
+    /**
+     * Ledger balances of several cards in one query; unknown ids are missing from the result.
+     */
+    public Map<Long, BigDecimal> currentBalances(Collection<Long> cardIds) {
+        return ledgerRepo.balances(cardIds);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransfer(Transfer tr) {
+        recordTransfers(List.of(tr));
+    }
+
+    /**
+     * Appends a DEBIT and a CREDIT entry per transfer; transfers must already have ids.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransfers(List<Transfer> transfers) {
+        List<LedgerEntry> entries = new ArrayList<>(transfers.size() * 2);
+        for (Transfer tr : transfers) {
+            entries.add(entry(tr.getFromCard().getId(), tr.getId(), LedgerEntryType.DEBIT,
+                    tr.getAmount().negate(), tr.getCreatedAt()));
+            entries.add(entry(tr.getToCard().getId(), tr.getId(), LedgerEntryType.CREDIT,
+                    tr.getAmount(), tr.getCreatedAt()));
+        }
+        ledgerRepo.insertAll(entries);
+    }
+
+    /**
+     * Opening entry for the initial balance of a new card; nothing is written for a zero balance.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordOpening(Card card) {
+        if (card.getBalance().signum() == 0) {
+            return;
+        }
+        ledgerRepo.insertAll(List.of(entry(card.getId(), null, LedgerEntryType.OPENING,
+                card.getBalance(), OffsetDateTime.now())));
+    }
+
+    public LedgerBalanceResponse balance(Long cardId) {
+        CardLedgerRow row = ledgerRepo.findByCardId(cardId, holdsBalances());
+        if (row == null) {
+            throw new NotFoundException("Card not found");
+        }
+        return toResponse(row);
+    }
+
+    /**
+     * Writes a new snapshot for every card with entries since its last snapshot.
+     * Each chunk is first read without locks to find the changed cards; those are then locked for update,
+     * read again and snapshotted in a short transaction of their own, so every entry of a card is either
+     * committed and counted or not yet written.
+     *
+     * @return number of snapshots written
+     */
+    public int snapshot() {
+        int written = 0;
+        long after = 0;
+        while (true) {
+            List<CardLedgerRow> chunk = ledgerRepo.chunk(after, props.getChunkSize(), Long.MAX_VALUE, false);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            List<Long> changed = chunk.stream().filter(LedgerService::changedSinceSnapshot)
+                    .map(CardLedgerRow::cardId).toList();
+            if (!changed.isEmpty()) {
+                written += tx.execute(status -> {
+                    ledgerRepo.lockCards(changed);
+                    List<CardLedgerRow> rows = ledgerRepo.rows(changed, false).stream()
+                            .filter(LedgerService::changedSinceSnapshot).toList();
+                    ledgerRepo.insertSnapshots(rows, OffsetDateTime.now());
+                    return rows.size();
+                });
+            }
+            after = chunk.get(chunk.size() - 1).cardId();
+        }
+        log.info("Ledger snapshot finished: snapshots={}", written);
+        return written;
+    }
+
+    private static boolean changedSinceSnapshot(CardLedgerRow r) {
+        return r.lastEntryId() != null && (r.snapshotEntryId() == null || r.lastEntryId() > r.snapshotEntryId());
+    }
+
+    /**
+     * Compares the ledger balance of every card with cards.balance, or with its full history when the ledger
+     * holds the balances; one chunk per query. Each chunk is read by a single statement, so balance and entries
+     * of a card are seen consistently. A mismatching card is checked once more against its full history under
+     * the card lock: if that matches, the snapshot is wrong and is replaced, otherwise the card is reported.
+     */
+    public ReconciliationReport reconcile() {
+        boolean history = holdsBalances();
+        ReconciliationReport report = new ReconciliationReport();
+        long after = 0;
+        while (true) {
+            List<CardLedgerRow> chunk = ledgerRepo.chunk(after, props.getChunkSize(), Long.MAX_VALUE, history);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            for (CardLedgerRow r : chunk) {
+                report.setCardsChecked(report.getCardsChecked() + 1);
+                if (r.cardBalance().compareTo(r.ledgerBalance()) == 0) {
+                    continue;
+                }
+                if (repairSnapshot(r.cardId(), history)) {
+                    report.setRepairedSnapshots(report.getRepairedSnapshots() + 1);
+                } else {
+                    log.warn("Ledger mismatch: cardId={}, cardBalance={}, ledgerBalance={}",
+                            r.cardId(), r.cardBalance(), r.ledgerBalance());
+                    report.setMismatches(report.getMismatches() + 1);
+                    if (report.getItems().size() < props.getMaxReportedMismatches()) {
+                        report.getItems().add(toResponse(r));
+                    }
+                }
+            }
+            after = chunk.get(chunk.size() - 1).cardId();
+        }
+        log.info("Ledger reconciliation finished: cardsChecked={}, mismatches={}, repairedSnapshots={}",
+                report.getCardsChecked(), report.getMismatches(), report.getRepairedSnapshots());
+        return report;
+    }
+
+    // true if a snapshot of the full history was written; without the LEDGER engine only when that history
+    // matches cards.balance
+    private boolean repairSnapshot(Long cardId, boolean history) {
+        return Boolean.TRUE.equals(tx.execute(status -> {
+            ledgerRepo.lockCards(List.of(cardId));
+            CardLedgerRow full = ledgerRepo.fullHistory(cardId);
+            if (full == null || full.lastEntryId() == null
+                    || (!history && full.cardBalance().compareTo(full.ledgerBalance()) != 0)) {
+                return false;
+            }
+            ledgerRepo.insertSnapshots(List.of(full), OffsetDateTime.now());
+            log.warn("Ledger snapshot of card {} did not match its entries, rewritten up to entry {}",
+                    cardId, full.lastEntryId());
+            return true;
+        }));
+    }
+
+    private static LedgerEntry entry(Long cardId, Long transferId, LedgerEntryType type,
+                                     BigDecimal amount, OffsetDateTime createdAt) {
+        LedgerEntry e = new LedgerEntry();
+        e.setCardId(cardId);
+        e.setTransferId(transferId);
+        e.setEntryType(type);
+        e.setAmount(amount);
+        e.setCreatedAt(createdAt);
+        return e;
+    }
+
+    private static LedgerBalanceResponse toResponse(CardLedgerRow r) {
+        LedgerBalanceResponse resp = new LedgerBalanceResponse();
+        resp.setCardId(r.cardId());
+        resp.setCardBalance(r.cardBalance());
+        resp.setLedgerBalance(r.ledgerBalance());
+        resp.setSnapshotEntryId(r.snapshotEntryId());
+        resp.setLastEntryId(r.lastEntryId());
+        return resp;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.OutboxProperties;
+import com.example.bankcards.entity.OutboxEvent;
+import com.example.bankcards.repository.OutboxJdbcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves events from the outbox table to the {@link OutboxSink}. Each batch is claimed with
+ * FOR UPDATE SKIP LOCKED, published and deleted in one transaction, so several instances can relay
+ * side by side and a batch the sink rejected stays in the table. After a rejection the relay backs off
+ * exponentially instead of hammering a sink that cannot keep up.
+ * Metrics: outbox.lag (age of the oldest event seen by the last run), outbox.published, outbox.publish.failures.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxJdbcRepository outboxRepo;
+    private final OutboxSink sink;
+    private final OutboxProperties props;
+    private final TransactionTemplate tx;
+    private final Counter published;
+    private final Counter failures;
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private volatile Duration backoff = Duration.ZERO;
+    // compared as a nanoTime difference, so it must start from a real reading, not 0
+    private volatile long pausedUntilNanos = System.nanoTime();
+
+    public OutboxRelay(OutboxJdbcRepository outboxRepo,
+                       OutboxSink sink,
+                       OutboxProperties props,
+                       PlatformTransactionManager txManager,
+                       MeterRegistry registry) {
+        if (props.isRequireDurableSink() && !sink.durable()) {
+            throw new IllegalStateException("Outbox sink '" + props.getSink()
+                    + "' is not durable; set OUTBOX_SINK to file");
+        }
+        this.outboxRepo = outboxRepo;
+        this.sink = sink;
+        this.props = props;
+        this.tx = new TransactionTemplate(txManager);
+        this.published = Counter.builder("outbox.published").register(registry);
+        this.failures = Counter.builder("outbox.publish.failures").register(registry);
+        Gauge.builder("outbox.lag", lagMillis, v -> v.get() / 1000.0)
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval:PT0.2S}")
+    public void run() {
+        if (!props.isRelayEnabled() || System.nanoTime() - pausedUntilNanos < 0) {
+            return;
+        }
+        relayOnce();
+    }
+
+    /**
+     * Publishes up to max-batches-per-run batches; stops early once the outbox is drained or the sink fails.
+     *
+     * @return number of events published
+     */
+    public synchronized int relayOnce() {
+        int total = 0;
+        for (int i = 0; i < props.getMaxBatchesPerRun(); i++) {
+            int n;
+            try {
+                n = tx.execute(status -> publishBatch());
+            } catch (RuntimeException e) {
+                failures.increment();
+                backoff = backoff.isZero() ? props.getInitialBackoff() : min(backoff.multipliedBy(2), props.getMaxBackoff());
+                pausedUntilNanos = System.nanoTime() + backoff.toNanos();
+                log.warn("Outbox sink rejected a batch, pausing relay for {}: {}", backoff, e.getMessage());
+                break;
+            }
+            backoff = Duration.ZERO;
+            total += n;
+            if (n < props.getBatchSize()) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.debug("Relayed {} outbox events", total);
+        }
+        return total;
+    }
+
+    private int publishBatch() {
+        List<OutboxEvent> batch = outboxRepo.claim(props.getBatchSize());
+        if (batch.isEmpty()) {
+            lagMillis.set(0);
+            return 0;
+        }
+        lagMillis.set(Math.max(0, Duration.between(batch.get(0).getCreatedAt(), OffsetDateTime.now()).toMillis()));
+        try {
+            sink.publish(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing outbox events", e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        outboxRepo.deleteAll(batch);
+        published.increment(batch.size());
+        return batch.size();
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
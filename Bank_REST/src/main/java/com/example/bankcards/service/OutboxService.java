@@ -0,0 +1,64 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.OutboxEvent;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.mapper.TransferMapper;
+import com.example.bankcards.repository.OutboxJdbcRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes domain events to the outbox table in the transaction that produced them, so an event exists
+ * if and only if the change was committed. {@link OutboxRelay} publishes them afterwards.
+ */
+@Service
+public class OutboxService {
+
+    static final String TRANSFER_AGGREGATE = "transfer";
+    static final String TRANSFER_COMPLETED = "TransferCompleted";
+
+    private final OutboxJdbcRepository outboxRepo;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxJdbcRepository outboxRepo, ObjectMapper objectMapper) {
+        this.outboxRepo = outboxRepo;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void transferCompleted(Transfer tr) {
+        transfersCompleted(List.of(tr));
+    }
+
+    /**
+     * One TransferCompleted event per transfer; transfers must already have ids.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void transfersCompleted(List<Transfer> transfers) {
+        List<OutboxEvent> events = new ArrayList<>(transfers.size());
+        for (Transfer tr : transfers) {
+            OutboxEvent e = new OutboxEvent();
+            e.setAggregateType(TRANSFER_AGGREGATE);
+            e.setAggregateId(tr.getId());
+            e.setEventType(TRANSFER_COMPLETED);
+            e.setPayload(toJson(tr));
+            e.setCreatedAt(tr.getCreatedAt());
+            events.add(e);
+        }
+        outboxRepo.insertAll(events);
+    }
+
+    private String toJson(Transfer tr) {
+        try {
+            return objectMapper.writeValueAsString(TransferMapper.toResponse(tr));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize transfer " + tr.getId(), e);
+        }
+    }
+}
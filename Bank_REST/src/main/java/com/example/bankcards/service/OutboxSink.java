@@ -0,0 +1,22 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Destination of outbox events. A sink either accepts the whole batch or throws; a rejected batch stays
+ * in the outbox and the relay backs off before trying again, so delivery is at-least-once.
+ */
+public interface OutboxSink {
+
+    void publish(List<OutboxEvent> batch) throws Exception;
+
+    /**
+     * Whether published events survive a restart of this instance; the relay deletes them from the outbox
+     * once published, so a non-durable sink loses them unless something consumes it in time.
+     */
+    default boolean durable() {
+        return true;
+    }
+}
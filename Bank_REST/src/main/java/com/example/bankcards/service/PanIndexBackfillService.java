@@ -0,0 +1,90 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.CryptoProperties;
+import com.example.bankcards.repository.CardPanJdbcRepository;
+import com.example.bankcards.repository.CardPanJdbcRepository.PanRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills cards.pan_index for cards created before the blind index existed. Walks the unindexed cards in
+ * id order one chunk at a time; each chunk is decrypted in memory and written back with one JDBC batch,
+ * so the job can be stopped and started again at any point. Cards whose PAN is already indexed on another card
+ * (duplicates in old data, or a card created with the same PAN while the job runs) stay unindexed.
+ */
+@Service
+public class PanIndexBackfillService {
+
+    private static final Logger log = LoggerFactory.getLogger(PanIndexBackfillService.class);
+
+    private final CardPanJdbcRepository cardPans;
+    private final CryptoService crypto;
+    private final CryptoProperties props;
+
+    public PanIndexBackfillService(CardPanJdbcRepository cardPans, CryptoService crypto, CryptoProperties props) {
+        this.cardPans = cardPans;
+        this.crypto = crypto;
+        this.props = props;
+    }
+
+    /**
+     * @return number of cards indexed
+     */
+    public int backfill() {
+        int indexed = 0;
+        int skipped = 0;
+        long after = 0;
+        while (true) {
+            List<PanRow> chunk = cardPans.unindexedChunk(after, props.getPanIndexBackfillChunkSize());
+            if (chunk.isEmpty()) {
+                break;
+            }
+            List<Long> ids = new ArrayList<>(chunk.size());
+            List<byte[]> indexes = new ArrayList<>(chunk.size());
+            for (PanRow r : chunk) {
+                try {
+                    indexes.add(crypto.blindIndexOf(r.encryptedPan()));
+                    ids.add(r.cardId());
+                } catch (RuntimeException e) {
+                    log.warn("Card {} has an encrypted PAN that cannot be read, not indexing it", r.cardId());
+                    skipped++;
+                }
+            }
+            int n;
+            try {
+                n = cardPans.setPanIndexes(ids, indexes);
+            } catch (DataIntegrityViolationException e) {
+                if (!CardService.isPanIndexConflict(e)) {
+                    throw e;
+                }
+                // a card with one of these PANs was created meanwhile: index row by row, leaving that one out
+                n = setOneByOne(ids, indexes);
+            }
+            indexed += n;
+            skipped += ids.size() - n;
+            after = chunk.get(chunk.size() - 1).cardId();
+        }
+        log.info("PAN index backfill finished: indexed={}, skipped={}", indexed, skipped);
+        return indexed;
+    }
+
+    private int setOneByOne(List<Long> ids, List<byte[]> indexes) {
+        int n = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            try {
+                n += cardPans.setPanIndex(ids.get(i), indexes.get(i));
+            } catch (DataIntegrityViolationException e) {
+                if (!CardService.isPanIndexConflict(e)) {
+                    throw e;
+                }
+                log.warn("Card {} has a PAN that is already indexed on another card, not indexing it", ids.get(i));
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.CryptoProperties;
+import com.example.bankcards.dto.crypto.ReencryptionStatus;
+import com.example.bankcards.entity.PanReencryptionCheckpoint;
+import com.example.bankcards.entity.PanReencryptionTarget;
+import com.example.bankcards.repository.CardPanJdbcRepository;
+import com.example.bankcards.repository.CardPanJdbcRepository.PanRow;
+import com.example.bankcards.repository.PanReencryptionCheckpointRepository;
+import com.example.bankcards.repository.PanReencryptionTargetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Moves card PANs encrypted with an older key version to the active one. Each run takes the next chunk of
+ * cards in id order after the checkpoint, re-encrypts the stale ones on a small thread pool, writes them
+ * back in one JDBC batch and advances the checkpoint in the same transaction, so a restart continues where
+ * the last committed chunk ended.
+ * <p>
+ * The key to move to comes from the shared {@link PanReencryptionTarget} row, locked per chunk, so instances
+ * take turns. During a rolling key switch old and new instances have different active keys: an instance may
+ * only switch the target while it is still in the generation it first saw, so the first new instance switches
+ * it once and the old ones then wait instead of switching it back. Every switch starts a new generation; a
+ * checkpoint of an earlier generation (A -> B -> A) starts over, since it no longer says where the key stands.
+ * Once the target key is done, or belongs to a newer generation this instance does not follow, the job rests
+ * for app.crypto.reencryption.idle-check-interval between checks.
+ * Metrics: crypto.reencryption.rows, crypto.reencryption.skipped, crypto.reencryption.rate (rows/s of the last chunk).
+ */
+@Component
+public class PanReencryptionWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(PanReencryptionWorker.class);
+
+    private final CryptoService crypto;
+    private final CardPanJdbcRepository cardPans;
+    private final PanReencryptionCheckpointRepository checkpoints;
+    private final PanReencryptionTargetRepository targets;
+    private final CryptoProperties.Reencryption props;
+    private final TransactionTemplate tx;
+    private final ThreadPoolExecutor pool;
+    private final Counter reencryptedRows;
+    private final Counter skippedRows;
+    private volatile double rate;
+    // target generation this instance may still switch; null until the first chunk
+    private Long joinedGeneration;
+    private volatile long idleUntil;
+
+    public PanReencryptionWorker(CryptoService crypto,
+                                 CardPanJdbcRepository cardPans,
+                                 PanReencryptionCheckpointRepository checkpoints,
+                                 PanReencryptionTargetRepository targets,
+                                 CryptoProperties props,
+                                 PlatformTransactionManager txManager,
+                                 MeterRegistry registry) {
+        this.crypto = crypto;
+        this.cardPans = cardPans;
+        this.checkpoints = checkpoints;
+        this.targets = targets;
+        this.props = props.getReencryption();
+        this.tx = new TransactionTemplate(txManager);
+        int threads = Math.max(1, this.props.getThreads());
+        AtomicInteger seq = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "pan-reencryption-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.pool.allowCoreThreadTimeOut(true);
+        this.reencryptedRows = Counter.builder("crypto.reencryption.rows").register(registry);
+        this.skippedRows = Counter.builder("crypto.reencryption.skipped").register(registry);
+        Gauge.builder("crypto.reencryption.rate", this, w -> w.rate).register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.crypto.reencryption.chunk-delay:PT0.2S}")
+    public void run() {
+        if (!props.isEnabled() || System.nanoTime() - idleUntil < 0) {
+            return;
+        }
+        try {
+            if (!runChunk()) {
+                idleUntil = System.nanoTime() + props.getIdleCheckInterval().toNanos();
+            }
+        } catch (RuntimeException e) {
+            log.error("PAN re-encryption chunk failed, retrying on the next run", e);
+        }
+    }
+
+    /**
+     * Processes the next chunk for the shared target key, switching the target to this instance's active key
+     * if it may.
+     *
+     * @return false once every card has been checked against the target key, or when the target is a key
+     * this instance does not follow
+     */
+    public synchronized boolean runChunk() {
+        int local = crypto.activeKeyId();
+        // taken over only once the transaction has committed, a rolled back switch must not count
+        long[] generation = new long[1];
+        Boolean more = tx.execute(status -> {
+            OffsetDateTime now = OffsetDateTime.now();
+            PanReencryptionTarget t = targets.findForUpdate(PanReencryptionTarget.ID).orElseGet(() -> {
+                targets.insertIfAbsent(PanReencryptionTarget.ID, local, now);
+                return targets.findForUpdate(PanReencryptionTarget.ID).orElseThrow();
+            });
+            long joined = joinedGeneration == null ? t.getGeneration() : joinedGeneration;
+            generation[0] = joined;
+            if (t.getTargetKeyId() != local) {
+                if (t.getGeneration() != joined) {
+                    log.debug("PAN re-encryption target is key {} (generation {}), this instance uses key {}",
+                            t.getTargetKeyId(), t.getGeneration(), local);
+                    return false;
+                }
+                t.setTargetKeyId(local);
+                t.setGeneration(t.getGeneration() + 1);
+                t.setSwitchedAt(now);
+                log.info("PAN re-encryption target switched to key {}, generation {}", local, t.getGeneration());
+            }
+            generation[0] = t.getGeneration();
+
+            int target = t.getTargetKeyId();
+            PanReencryptionCheckpoint cp = checkpoints.findById(target).orElseGet(() -> {
+                checkpoints.insertIfAbsent(target, t.getGeneration(), now);
+                return checkpoints.findById(target).orElseThrow();
+            });
+            if (cp.getGeneration() != t.getGeneration()) {
+                // the key was switched away and back (A -> B -> A): cards before the checkpoint may be on B now
+                log.info("Key {} is the target again, restarting its PAN re-encryption from the first card", target);
+                cp.setGeneration(t.getGeneration());
+                cp.setLastCardId(0);
+                cp.setReencrypted(0);
+                cp.setSkipped(0);
+                cp.setStartedAt(now);
+                cp.setFinishedAt(null);
+            }
+            if (cp.getFinishedAt() != null) {
+                return false;
+            }
+            long started = System.nanoTime();
+            List<PanRow> rows = cardPans.chunk(cp.getLastCardId(), props.getChunkSize());
+            cp.setUpdatedAt(now);
+            if (rows.isEmpty()) {
+                cp.setFinishedAt(now);
+                checkpoints.save(cp);
+                rate = 0;
+                log.info("PAN re-encryption to key {} finished: reencrypted={}, skipped={}",
+                        target, cp.getReencrypted(), cp.getSkipped());
+                return false;
+            }
+
+            List<PanRow> stale = new ArrayList<>();
+            long skipped = 0;
+            for (PanRow r : rows) {
+                int keyId;
+                try {
+                    keyId = CryptoService.keyIdOf(r.encryptedPan());
+                } catch (IllegalArgumentException e) {
+                    log.warn("Card {} has an unreadable encrypted PAN, skipping it", r.cardId());
+                    skipped++;
+                    continue;
+                }
+                if (keyId == target) {
+                    continue;
+                }
+                if (!crypto.hasKey(keyId)) {
+                    log.warn("Card {} is encrypted with key {} which is not configured, skipping it", r.cardId(), keyId);
+                    skipped++;
+                    continue;
+                }
+                stale.add(r);
+            }
+
+            int updated = cardPans.replaceAll(stale, reencrypt(stale));
+            cp.setLastCardId(rows.get(rows.size() - 1).cardId());
+            cp.setReencrypted(cp.getReencrypted() + updated);
+            cp.setSkipped(cp.getSkipped() + skipped);
+            checkpoints.save(cp);
+
+            reencryptedRows.increment(updated);
+            skippedRows.increment(skipped);
+            rate = updated / Math.max(1e-9, (System.nanoTime() - started) / 1e9);
+            log.debug("PAN re-encryption to key {}: cards up to {} done, reencrypted={}",
+                    target, cp.getLastCardId(), updated);
+            return true;
+        });
+        joinedGeneration = generation[0];
+        return Boolean.TRUE.equals(more);
+    }
+
+    public ReencryptionStatus status() {
+        int target = targets.findById(PanReencryptionTarget.ID)
+                .map(PanReencryptionTarget::getTargetKeyId)
+                .orElse(crypto.activeKeyId());
+        ReencryptionStatus s = new ReencryptionStatus();
+        s.setTargetKeyId(target);
+        s.setRowsPerSecond(rate);
+        checkpoints.findById(target).ifPresent(cp -> {
+            s.setLastCardId(cp.getLastCardId());
+            s.setReencrypted(cp.getReencrypted());
+            s.setSkipped(cp.getSkipped());
+            s.setStartedAt(cp.getStartedAt());
+            s.setUpdatedAt(cp.getUpdatedAt());
+            s.setFinishedAt(cp.getFinishedAt());
+        });
+        return s;
+    }
+
+    // splits the rows into one slice per thread; the result is in row order
+    private List<byte[]> reencrypt(List<PanRow> rows) {
+        byte[][] out = new byte[rows.size()][];
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        int slices = Math.min(pool.getMaximumPoolSize(), rows.size());
+        int per = (rows.size() + slices - 1) / slices;
+        List<Future<?>> futures = new ArrayList<>(slices);
+        for (int from = 0; from < rows.size(); from += per) {
+            int start = from;
+            int end = Math.min(rows.size(), from + per);
+            futures.add(pool.submit(() -> {
+                for (int i = start; i < end; i++) {
+                    out[i] = crypto.reencrypt(rows.get(i).encryptedPan());
+                }
+            }));
+        }
+        try {
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Interrupted while re-encrypting", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Re-encryption failed", e.getCause());
+        }
+        return Arrays.asList(out);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.transfer.TransferRequest;
+import com.example.bankcards.dto.transfer.TransferResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A transfer handed over to a background writer; the future completes once its group has committed.
+ */
+final class PendingTransfer {
+
+    final Long userId;
+    final TransferRequest request;
+    final String idempotencyKey;
+    final CompletableFuture<TransferResponse> result = new CompletableFuture<>();
+
+    PendingTransfer(Long userId, TransferRequest request, String idempotencyKey) {
+        this.userId = userId;
+        this.request = request;
+        this.idempotencyKey = idempotencyKey;
+    }
+}
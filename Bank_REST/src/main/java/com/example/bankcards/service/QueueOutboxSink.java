@@ -0,0 +1,46 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.OutboxProperties;
+import com.example.bankcards.entity.OutboxEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded in-memory stand-in for a message broker (tests, local runs); consumers take from {@link #queue()}.
+ * When consumers fall behind the queue fills up and publish fails, which makes the relay back off.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "queue")
+public class QueueOutboxSink implements OutboxSink {
+
+    private final BlockingQueue<OutboxEvent> queue;
+    private final long offerTimeoutMillis;
+
+    public QueueOutboxSink(OutboxProperties props) {
+        this.queue = new ArrayBlockingQueue<>(props.getQueueCapacity());
+        this.offerTimeoutMillis = props.getQueueOfferTimeout().toMillis();
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> batch) throws InterruptedException {
+        for (OutboxEvent e : batch) {
+            if (!queue.offer(e, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Outbox queue is full");
+            }
+        }
+    }
+
+    @Override
+    public boolean durable() {
+        return false;
+    }
+
+    public BlockingQueue<OutboxEvent> queue() {
+        return queue;
+    }
+}
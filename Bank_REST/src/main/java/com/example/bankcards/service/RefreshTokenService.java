@@ -0,0 +1,120 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.JwtProperties;
+import com.example.bankcards.entity.RefreshToken;
+import com.example.bankcards.exception.UnauthorizedException;
+import com.example.bankcards.repository.RefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Opaque refresh tokens with rotation: a token can be used once, and using it again revokes its family.
+ * Only SHA-256 hashes are stored, so the table is useless to whoever reads it.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private final RefreshTokenRepository repo;
+    private final JwtProperties props;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository repo, JwtProperties props) {
+        this.repo = repo;
+        this.props = props;
+    }
+
+    /**
+     * Starts a new token family, e.g. on login.
+     */
+    @Transactional
+    public String issue(Long userId) {
+        return save(userId, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Revokes {@code raw} and returns its successor.
+     *
+     * @throws UnauthorizedException for unknown, expired or already used tokens
+     */
+    @Transactional(noRollbackFor = UnauthorizedException.class)
+    public Rotation rotate(String raw) {
+        RefreshToken current = repo.findByTokenHashForUpdate(hash(raw))
+                .orElseThrow(() -> new UnauthorizedException("Invalid refresh token"));
+        OffsetDateTime now = OffsetDateTime.now();
+        if (current.getRevokedAt() != null) {
+            int revoked = repo.revokeFamily(current.getFamilyId(), now);
+            log.warn("Reuse of revoked refresh token: userId={}, family={}, revokedNow={}",
+                    current.getUserId(), current.getFamilyId(), revoked);
+            throw new UnauthorizedException("Refresh token was already used");
+        }
+        if (!current.getExpiresAt().isAfter(now)) {
+            throw new UnauthorizedException("Refresh token expired");
+        }
+        current.setRevokedAt(now);
+        return new Rotation(current.getUserId(), save(current.getUserId(), current.getFamilyId()));
+    }
+
+    /**
+     * Revokes the family of {@code raw} (logout); unknown tokens are ignored.
+     */
+    @Transactional
+    public void revoke(String raw) {
+        repo.findByTokenHash(hash(raw))
+                .ifPresent(t -> repo.revokeFamily(t.getFamilyId(), OffsetDateTime.now()));
+    }
+
+    @Transactional
+    public void revokeAll(Long userId) {
+        int revoked = repo.revokeAllByUserId(userId, OffsetDateTime.now());
+        log.info("Revoked {} refresh tokens of user {}", revoked, userId);
+    }
+
+    @Scheduled(cron = "${app.jwt.refresh-token-cleanup-cron:0 17 * * * *}")
+    @Transactional
+    public void deleteExpired() {
+        int deleted = repo.deleteExpired(OffsetDateTime.now());
+        if (deleted > 0) {
+            log.info("Deleted {} expired refresh tokens", deleted);
+        }
+    }
+
+    private String save(Long userId, String familyId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String raw = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken t = new RefreshToken();
+        t.setUserId(userId);
+        t.setFamilyId(familyId);
+        t.setTokenHash(hash(raw));
+        t.setExpiresAt(t.getCreatedAt().plus(props.getRefreshTokenTtl()));
+        repo.save(t);
+        return raw;
+    }
+
+    private static String hash(String raw) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(raw.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record Rotation(Long userId, String refreshToken) {
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.TransferProperties;
+import com.example.bankcards.dto.transfer.TransferRequest;
+import com.example.bankcards.dto.transfer.TransferResponse;
+import com.example.bankcards.exception.ServiceUnavailableException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Routes transfers to a fixed set of single-writer queues keyed by the source card id.
+ * Transfers from the same card are applied one after another by one thread, so they never
+ * wait on each other's row lock in the database, and each writer commits whatever has queued
+ * up (up to max-group-size) in one transaction via {@link TransferGroupCommitter}.
+ * Writers still meet on shared cards (a destination, or a card that is the source on another
+ * stripe); the committer locks each group's cards in id order, so they wait but never deadlock.
+ * Request threads only wait on a future and hold no JDBC connection meanwhile.
+ * Writer threads are started on first use.
+ */
+@Service
+public class SerializedTransferExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(SerializedTransferExecutor.class);
+
+    private final TransferGroupCommitter committer;
+    private final TransferProperties.Serialized props;
+    private volatile Stripe[] stripes;
+
+    public SerializedTransferExecutor(TransferGroupCommitter committer, TransferProperties props) {
+        this.committer = committer;
+        this.props = props.getSerialized();
+    }
+
+    public CompletableFuture<TransferResponse> submit(Long userId, TransferRequest req, String idempotencyKey) {
+        Stripe[] s = stripes();
+        PendingTransfer p = new PendingTransfer(userId, req, idempotencyKey);
+        Stripe stripe = s[stripeOf(req.getFromCardId(), s.length)];
+        if (!stripe.queue.offer(p)) {
+            log.warn("Transfer queue {} is full, rejecting transfer from card {}", stripe.index, req.getFromCardId());
+            p.result.completeExceptionally(new ServiceUnavailableException("Transfer queue is full, retry later"));
+        }
+        return p.result;
+    }
+
+    static int stripeOf(Long cardId, int stripes) {
+        // spread sequential ids over the stripes
+        long h = cardId * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(h ^ (h >>> 32), (long) stripes);
+    }
+
+    private Stripe[] stripes() {
+        Stripe[] s = stripes;
+        if (s == null) {
+            synchronized (this) {
+                s = stripes;
+                if (s == null) {
+                    s = new Stripe[props.getStripes()];
+                    for (int i = 0; i < s.length; i++) {
+                        s[i] = new Stripe(i, props.getQueueCapacity());
+                        s[i].thread.start();
+                    }
+                    stripes = s;
+                    log.info("Started {} serialized transfer writers (queueCapacity={}, maxGroupSize={})",
+                            s.length, props.getQueueCapacity(), props.getMaxGroupSize());
+                }
+            }
+        }
+        return s;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        Stripe[] s = stripes;
+        if (s == null) {
+            return;
+        }
+        for (Stripe stripe : s) {
+            stripe.thread.interrupt();
+        }
+        for (Stripe stripe : s) {
+            List<PendingTransfer> left = new ArrayList<>();
+            stripe.queue.drainTo(left);
+            left.forEach(p -> p.result.completeExceptionally(
+                    new ServiceUnavailableException("Transfer executor is shutting down")));
+        }
+    }
+
+    private final class Stripe implements Runnable {
+        private final int index;
+        private final BlockingQueue<PendingTransfer> queue;
+        private final Thread thread;
+
+        private Stripe(int index, int capacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.thread = new Thread(this, "transfer-writer-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            int maxGroup = Math.max(1, props.getMaxGroupSize());
+            while (!Thread.currentThread().isInterrupted()) {
+                List<PendingTransfer> group = new ArrayList<>(maxGroup);
+                try {
+                    group.add(queue.take());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                queue.drainTo(group, maxGroup - 1);
+                try {
+                    committer.commit(group);
+                } catch (RuntimeException e) {
+                    log.error("Transfer writer {} failed to commit a group of {}", index, group.size(), e);
+                    group.forEach(p -> p.result.completeExceptionally(e));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardBalanceStripe;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.exception.NotFoundException;
+import com.example.bankcards.repository.CardBalanceStripeRepository;
+import com.example.bankcards.repository.CardRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sub-balances of striped cards (opt-in per card, for cards with a large fan-in of credits).
+ * A credit is added to one of N stripe rows, picked by hash of the sender and the calling thread,
+ * so concurrent credits to the same card mostly touch different rows and do not lock the card row.
+ * A debit that cannot be covered by cards.balance first sweeps all stripes into it under row locks.
+ */
+@Service
+public class StripedBalanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(StripedBalanceService.class);
+
+    private final CardBalanceStripeRepository stripeRepo;
+    private final CardRepository cardRepo;
+
+    public StripedBalanceService(CardBalanceStripeRepository stripeRepo, CardRepository cardRepo) {
+        this.stripeRepo = stripeRepo;
+        this.cardRepo = cardRepo;
+    }
+
+    /**
+     * Credits one stripe of the card if it is owned by {@code ownerId} and active.
+     *
+     * @return false if nothing was credited (card not active, or its stripes changed meanwhile)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean credit(Long cardId, int stripes, Long ownerId, Long fromCardId, BigDecimal amount) {
+        int stripe = stripeFor(fromCardId, stripes);
+        return stripeRepo.creditIfActive(cardId, stripe, ownerId, amount, CardStatus.ACTIVE) == 1;
+    }
+
+    /**
+     * Locks the card's stripes, zeroes them and returns what they held; the caller adds it to cards.balance
+     * in the same transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public BigDecimal sweep(Long cardId) {
+        stripeRepo.lockAllByCardId(cardId);
+        BigDecimal total = stripeRepo.sumByCardId(cardId);
+        if (total.signum() != 0) {
+            stripeRepo.zeroAllByCardId(cardId);
+        }
+        log.debug("Swept stripes of card {}: total={}", cardId, total);
+        return total;
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal total(Long cardId) {
+        return stripeRepo.sumByCardId(cardId);
+    }
+
+    /**
+     * Changes the number of stripes of a card; existing stripe balances are moved into cards.balance first.
+     */
+    @Transactional
+    public Card configure(Long cardId, int stripes) {
+        // the card row lock keeps transfers to this card out until the new stripes are in place
+        Card card = cardRepo.findByIdForUpdate(cardId).orElseThrow(() -> new NotFoundException("Card not found"));
+
+        card.setBalance(card.getBalance().add(sweep(cardId)));
+        stripeRepo.deleteAllByCardId(cardId);
+
+        List<CardBalanceStripe> rows = new ArrayList<>(stripes);
+        for (int i = 0; i < stripes; i++) {
+            CardBalanceStripe s = new CardBalanceStripe();
+            s.setCardId(cardId);
+            s.setStripeNo(i);
+            rows.add(s);
+        }
+        stripeRepo.saveAll(rows);
+        card.setBalanceStripes(stripes);
+
+        log.info("Card {} now has {} balance stripes", cardId, stripes);
+        return card;
+    }
+
+    static int stripeFor(Long fromCardId, int stripes) {
+        long h = (fromCardId * 0x9E3779B97F4A7C15L) ^ (Thread.currentThread().getId() * 0xC2B2AE3D27D4EB4FL);
+        return (int) Math.floorMod(h ^ (h >>> 31), (long) stripes);
+    }
+}
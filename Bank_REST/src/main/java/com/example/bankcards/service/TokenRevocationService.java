@@ -0,0 +1,155 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.JwtProperties;
+import com.example.bankcards.entity.RevokedToken;
+import com.example.bankcards.repository.RevokedTokenRepository;
+import com.example.bankcards.util.BloomFilter;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Revocation of otherwise valid tokens (logout, user blocked, role changed) without a database
+ * lookup per request. Revocations are stored in revoked_tokens and mirrored into an in-memory
+ * Bloom filter over jti and user id; only a filter hit is checked against the table.
+ * The filter is refreshed incrementally from the table, so revocations made by other instances
+ * take effect within one refresh interval, and rebuilt periodically to drop expired entries.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final RevokedTokenRepository repo;
+    private final JwtProperties props;
+    private final JwtProperties.Revocation revocation;
+    private final TransactionTemplate tx;
+
+    // null until the first load; every token is then checked against the table
+    private volatile BloomFilter filter;
+    private OffsetDateTime lastRefresh;
+    private OffsetDateTime lastRebuild;
+
+    public TokenRevocationService(RevokedTokenRepository repo, JwtProperties props, PlatformTransactionManager txManager) {
+        this.repo = repo;
+        this.props = props;
+        this.revocation = props.getRevocation();
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    public boolean isRevoked(Claims claims) {
+        String jti = claims.getId();
+        Long userId = claims.get(JwtService.CLAIM_USER_ID, Long.class);
+        BloomFilter f = filter;
+        if (f != null
+                && (jti == null || !f.mightContain(jti))
+                && (userId == null || !f.mightContain(userId))) {
+            return false;
+        }
+        if (jti != null && repo.existsByJti(jti)) {
+            return true;
+        }
+        Instant issuedAt = issuedAt(claims);
+        return userId != null && issuedAt != null
+                && repo.existsByUserIdAndRevokedAtGreaterThanEqual(userId,
+                OffsetDateTime.ofInstant(issuedAt, ZoneOffset.UTC));
+    }
+
+    /**
+     * Microsecond issue time, so a token issued right after a user revocation (a refresh after
+     * re-enabling, say) is not caught by it; tokens without the claim fall back to iat.
+     */
+    private static Instant issuedAt(Claims claims) {
+        Long micros = claims.get(JwtService.CLAIM_ISSUED_AT_MICROS, Long.class);
+        if (micros != null) {
+            return Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+        }
+        Date iat = claims.getIssuedAt();
+        return iat == null ? null : iat.toInstant();
+    }
+
+    /**
+     * Revokes one token until it expires.
+     */
+    @Transactional
+    public void revokeToken(String jti, Date expiresAt) {
+        RevokedToken r = new RevokedToken();
+        r.setJti(jti);
+        r.setExpiresAt(OffsetDateTime.ofInstant(expiresAt.toInstant(), ZoneOffset.UTC));
+        repo.save(r);
+        add(r);
+        log.info("Token revoked: jti={}", jti);
+    }
+
+    /**
+     * Revokes every token of the user issued so far; tokens issued afterwards are not affected.
+     */
+    @Transactional
+    public void revokeUser(Long userId) {
+        RevokedToken r = new RevokedToken();
+        r.setUserId(userId);
+        // no token issued before now outlives this
+        r.setExpiresAt(r.getRevokedAt().plusMinutes(props.getExpirationMinutes()));
+        repo.save(r);
+        add(r);
+        log.info("All tokens of user {} revoked", userId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.refresh-interval:PT1S}")
+    public synchronized void refresh() {
+        OffsetDateTime now = OffsetDateTime.now();
+        BloomFilter f = filter;
+        if (f == null || !now.isBefore(lastRebuild.plus(revocation.getRebuildInterval()))) {
+            rebuild(now);
+            return;
+        }
+        List<RevokedToken> rows = repo.findActiveSince(lastRefresh.minus(revocation.getRefreshOverlap()), now);
+        rows.forEach(r -> add(f, r));
+        lastRefresh = now;
+    }
+
+    private void rebuild(OffsetDateTime now) {
+        List<RevokedToken> rows = tx.execute(status -> {
+            int deleted = repo.deleteExpired(now);
+            if (deleted > 0) {
+                log.debug("Deleted {} expired revocations", deleted);
+            }
+            return repo.findActiveSince(OffsetDateTime.ofInstant(Instant.EPOCH, ZoneOffset.UTC), now);
+        });
+        BloomFilter f = new BloomFilter(Math.max(revocation.getExpectedEntries(), 2L * rows.size()),
+                revocation.getFalsePositiveRate());
+        rows.forEach(r -> add(f, r));
+        filter = f;
+        lastRefresh = now;
+        lastRebuild = now;
+        log.debug("Revocation filter rebuilt with {} entries", rows.size());
+    }
+
+    private void add(RevokedToken r) {
+        BloomFilter f = filter;
+        if (f != null) {
+            add(f, r);
+        }
+    }
+
+    private static void add(BloomFilter f, RevokedToken r) {
+        if (r.getJti() != null) {
+            f.add(r.getJti());
+        }
+        if (r.getUserId() != null) {
+            f.add(r.getUserId());
+        }
+    }
+}
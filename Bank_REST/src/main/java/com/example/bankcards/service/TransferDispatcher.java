@@ -0,0 +1,72 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.TransferProperties;
+import com.example.bankcards.dto.transfer.TransferRequest;
+import com.example.bankcards.dto.transfer.TransferResponse;
+import com.example.bankcards.exception.RetryableTransferException;
+import com.example.bankcards.exception.ServiceUnavailableException;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Entry point for single transfers; picks where the transfer runs according to app.transfer.dispatch.
+ */
+@Service
+public class TransferDispatcher {
+
+    private final TransferService transferService;
+    private final SerializedTransferExecutor serializedExecutor;
+    private final GroupCommitTransferPipeline groupCommitPipeline;
+    private final TransferProperties props;
+
+    public TransferDispatcher(TransferService transferService,
+                              SerializedTransferExecutor serializedExecutor,
+                              GroupCommitTransferPipeline groupCommitPipeline,
+                              TransferProperties props) {
+        this.transferService = transferService;
+        this.serializedExecutor = serializedExecutor;
+        this.groupCommitPipeline = groupCommitPipeline;
+        this.props = props;
+    }
+
+    public TransferResponse transfer(Long userId, TransferRequest req, String idempotencyKey) {
+        return switch (props.getDispatch()) {
+            case DIRECT -> direct(userId, req, idempotencyKey);
+            case SERIALIZED -> await(serializedExecutor.submit(userId, req, idempotencyKey),
+                    props.getSerialized().getTimeout().toMillis());
+            case GROUP_COMMIT -> await(groupCommitPipeline.submit(userId, req, idempotencyKey),
+                    props.getGroupCommit().getTimeout().toMillis());
+        };
+    }
+
+    private TransferResponse direct(Long userId, TransferRequest req, String idempotencyKey) {
+        try {
+            return idempotencyKey == null
+                    ? transferService.transfer(userId, req)
+                    : transferService.transfer(userId, req, idempotencyKey);
+        } catch (RetryableTransferException e) {
+            return transferService.transferExclusive(userId, req, idempotencyKey);
+        }
+    }
+
+    static TransferResponse await(Future<TransferResponse> future, long timeoutMillis) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // the transfer may still commit; a retry with the same Idempotency-Key is safe
+            throw new ServiceUnavailableException("Transfer is taking too long, retry later");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Transfer was interrupted");
+        }
+    }
+}
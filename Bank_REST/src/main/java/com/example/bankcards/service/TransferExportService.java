@@ -0,0 +1,154 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.TransferProperties;
+import com.example.bankcards.dto.transfer.TransferResponse;
+import com.example.bankcards.entity.TransferStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams transfers straight from a forward-only JDBC cursor to the response, oldest first.
+ * Rows are read {@code fetchSize} at a time inside a read-only transaction (PostgreSQL only uses a
+ * server-side cursor with autocommit off) and written out one by one; no entities are created.
+ */
+@Service
+public class TransferExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferExportService.class);
+
+    private static final String COLUMNS = "select id, from_card_id, to_card_id, amount, status, description, created_at from transfers";
+
+    public enum Format {NDJSON, CSV}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate readOnlyTx;
+    private final ObjectMapper objectMapper;
+
+    public TransferExportService(DataSource dataSource,
+                                 PlatformTransactionManager txManager,
+                                 ObjectMapper objectMapper,
+                                 TransferProperties props) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.jdbc.setFetchSize(props.getExport().getFetchSize());
+        this.readOnlyTx = new TransactionTemplate(txManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes the statement of one card (or of all cards when {@code cardId} is null) for [from, to) to {@code out}.
+     *
+     * @return number of rows written
+     */
+    public long export(Long cardId, OffsetDateTime from, OffsetDateTime to, Format format, OutputStream out) {
+        List<Object> args = new ArrayList<>();
+        String sql = buildQuery(cardId, from, to, args);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        long[] rows = {0};
+
+        readOnlyTx.executeWithoutResult(status -> {
+            try {
+                if (format == Format.CSV) {
+                    writer.write("id,from_card_id,to_card_id,amount,status,description,created_at\n");
+                }
+                jdbc.query(sql, rs -> {
+                    try {
+                        writeRow(rs, format, writer);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    rows[0]++;
+                }, args.toArray());
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        log.info("Exported {} transfers: cardId={}, from={}, to={}, format={}", rows[0], cardId, from, to, format);
+        return rows[0];
+    }
+
+    private String buildQuery(Long cardId, OffsetDateTime from, OffsetDateTime to, List<Object> args) {
+        StringBuilder range = new StringBuilder();
+        List<Object> rangeArgs = new ArrayList<>();
+        if (from != null) {
+            range.append(" and created_at >= ?");
+            rangeArgs.add(from);
+        }
+        if (to != null) {
+            range.append(" and created_at < ?");
+            rangeArgs.add(to);
+        }
+        if (cardId == null) {
+            args.addAll(rangeArgs);
+            return COLUMNS + " where 1 = 1" + range + " order by created_at, id";
+        }
+        // two index range scans instead of an OR over both card columns
+        args.add(cardId);
+        args.addAll(rangeArgs);
+        args.add(cardId);
+        args.add(cardId);
+        args.addAll(rangeArgs);
+        return "select * from (" +
+                COLUMNS + " where from_card_id = ?" + range +
+                " union all " +
+                COLUMNS + " where to_card_id = ? and from_card_id <> ?" + range +
+                ") t order by created_at, id";
+    }
+
+    private void writeRow(ResultSet rs, Format format, Writer w) throws SQLException, IOException {
+        TransferResponse r = new TransferResponse();
+        r.setId(rs.getLong("id"));
+        r.setFromCardId(rs.getLong("from_card_id"));
+        r.setToCardId(rs.getLong("to_card_id"));
+        r.setAmount(rs.getBigDecimal("amount"));
+        r.setStatus(TransferStatus.valueOf(rs.getString("status")));
+        r.setDescription(rs.getString("description"));
+        r.setCreatedAt(rs.getObject("created_at", OffsetDateTime.class));
+
+        if (format == Format.NDJSON) {
+            w.write(objectMapper.writeValueAsString(r));
+            w.write('\n');
+            return;
+        }
+        w.write(String.valueOf(r.getId()));
+        w.write(',');
+        w.write(String.valueOf(r.getFromCardId()));
+        w.write(',');
+        w.write(String.valueOf(r.getToCardId()));
+        w.write(',');
+        w.write(r.getAmount().toPlainString());
+        w.write(',');
+        w.write(r.getStatus().name());
+        w.write(',');
+        w.write(csv(r.getDescription()));
+        w.write(',');
+        w.write(r.getCreatedAt().toString());
+        w.write('\n');
+    }
+
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
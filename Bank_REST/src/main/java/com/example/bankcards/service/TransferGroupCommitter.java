@@ -0,0 +1,183 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.TransferProperties;
+import com.example.bankcards.dto.transfer.TransferResponse;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.exception.RetryableTransferException;
+import com.example.bankcards.repository.CardRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Savepoint;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Commits a group of pending transfers in one database transaction.
+ * The group first locks every card it touches, sources and destinations, in ascending id order. Groups of
+ * different writers may share cards (A -> B in one, B -> A in another), and taking the locks item by item
+ * would let them deadlock on each other. As in a single pessimistic transfer, a card that is only credited
+ * and has balance stripes gets a shared lock, so groups crediting the same striped card do not wait on each
+ * other; an item that finds such a card changed is committed again on its own with exclusive locks. Under the
+ * LEDGER engine every card that is only credited is locked for share.
+ * Every item runs inside its own savepoint, so a business failure (insufficient funds, blocked card...)
+ * only rolls back that item. If the group transaction itself fails (deadlock, lock timeout, constraint
+ * violation), nothing of it is committed and the items are retried one transaction each.
+ * Futures are completed only after the outcome is durable.
+ */
+@Component
+public class TransferGroupCommitter {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferGroupCommitter.class);
+
+    private final TransferService transferService;
+    private final CardRepository cardRepo;
+    private final TransferProperties props;
+    private final EntityManager em;
+    private final TransactionTemplate groupTx;
+
+    public TransferGroupCommitter(TransferService transferService,
+                                  CardRepository cardRepo,
+                                  TransferProperties props,
+                                  EntityManager em,
+                                  PlatformTransactionManager txManager) {
+        this.transferService = transferService;
+        this.cardRepo = cardRepo;
+        this.props = props;
+        this.em = em;
+        this.groupTx = new TransactionTemplate(txManager);
+    }
+
+    void commit(List<PendingTransfer> group) {
+        if (group.size() == 1) {
+            commitAlone(group.get(0));
+            return;
+        }
+
+        int n = group.size();
+        TransferResponse[] done = new TransferResponse[n];
+        RuntimeException[] failed = new RuntimeException[n];
+        try {
+            groupTx.executeWithoutResult(status -> {
+                lockCards(group);
+                for (int i = 0; i < n; i++) {
+                    PendingTransfer p = group.get(i);
+                    try {
+                        done[i] = inSavepoint(() -> transferService.transferInCurrentTransaction(
+                                p.userId, p.request, p.idempotencyKey));
+                    } catch (RuntimeException e) {
+                        failed[i] = e;
+                        // entities may still carry the rolled back state; later items reload them
+                        em.clear();
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Group of {} transfers rolled back ({}), retrying one by one", n, e.toString());
+            group.forEach(this::commitAlone);
+            return;
+        }
+
+        log.debug("Committed group of {} transfers", n);
+        for (int i = 0; i < n; i++) {
+            if (failed[i] instanceof RetryableTransferException) {
+                commitExclusive(group.get(i));
+            } else if (failed[i] != null) {
+                group.get(i).result.completeExceptionally(failed[i]);
+            } else {
+                group.get(i).result.complete(done[i]);
+            }
+        }
+    }
+
+    // held until the group commits; the items' own locks on these rows are then no-ops
+    private void lockCards(List<PendingTransfer> group) {
+        SortedSet<Long> ids = new TreeSet<>();
+        Set<Long> debited = new HashSet<>();
+        for (PendingTransfer p : group) {
+            ids.add(p.request.getFromCardId());
+            ids.add(p.request.getToCardId());
+            debited.add(p.request.getFromCardId());
+        }
+        Set<Long> shared = new HashSet<>();
+        List<Long> creditedOnly = ids.stream().filter(id -> !debited.contains(id)).toList();
+        if (props.getEngine() == TransferProperties.Engine.LEDGER) {
+            shared.addAll(creditedOnly);
+        } else if (props.getEngine() == TransferProperties.Engine.PESSIMISTIC && !creditedOnly.isEmpty()) {
+            shared.addAll(cardRepo.findStripedIds(creditedOnly));
+        }
+
+        // one statement per run of ids with the same lock mode keeps the order ascending across both modes
+        List<Long> run = new ArrayList<>();
+        boolean runShared = false;
+        for (Long id : ids) {
+            boolean s = shared.contains(id);
+            if (!run.isEmpty() && s != runShared) {
+                lockRun(run, runShared);
+                run = new ArrayList<>();
+            }
+            run.add(id);
+            runShared = s;
+        }
+        lockRun(run, runShared);
+    }
+
+    private void lockRun(List<Long> ids, boolean shared) {
+        if (!shared) {
+            cardRepo.findAllByIdInForUpdate(ids);
+            return;
+        }
+        List<Card> cards = cardRepo.findAllByIdInForShare(ids);
+        if (props.getEngine() != TransferProperties.Engine.PESSIMISTIC) {
+            return;
+        }
+        for (Card c : cards) {
+            if (c.getBalanceStripes() == 0) {
+                // lost its stripes before the shared lock was granted; the whole group is retried one by one
+                throw new RetryableTransferException("Card " + c.getId() + " changed during the transfer, retry later");
+            }
+        }
+    }
+
+    /**
+     * HibernateJpaDialect does not expose savepoints to Spring (no PROPAGATION_NESTED with JPA),
+     * so they are set on the JDBC connection of the current session directly.
+     */
+    private TransferResponse inSavepoint(Supplier<TransferResponse> item) {
+        Session session = em.unwrap(Session.class);
+        Savepoint sp = session.doReturningWork(c -> c.setSavepoint());
+        try {
+            TransferResponse resp = item.get();
+            // push the item's changes before the savepoint is released
+            em.flush();
+            session.doWork(c -> c.releaseSavepoint(sp));
+            return resp;
+        } catch (RuntimeException e) {
+            session.doWork(c -> c.rollback(sp));
+            throw e;
+        }
+    }
+
+    private void commitAlone(PendingTransfer p) {
+        try {
+            p.result.complete(transferService.transfer(p.userId, p.request, p.idempotencyKey));
+        } catch (RetryableTransferException e) {
+            commitExclusive(p);
+        } catch (RuntimeException e) {
+            p.result.completeExceptionally(e);
+        }
+    }
+
+    private void commitExclusive(PendingTransfer p) {
+        try {
+            p.result.complete(transferService.transferExclusive(p.userId, p.request, p.idempotencyKey));
+        } catch (RuntimeException e) {
+            p.result.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.common.CursorSlice;
+import com.example.bankcards.dto.transfer.TransferResponse;
+import com.example.bankcards.exception.BusinessException;
+import com.example.bankcards.mapper.TransferMapper;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferJdbcRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.util.KeysetCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Transfer history with keyset pagination on (created_at, id), newest first.
+ * A user's history is one statement merging an outgoing and an incoming keyset scan per card of the user,
+ * each limited to size + 1 rows, so a deep page costs the same as the first one.
+ */
+@Service
+public class TransferHistoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferHistoryService.class);
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final TransferRepository transferRepo;
+    private final TransferJdbcRepository transferJdbc;
+    private final CardRepository cardRepo;
+
+    public TransferHistoryService(TransferRepository transferRepo,
+                                  TransferJdbcRepository transferJdbc,
+                                  CardRepository cardRepo) {
+        this.transferRepo = transferRepo;
+        this.transferJdbc = transferJdbc;
+        this.cardRepo = cardRepo;
+    }
+
+    @Transactional(readOnly = true)
+    public CursorSlice<TransferResponse> userHistory(Long userId, String cursor, int size) {
+        checkSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<Long> cardIds = cardRepo.findIdsByOwnerId(userId);
+        log.debug("Transfer history: userId={}, cards={}, after={}, size={}", userId, cardIds.size(), after, size);
+        return slice(byCards(cardIds, after, size), size);
+    }
+
+    /**
+     * All transfers, or only those of one card when {@code cardId} is given.
+     */
+    @Transactional(readOnly = true)
+    public CursorSlice<TransferResponse> adminHistory(Long cardId, String cursor, int size) {
+        checkSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<TransferResponse> rows = cardId == null
+                ? transferRepo.findAllBefore(after.createdAt(), after.id(), PageRequest.of(0, size + 1))
+                        .stream().map(TransferMapper::toResponse).toList()
+                : byCards(List.of(cardId), after, size);
+        return slice(rows, size);
+    }
+
+    // one extra row tells whether there is a next page
+    private List<TransferResponse> byCards(List<Long> cardIds, KeysetCursor after, int size) {
+        return transferJdbc.findByCardsBefore(cardIds, after.createdAt(), after.id(), size + 1);
+    }
+
+    private CursorSlice<TransferResponse> slice(List<TransferResponse> rows, int size) {
+        boolean hasNext = rows.size() > size;
+        List<TransferResponse> page = hasNext ? rows.subList(0, size) : rows;
+        String next = null;
+        if (hasNext) {
+            TransferResponse last = page.get(page.size() - 1);
+            next = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorSlice<>(page, size, next);
+    }
+
+    private static void checkSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BusinessException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.config.TransferProperties;
 import com.example.bankcards.dto.transfer.TransferRequest;
 import com.example.bankcards.dto.transfer.TransferResponse;
 import com.example.bankcards.entity.*;
 import com.example.bankcards.exception.BusinessException;
 import com.example.bankcards.exception.NotFoundException;
+import com.example.bankcards.exception.RetryableTransferException;
+import com.example.bankcards.mapper.TransferMapper;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.TransferRepository;
 import org.slf4j.Logger;
@@ -22,15 +25,66 @@ public class TransferService {
 
     private final CardRepository cardRepo;
     private final TransferRepository transferRepo;
+    private final TransferProperties props;
+    private final IdempotencyService idempotency;
+    private final LedgerService ledger;
+    private final StripedBalanceService stripes;
+    private final OutboxService outbox;
+    private final CardCache cardCache;
 
-    public TransferService(CardRepository cardRepo, TransferRepository transferRepo) {
+    public TransferService(CardRepository cardRepo,
+                           TransferRepository transferRepo,
+                           TransferProperties props,
+                           IdempotencyService idempotency,
+                           LedgerService ledger,
+                           StripedBalanceService stripes,
+                           OutboxService outbox,
+                           CardCache cardCache) {
         this.cardRepo = cardRepo;
         this.transferRepo = transferRepo;
+        this.props = props;
+        this.idempotency = idempotency;
+        this.ledger = ledger;
+        this.stripes = stripes;
+        this.outbox = outbox;
+        this.cardCache = cardCache;
     }
 
     @Transactional
     public TransferResponse transfer(Long userId, TransferRequest req) {
-        log.debug("Starting transfer: userId={}, request={}", userId, req);
+        return transferInCurrentTransaction(userId, req, null);
+    }
+
+    /**
+     * Same as {@link #transfer(Long, TransferRequest)}, additionally stores the Idempotency-Key
+     * in the same transaction so the key and the transfer commit (or roll back) together.
+     */
+    @Transactional
+    public TransferResponse transfer(Long userId, TransferRequest req, String idempotencyKey) {
+        return transferInCurrentTransaction(userId, req, idempotencyKey);
+    }
+
+    /**
+     * Transfer logic without its own transactional advice: the caller must already own a transaction.
+     * Used by the group committer, where a business failure must only roll back the item's savepoint
+     * instead of marking the whole group transaction rollback-only.
+     */
+    public TransferResponse transferInCurrentTransaction(Long userId, TransferRequest req, String idempotencyKey) {
+        return transferInCurrentTransaction(userId, req, idempotencyKey, false);
+    }
+
+    /**
+     * Reruns a transfer that failed with {@link RetryableTransferException}, in a new transaction that locks both
+     * cards exclusively and credits cards.balance even for a striped destination.
+     */
+    @Transactional
+    public TransferResponse transferExclusive(Long userId, TransferRequest req, String idempotencyKey) {
+        return transferInCurrentTransaction(userId, req, idempotencyKey, true);
+    }
+
+    private TransferResponse transferInCurrentTransaction(Long userId, TransferRequest req, String idempotencyKey,
+                                                          boolean exclusive) {
+        log.debug("Starting transfer: userId={}, request={}, engine={}", userId, req, props.getEngine());
 
         if (req.getFromCardId().equals(req.getToCardId())) {
             log.warn("Transfer failed: source and destination card IDs are the same: {}", req.getFromCardId());
@@ -41,6 +95,26 @@ public class TransferService {
             throw new BusinessException("Amount must be greater than 0");
         }
 
+        Transfer tr = switch (props.getEngine()) {
+            case CONDITIONAL -> transferConditional(userId, req);
+            case LEDGER -> transferLedger(userId, req);
+            case PESSIMISTIC -> transferPessimistic(userId, req, exclusive);
+        };
+        cardCache.evictAfterCommit(req.getFromCardId(), req.getToCardId());
+
+        log.info("Transfer successful: transferId={}, fromCardId={}, toCardId={}, amount={}",
+                tr.getId(), req.getFromCardId(), req.getToCardId(), tr.getAmount());
+
+        TransferResponse resp = TransferMapper.toResponse(tr);
+        if (idempotencyKey != null) {
+            idempotency.record(userId, idempotencyKey, req, resp.getId());
+        }
+
+        log.debug("Returning transfer response: {}", resp);
+        return resp;
+    }
+
+    private Transfer transferPessimistic(Long userId, TransferRequest req, boolean exclusive) {
         Long a = req.getFromCardId();
         Long b = req.getToCardId();
 
@@ -48,18 +122,14 @@ public class TransferService {
         Long firstId = a < b ? a : b;
         Long secondId = a < b ? b : a;
 
-        log.debug("Locking cards in order: firstId={}, secondId={}", firstId, secondId);
+        // a striped destination only needs a shared lock, its credit goes to a stripe row;
+        // this unlocked read only picks the lock, the stripes of the locked row decide where the credit goes
+        boolean sharedTo = !exclusive && cardRepo.findBalanceStripesById(b).orElse(0) > 0;
 
-        Card first = cardRepo.findByIdAndOwner_IdForUpdate(firstId, userId)
-                .orElseThrow(() -> {
-                    log.error("Card {} not found or does not belong to user {}", firstId, userId);
-                    return new NotFoundException("Card not found or does not belong to user");
-                });
-        Card second = cardRepo.findByIdAndOwner_IdForUpdate(secondId, userId)
-                .orElseThrow(() -> {
-                    log.error("Card {} not found or does not belong to user {}", secondId, userId);
-                    return new NotFoundException("Card not found or does not belong to user");
-                });
+        log.debug("Locking cards in order: firstId={}, secondId={}, sharedTo={}", firstId, secondId, sharedTo);
+
+        Card first = lock(firstId, userId, sharedTo && firstId.equals(b));
+        Card second = lock(secondId, userId, sharedTo && secondId.equals(b));
 
         Card from = (first.getId().equals(a)) ? first : second;
         Card to = (from == first) ? second : first;
@@ -75,6 +145,9 @@ public class TransferService {
             throw new BusinessException("Destination card is not available");
         }
 
+        if (from.getBalance().compareTo(req.getAmount()) < 0 && from.getBalanceStripes() > 0) {
+            from.setBalance(from.getBalance().add(stripes.sweep(from.getId())));
+        }
         if (from.getBalance().compareTo(req.getAmount()) < 0) {
             log.warn("Transfer failed: insufficient funds on card {} (balance={}, required={})",
                     from.getId(), from.getBalance(), req.getAmount());
@@ -82,10 +155,144 @@ public class TransferService {
         }
 
         from.setBalance(from.getBalance().subtract(req.getAmount()));
-        to.setBalance(to.getBalance().add(req.getAmount()));
-        log.info("Balances updated: fromCardId={}, newBalance={}, toCardId={}, newBalance={}",
-                from.getId(), from.getBalance(), to.getId(), to.getBalance());
+        if (sharedTo && to.getBalanceStripes() > 0
+                && stripes.credit(to.getId(), to.getBalanceStripes(), userId, from.getId(), req.getAmount())) {
+            log.info("Balances updated: fromCardId={}, newBalance={}, toCardId={} credited on a stripe",
+                    from.getId(), from.getBalance(), to.getId());
+        } else if (sharedTo) {
+            // the stripes changed before our shared lock was granted. Upgrading it here would deadlock: every
+            // transfer queued behind the change holds a shared lock on this card and would try the same
+            log.info("Destination card {} lost its balance stripes during the transfer, retrying exclusively", to.getId());
+            throw new RetryableTransferException("Destination card changed during the transfer, retry later");
+        } else {
+            to.setBalance(to.getBalance().add(req.getAmount()));
+            log.info("Balances updated: fromCardId={}, newBalance={}, toCardId={}, newBalance={}",
+                    from.getId(), from.getBalance(), to.getId(), to.getBalance());
+        }
+
+        return saveTransfer(from, to, req);
+    }
+
+    /**
+     * Balances live in the ledger: the transfer only inserts its row and two ledger entries, no card row is
+     * updated. The source is locked for update so its debits are checked against the ledger one at a time;
+     * the destination only has to stay active, so it is locked for share and credits to a hot card run side by side.
+     */
+    private Transfer transferLedger(Long userId, TransferRequest req) {
+        Long a = req.getFromCardId();
+        Long b = req.getToCardId();
+
+        // fixed lock order
+        Long firstId = a < b ? a : b;
+        Long secondId = a < b ? b : a;
+
+        Card first = lock(firstId, userId, firstId.equals(b));
+        Card second = lock(secondId, userId, secondId.equals(b));
+
+        Card from = (first.getId().equals(a)) ? first : second;
+        Card to = (from == first) ? second : first;
+
+        if (from.getStatus() != CardStatus.ACTIVE) {
+            log.warn("Transfer failed: source card {} is not active", from.getId());
+            throw new BusinessException("Source card is not available");
+        }
+        if (to.getStatus() != CardStatus.ACTIVE) {
+            log.warn("Transfer failed: destination card {} is not active", to.getId());
+            throw new BusinessException("Destination card is not available");
+        }
+
+        BigDecimal balance = ledger.currentBalance(from.getId());
+        if (balance.compareTo(req.getAmount()) < 0) {
+            log.warn("Transfer failed: insufficient funds on card {} (balance={}, required={})",
+                    from.getId(), balance, req.getAmount());
+            throw new BusinessException("Insufficient funds");
+        }
+        log.info("Ledger transfer: fromCardId={}, newBalance={}, toCardId={}",
+                from.getId(), balance.subtract(req.getAmount()), to.getId());
+
+        return saveTransfer(from, to, req);
+    }
+
+    private Card lock(Long cardId, Long userId, boolean shared) {
+        return (shared ? cardRepo.findByIdAndOwner_IdForShare(cardId, userId)
+                : cardRepo.findByIdAndOwner_IdForUpdate(cardId, userId))
+                .orElseThrow(() -> {
+                    log.error("Card {} not found or does not belong to user {}", cardId, userId);
+                    return new NotFoundException("Card not found or does not belong to user");
+                });
+    }
+
+    /**
+     * Debit and credit as two guarded UPDATE statements; the affected-row counts decide the outcome.
+     * Rows are still touched in ascending id order so opposite transfers cannot deadlock.
+     * Cards are only loaded on the failure path to produce the same error as the pessimistic engine.
+     */
+    private Transfer transferConditional(Long userId, TransferRequest req) {
+        Long fromId = req.getFromCardId();
+        Long toId = req.getToCardId();
+        BigDecimal amount = req.getAmount();
+        OffsetDateTime now = OffsetDateTime.now();
+
+        if (fromId < toId) {
+            debit(fromId, userId, amount, now);
+            credit(toId, fromId, userId, amount, now);
+        } else {
+            credit(toId, fromId, userId, amount, now);
+            debit(fromId, userId, amount, now);
+        }
+        log.info("Balances updated with guarded statements: fromCardId={}, toCardId={}, amount={}",
+                fromId, toId, amount);
+
+        return saveTransfer(cardRepo.getReferenceById(fromId), cardRepo.getReferenceById(toId), req);
+    }
 
+    private void debit(Long cardId, Long userId, BigDecimal amount, OffsetDateTime now) {
+        if (cardRepo.debitIfAvailable(cardId, userId, amount, CardStatus.ACTIVE, now) == 1) {
+            return;
+        }
+        Card c = cardRepo.findByIdAndOwner_Id(cardId, userId)
+                .orElseThrow(() -> {
+                    log.error("Card {} not found or does not belong to user {}", cardId, userId);
+                    return new NotFoundException("Card not found or does not belong to user");
+                });
+        if (c.getStatus() != CardStatus.ACTIVE) {
+            log.warn("Transfer failed: source card {} is not active", cardId);
+            throw new BusinessException("Source card is not available");
+        }
+        if (c.getBalanceStripes() > 0) {
+            // move the stripes into cards.balance and try once more
+            cardRepo.addToBalance(cardId, stripes.sweep(cardId), now);
+            if (cardRepo.debitIfAvailable(cardId, userId, amount, CardStatus.ACTIVE, now) == 1) {
+                return;
+            }
+        }
+        log.warn("Transfer failed: insufficient funds on card {} (balance={}, required={})",
+                cardId, c.getBalance(), amount);
+        throw new BusinessException("Insufficient funds");
+    }
+
+    private void credit(Long cardId, Long fromCardId, Long userId, BigDecimal amount, OffsetDateTime now) {
+        if (cardRepo.creditIfActive(cardId, userId, amount, CardStatus.ACTIVE, now) == 1) {
+            return;
+        }
+        Card c = cardRepo.findByIdAndOwner_Id(cardId, userId)
+                .orElseThrow(() -> {
+                    log.error("Card {} not found or does not belong to user {}", cardId, userId);
+                    return new NotFoundException("Card not found or does not belong to user");
+                });
+        if (c.getBalanceStripes() > 0 && c.getStatus() == CardStatus.ACTIVE) {
+            if (stripes.credit(cardId, c.getBalanceStripes(), userId, fromCardId, amount)) {
+                return;
+            }
+            // stripes were reconfigured since the card was read
+            cardRepo.addToBalance(cardId, amount, now);
+            return;
+        }
+        log.warn("Transfer failed: destination card {} is not active", cardId);
+        throw new BusinessException("Destination card is not available");
+    }
+
+    private Transfer saveTransfer(Card from, Card to, TransferRequest req) {
         Transfer tr = new Transfer();
         tr.setFromCard(from);
         tr.setToCard(to);
@@ -94,20 +301,8 @@ public class TransferService {
         tr.setDescription(req.getDescription());
         tr.setCreatedAt(OffsetDateTime.now());
         transferRepo.save(tr);
-
-        log.info("Transfer successful: transferId={}, fromCardId={}, toCardId={}, amount={}",
-                tr.getId(), from.getId(), to.getId(), tr.getAmount());
-
-        TransferResponse resp = new TransferResponse();
-        resp.setId(tr.getId());
-        resp.setFromCardId(from.getId());
-        resp.setToCardId(to.getId());
-        resp.setAmount(tr.getAmount());
-        resp.setStatus(tr.getStatus());
-        resp.setDescription(tr.getDescription());
-        resp.setCreatedAt(tr.getCreatedAt());
-
-        log.debug("Returning transfer response: {}", resp);
-        return resp;
+        ledger.recordTransfer(tr);
+        outbox.transferCompleted(tr);
+        return tr;
     }
 }
@@ -4,6 +4,7 @@ import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.BusinessException;
 import com.example.bankcards.exception.NotFoundException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.AuthUser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -21,10 +22,15 @@ public class UserService implements UserDetailsService {
 
     private final UserRepository repo;
     private final PasswordEncoder encoder;
+    private final TokenRevocationService revocation;
+    private final RefreshTokenService refreshTokens;
 
-    public UserService(UserRepository repo, PasswordEncoder encoder) {
+    public UserService(UserRepository repo, PasswordEncoder encoder, TokenRevocationService revocation,
+                       RefreshTokenService refreshTokens) {
         this.repo = repo;
         this.encoder = encoder;
+        this.revocation = revocation;
+        this.refreshTokens = refreshTokens;
     }
 
 
@@ -43,13 +49,21 @@ public class UserService implements UserDetailsService {
     @Transactional
     public void changeRole(Long userId, User.Role role) {
         User u = repo.findById(userId).orElseThrow(() -> new NotFoundException("User not found"));
-        u.setRole(role);
+        if (u.getRole() != role) {
+            u.setRole(role);
+            // roles are baked into issued tokens
+            revocation.revokeUser(userId);
+        }
     }
 
     @Transactional
     public void setEnabled(Long userId, boolean enabled) {
         User u = repo.findById(userId).orElseThrow(() -> new NotFoundException("User not found"));
         u.setEnabled(!enabled ? false : true);
+        if (!enabled) {
+            revocation.revokeUser(userId);
+            refreshTokens.revokeAll(userId);
+        }
     }
 
 
@@ -63,11 +77,11 @@ public class UserService implements UserDetailsService {
                 });
         log.info("User '{}' found, role: {}", username, u.getRole());
 
-        return new org.springframework.security.core.userdetails.User(
+        return new AuthUser(
+                u.getId(),
                 u.getUsername(),
                 u.getPasswordHash(),
                 u.isEnabled(),
-                true, true, true,
                 List.of(new SimpleGrantedAuthority("ROLE_" + u.getRole().name()))
         );
     }
@@ -0,0 +1,93 @@
+package com.example.bankcards.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over string and long keys. Lookups do not allocate; adds are lock-free,
+ * so the filter can be read by request threads while a refresher adds to it.
+ * A miss is definite, a hit has to be confirmed by whoever owns the real set.
+ */
+public final class BloomFilter {
+
+    private static final long STRING_SEED = 0x9E3779B97F4A7C15L;
+    private static final long LONG_SEED = 0xC2B2AE3D27D4EB4FL;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashes;
+
+    /**
+     * @param expectedEntries   entries the filter is sized for; more entries raise the false positive rate
+     * @param falsePositiveRate target false positive rate at {@code expectedEntries}
+     */
+    public BloomFilter(long expectedEntries, double falsePositiveRate) {
+        long n = Math.max(1, expectedEntries);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, Math.min(Integer.MAX_VALUE - 8, (m + 63) >>> 6));
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words << 6;
+        this.hashes = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    public void add(CharSequence key) {
+        long h = hash(key);
+        set(h, mix(h ^ STRING_SEED));
+    }
+
+    public void add(long key) {
+        long h = mix(key ^ LONG_SEED);
+        set(h, mix(h));
+    }
+
+    public boolean mightContain(CharSequence key) {
+        long h = hash(key);
+        return test(h, mix(h ^ STRING_SEED));
+    }
+
+    public boolean mightContain(long key) {
+        long h = mix(key ^ LONG_SEED);
+        return test(h, mix(h));
+    }
+
+    private void set(long h1, long h2) {
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * (h2 | 1), bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long cur;
+            do {
+                cur = bits.get(word);
+                if ((cur & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, cur, cur | mask));
+        }
+    }
+
+    private boolean test(long h1, long h2) {
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * (h2 | 1), bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a over the chars, finished with a 64-bit mixer
+    private static long hash(CharSequence key) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    // murmur3 fmix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor for card lists ordered by id desc: the last id returned and a hash of the filters it was issued for,
+ * so a cursor cannot be replayed against a different filter set.
+ */
+public record CardCursor(long lastId, int filterHash) {
+
+    public String encode() {
+        String raw = lastId + "|" + filterHash;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return null (first page) for a null or blank cursor
+     */
+    public static CardCursor decode(String cursor, int expectedFilterHash) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        CardCursor decoded;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            decoded = new CardCursor(
+                    Long.parseLong(raw.substring(0, sep)),
+                    Integer.parseInt(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            throw new BusinessException("Invalid cursor");
+        }
+        if (decoded.filterHash() != expectedFilterHash) {
+            throw new BusinessException("Cursor does not match the filters");
+        }
+        return decoded;
+    }
+}
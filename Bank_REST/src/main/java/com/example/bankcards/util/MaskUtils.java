@@ -5,7 +5,11 @@ public final class MaskUtils {
 
     public static String maskPan(String pan) {
         if (pan == null || pan.length() < 4) return "****";
-        String last4 = pan.substring(pan.length() - 4);
-        return "**** **** **** " + last4;
+        return "**** **** **** " + last4(pan);
+    }
+
+    public static String last4(String pan) {
+        if (pan == null || pan.length() < 4) return "****";
+        return pan.substring(pan.length() - 4);
     }
 }
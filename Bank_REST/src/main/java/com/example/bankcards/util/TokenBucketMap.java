@@ -0,0 +1,75 @@
+package com.example.bankcards.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets by key, kept as GCRA state: one "theoretical arrival time" per key, updated with a
+ * single CAS. Equivalent to a bucket of {@code capacity} tokens refilled at {@code perSecond}.
+ * Keys are spread over several maps so eviction sweeps one small map at a time.
+ */
+public final class TokenBucketMap {
+
+    private static final int STRIPES = 16;
+
+    @SuppressWarnings("unchecked")
+    private final ConcurrentHashMap<Object, AtomicLong>[] stripes = new ConcurrentHashMap[STRIPES];
+
+    public TokenBucketMap() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Takes one token from the bucket of {@code key}.
+     *
+     * @return 0 if a token was taken, otherwise nanos until the next one is available
+     */
+    public long tryAcquire(Object key, int capacity, double perSecond) {
+        long interval = (long) (1_000_000_000L / perSecond);
+        long tolerance = interval * Math.max(1, capacity);
+        ConcurrentHashMap<Object, AtomicLong> stripe = stripes[stripeOf(key)];
+        AtomicLong tat = stripe.get(key);
+        if (tat == null) {
+            tat = stripe.computeIfAbsent(key, k -> new AtomicLong(System.nanoTime()));
+        }
+        while (true) {
+            long now = System.nanoTime();
+            long t = tat.get();
+            long next = (t - now < 0 ? now : t) + interval;
+            long over = next - now - tolerance;
+            if (over > 0) {
+                return over;
+            }
+            if (tat.compareAndSet(t, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drops buckets that have been full for longer than {@code idleNanos}; they are recreated full on next use.
+     */
+    public int evictIdle(long idleNanos) {
+        long now = System.nanoTime();
+        int before = size();
+        for (ConcurrentHashMap<Object, AtomicLong> stripe : stripes) {
+            stripe.values().removeIf(tat -> now - tat.get() > idleNanos);
+        }
+        return before - size();
+    }
+
+    public int size() {
+        int n = 0;
+        for (ConcurrentHashMap<Object, AtomicLong> stripe : stripes) {
+            n += stripe.size();
+        }
+        return n;
+    }
+
+    private static int stripeOf(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+}
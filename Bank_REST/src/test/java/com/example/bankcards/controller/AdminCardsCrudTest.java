@@ -19,6 +19,7 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -30,6 +31,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 class AdminCardsCrudTest {
 
     private static final Logger log = LoggerFactory.getLogger(AdminCardsCrudTest.class);
+    private static final AtomicInteger PAN_SEQ = new AtomicInteger();
 
     @Autowired
     MockMvc mockMvc;
@@ -190,8 +192,127 @@ class AdminCardsCrudTest {
         assertThat(listByLast4).contains("\"id\":" + cardId1);
     }
 
+    @Test
+    void admin_scroll_follows_cursor() throws Exception {
+        log.info("=== Running admin_scroll_follows_cursor test ===");
+
+        Long ownerId = registerUser("scroll_admin_" + System.nanoTime());
+        Long older = createCardAsAdmin(ownerId, uniquePan(), "Scroll Holder");
+        Long newer = createCardAsAdmin(ownerId, uniquePan(), "Scroll Holder");
+
+        String first = mockMvc.perform(get("/api/admin/cards/scroll")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .param("ownerId", String.valueOf(ownerId))
+                        .param("holderName", "scroll")
+                        .param("holderMatch", "PREFIX")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        log.info("First scroll page: {}", first);
+        var firstJson = objectMapper.readTree(first);
+        assertThat(firstJson.get("content").get(0).get("id").asLong()).isEqualTo(newer);
+        assertThat(firstJson.get("hasNext").asBoolean()).isTrue();
+
+        String second = mockMvc.perform(get("/api/admin/cards/scroll")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .param("ownerId", String.valueOf(ownerId))
+                        .param("holderName", "scroll")
+                        .param("holderMatch", "PREFIX")
+                        .param("size", "1")
+                        .param("cursor", firstJson.get("nextCursor").asText()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        log.info("Second scroll page: {}", second);
+        var secondJson = objectMapper.readTree(second);
+        assertThat(secondJson.get("content").get(0).get("id").asLong()).isEqualTo(older);
+        assertThat(secondJson.get("hasNext").asBoolean()).isFalse();
+
+        // the same list without the COUNT query
+        String slice = mockMvc.perform(get("/api/admin/cards")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .param("ownerId", String.valueOf(ownerId))
+                        .param("withTotal", "false"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(slice).contains("\"id\":" + older, "\"id\":" + newer).doesNotContain("totalElements");
+    }
+
+    @Test
+    void user_scroll_follows_cursor() throws Exception {
+        log.info("=== Running user_scroll_follows_cursor test ===");
+
+        String username = "scroll_user_" + System.nanoTime();
+        Long ownerId = registerUser(username);
+        Long older = createCardAsAdmin(ownerId, uniquePan(), username);
+        Long newer = createCardAsAdmin(ownerId, uniquePan(), username);
+        String userToken = loginAndGetToken(username, "pass123");
+
+        String first = mockMvc.perform(get("/api/cards/scroll")
+                        .header("Authorization", "Bearer " + userToken)
+                        .param("status", "ACTIVE")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        log.info("First scroll page: {}", first);
+        var firstJson = objectMapper.readTree(first);
+        assertThat(firstJson.get("content").get(0).get("id").asLong()).isEqualTo(newer);
+
+        String second = mockMvc.perform(get("/api/cards/scroll")
+                        .header("Authorization", "Bearer " + userToken)
+                        .param("status", "ACTIVE")
+                        .param("size", "1")
+                        .param("cursor", firstJson.get("nextCursor").asText()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        log.info("Second scroll page: {}", second);
+        var secondJson = objectMapper.readTree(second);
+        assertThat(secondJson.get("content").get(0).get("id").asLong()).isEqualTo(older);
+        assertThat(secondJson.get("hasNext").asBoolean()).isFalse();
+
+        // the same list without the COUNT query
+        String slice = mockMvc.perform(get("/api/cards")
+                        .header("Authorization", "Bearer " + userToken)
+                        .param("withTotal", "false"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(slice).contains("\"id\":" + older, "\"id\":" + newer).doesNotContain("totalElements");
+    }
+
+    @Test
+    void actuator_metrics_admin_only() throws Exception {
+        String username = "metrics_user_" + System.nanoTime();
+        registerUser(username);
+        String userToken = loginAndGetToken(username, "pass123");
+
+        mockMvc.perform(get("/actuator/metrics")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+    }
+
     // === Helper methods ===
 
+    private Long registerUser(String username) throws Exception {
+        RegisterRequest reg = new RegisterRequest();
+        reg.setUsername(username);
+        reg.setPassword("pass123");
+        String regResp = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(reg)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(regResp).get("id").asLong();
+    }
+
+    // PANs must be unique across the shared test database
+    private static String uniquePan() {
+        return String.format("4100%012d", PAN_SEQ.incrementAndGet());
+    }
+
     /**
      * Log in with given credentials and return JWT token
      */
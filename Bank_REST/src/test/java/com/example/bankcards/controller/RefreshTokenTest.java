@@ -0,0 +1,111 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.auth.LoginRequest;
+import com.example.bankcards.dto.auth.RefreshRequest;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class RefreshTokenTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired UserRepository userRepository;
+    @Autowired PasswordEncoder passwordEncoder;
+
+    private User user;
+
+    @BeforeEach
+    void init() {
+        user = new User();
+        user.setUsername("refresh_" + UUID.randomUUID().toString().substring(0, 8));
+        user.setPasswordHash(passwordEncoder.encode("pass123"));
+        user.setRole(User.Role.USER);
+        user.setEnabled(true);
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void refresh_ShouldRotateAndRevokeFamilyOnReuse() throws Exception {
+        JsonNode login = login();
+        String first = login.get("refreshToken").asText();
+        assertThat(login.get("expiresIn").asLong()).isPositive();
+
+        JsonNode refreshed = refresh(first, status().isOk());
+        String second = refreshed.get("refreshToken").asText();
+        assertThat(second).isNotEqualTo(first);
+        mockMvc.perform(get("/api/transfers").header("Authorization", "Bearer " + refreshed.get("token").asText()))
+                .andExpect(status().isOk());
+
+        // replaying the used token kills the family, including its successor
+        refresh(first, status().isUnauthorized());
+        refresh(second, status().isUnauthorized());
+    }
+
+    @Test
+    void refresh_ShouldFailAfterLogout() throws Exception {
+        JsonNode login = login();
+        RefreshRequest body = new RefreshRequest();
+        body.setRefreshToken(login.get("refreshToken").asText());
+
+        mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization", "Bearer " + login.get("token").asText())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isNoContent());
+
+        refresh(body.getRefreshToken(), status().isUnauthorized());
+    }
+
+    @Test
+    void jwks_ShouldBePublic() throws Exception {
+        mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.keys").isArray());
+    }
+
+    private JsonNode refresh(String refreshToken, ResultMatcher expected) throws Exception {
+        RefreshRequest req = new RefreshRequest();
+        req.setRefreshToken(refreshToken);
+        String resp = mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(expected)
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(resp);
+    }
+
+    private JsonNode login() throws Exception {
+        LoginRequest login = new LoginRequest();
+        login.setUsername(user.getUsername());
+        login.setPassword("pass123");
+        String resp = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(login)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(resp);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.auth.LoginRequest;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.JwtService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class StatelessAuthTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired UserRepository userRepository;
+    @Autowired PasswordEncoder passwordEncoder;
+    @Autowired JwtService jwtService;
+
+    @Test
+    void token_ShouldCarryUserIdAndAuthenticateWithoutUserLookup() throws Exception {
+        User u = new User();
+        u.setUsername("stateless_" + UUID.randomUUID().toString().substring(0, 8));
+        u.setPasswordHash(passwordEncoder.encode("pass123"));
+        u.setRole(User.Role.USER);
+        u.setEnabled(true);
+        u = userRepository.save(u);
+
+        LoginRequest login = new LoginRequest();
+        login.setUsername(u.getUsername());
+        login.setPassword("pass123");
+        String resp = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(login)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String token = objectMapper.readTree(resp).get("token").asText();
+
+        Claims claims = jwtService.verify(token).orElseThrow();
+        assertThat(claims.get(JwtService.CLAIM_USER_ID, Long.class)).isEqualTo(u.getId());
+        assertThat(claims.get(JwtService.CLAIM_ROLES)).isEqualTo(List.of("ROLE_USER"));
+
+        // the subject no longer resolves to a user, only the claims can authenticate the request
+        u.setUsername(u.getUsername() + "_renamed");
+        userRepository.save(u);
+
+        mockMvc.perform(get("/api/transfers").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.auth.LoginRequest;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class TokenRevocationTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired UserRepository userRepository;
+    @Autowired UserService userService;
+    @Autowired PasswordEncoder passwordEncoder;
+
+    private User user;
+
+    @BeforeEach
+    void init() {
+        user = new User();
+        user.setUsername("revoke_" + UUID.randomUUID().toString().substring(0, 8));
+        user.setPasswordHash(passwordEncoder.encode("pass123"));
+        user.setRole(User.Role.USER);
+        user.setEnabled(true);
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void logout_ShouldRevokeOnlyThePresentedToken() throws Exception {
+        String first = login();
+        String second = login();
+        assertAccess(first, true);
+
+        mockMvc.perform(post("/api/auth/logout").header("Authorization", "Bearer " + first))
+                .andExpect(status().isNoContent());
+
+        assertAccess(first, false);
+        assertAccess(second, true);
+    }
+
+    @Test
+    void block_ShouldRevokeAllTokensOfTheUser() throws Exception {
+        String token = login();
+        assertAccess(token, true);
+
+        userService.setEnabled(user.getId(), false);
+
+        assertAccess(token, false);
+    }
+
+    @Test
+    void tokenIssuedRightAfterReenable_ShouldNotBeRevoked() throws Exception {
+        String before = login();
+
+        userService.setEnabled(user.getId(), false);
+        userService.setEnabled(user.getId(), true);
+        // usually within the same second as the revocation, which iat alone cannot tell apart
+        String after = login();
+
+        assertAccess(before, false);
+        assertAccess(after, true);
+    }
+
+    private void assertAccess(String token, boolean allowed) throws Exception {
+        mockMvc.perform(get("/api/transfers").header("Authorization", "Bearer " + token))
+                .andExpect(allowed ? status().isOk() : status().is4xxClientError());
+    }
+
+    private String login() throws Exception {
+        LoginRequest login = new LoginRequest();
+        login.setUsername(user.getUsername());
+        login.setPassword("pass123");
+        String resp = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(login)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(resp).get("token").asText();
+    }
+}
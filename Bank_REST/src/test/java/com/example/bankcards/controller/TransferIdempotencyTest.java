@@ -0,0 +1,180 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.auth.LoginRequest;
+import com.example.bankcards.dto.card.CardCreateRequest;
+import com.example.bankcards.dto.transfer.TransferRequest;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class TransferIdempotencyTest {
+
+    private static final AtomicInteger PAN_SEQ = new AtomicInteger();
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired UserRepository userRepository;
+    @Autowired TransferRepository transferRepository;
+    @Autowired PasswordEncoder passwordEncoder;
+
+    private String userToken;
+    private Long cardFrom;
+    private Long cardTo;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        User admin = userRepository.findByUsername("admin").orElseGet(User::new);
+        admin.setUsername("admin");
+        admin.setPasswordHash(passwordEncoder.encode("admin123"));
+        admin.setRole(User.Role.ADMIN);
+        admin.setEnabled(true);
+        userRepository.save(admin);
+
+        String username = "idem_" + UUID.randomUUID().toString().substring(0, 8);
+        User user = new User();
+        user.setUsername(username);
+        user.setPasswordHash(passwordEncoder.encode("pass123"));
+        user.setRole(User.Role.USER);
+        user.setEnabled(true);
+        Long userId = userRepository.save(user).getId();
+
+        String adminToken = loginAndGetToken("admin", "admin123");
+        userToken = loginAndGetToken(username, "pass123");
+
+        cardFrom = createCard(adminToken, userId, String.format("4000%012d", PAN_SEQ.incrementAndGet()));
+        cardTo = createCard(adminToken, userId, String.format("4000%012d", PAN_SEQ.incrementAndGet()));
+    }
+
+    @Test
+    void retriedTransferWithSameKey_ShouldReturnStoredResponse() throws Exception {
+        long before = transferRepository.count();
+        String key = UUID.randomUUID().toString();
+
+        String first = postTransfer(key, "100");
+        String replay = postTransfer(key, "100");
+
+        assertThat(objectMapper.readTree(replay).get("id").asLong())
+                .isEqualTo(objectMapper.readTree(first).get("id").asLong());
+        assertThat(transferRepository.count()).isEqualTo(before + 1);
+        assertThat(balanceOf(cardFrom)).isEqualByComparingTo("400");
+
+        // same key, different payload
+        mockMvc.perform(post("/api/transfers")
+                        .header("Authorization", "Bearer " + userToken)
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transfer("5"))))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void concurrentDuplicates_ShouldCreateSingleTransfer() throws Exception {
+        long before = transferRepository.count();
+        String key = UUID.randomUUID().toString();
+        int threads = 4;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return postTransfer(key, "50");
+            }));
+        }
+        start.countDown();
+
+        long id = objectMapper.readTree(results.get(0).get(10, TimeUnit.SECONDS)).get("id").asLong();
+        for (Future<String> f : results) {
+            assertThat(objectMapper.readTree(f.get(10, TimeUnit.SECONDS)).get("id").asLong()).isEqualTo(id);
+        }
+        pool.shutdown();
+
+        assertThat(transferRepository.count()).isEqualTo(before + 1);
+        assertThat(balanceOf(cardFrom)).isEqualByComparingTo("450");
+    }
+
+    private String postTransfer(String key, String amount) throws Exception {
+        return mockMvc.perform(post("/api/transfers")
+                        .header("Authorization", "Bearer " + userToken)
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transfer(amount))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private TransferRequest transfer(String amount) {
+        TransferRequest req = new TransferRequest();
+        req.setFromCardId(cardFrom);
+        req.setToCardId(cardTo);
+        req.setAmount(new BigDecimal(amount));
+        return req;
+    }
+
+    private BigDecimal balanceOf(Long cardId) throws Exception {
+        String resp = mockMvc.perform(get("/api/cards/" + cardId)
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return new BigDecimal(objectMapper.readTree(resp).get("balance").asText());
+    }
+
+    private String loginAndGetToken(String username, String password) throws Exception {
+        LoginRequest login = new LoginRequest();
+        login.setUsername(username);
+        login.setPassword(password);
+
+        String resp = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(login)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        return objectMapper.readTree(resp).get("token").asText();
+    }
+
+    private Long createCard(String adminToken, Long ownerId, String pan) throws Exception {
+        CardCreateRequest req = new CardCreateRequest();
+        req.setOwnerId(ownerId);
+        req.setPan(pan);
+        req.setHolderName("Idem User");
+        req.setExpiryDate(LocalDate.now().plusYears(2));
+        req.setInitialBalance(new BigDecimal("500"));
+
+        String resp = mockMvc.perform(post("/api/admin/cards")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        return objectMapper.readTree(resp).get("id").asLong();
+    }
+}
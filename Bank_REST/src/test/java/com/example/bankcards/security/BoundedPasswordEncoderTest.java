@@ -0,0 +1,85 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.config.PasswordProperties;
+import com.example.bankcards.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void close() {
+        release.countDown();
+        encoder.close();
+    }
+
+    @Test
+    void encode_ShouldRejectWhenPoolAndQueueAreFull() throws Exception {
+        encoder = new BoundedPasswordEncoder(blockingEncoder(), props(1, 1), registry);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+        waitUntilQueued();
+
+        ServiceUnavailableException e = assertThrows(ServiceUnavailableException.class, () -> encoder.encode("c"));
+        assertEquals(Duration.ofSeconds(3), e.getRetryAfter());
+        assertEquals(1.0, registry.counter("password.hashing.rejected").count());
+
+        release.countDown();
+        assertEquals("a", running.get(5, TimeUnit.SECONDS));
+        assertEquals("b", queued.get(5, TimeUnit.SECONDS));
+        assertTrue(encoder.matches("c", encoder.encode("c")));
+    }
+
+    private void waitUntilQueued() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get("executor.queued").tag("name", "password.hashing").gauge().value() < 1) {
+            assertTrue(System.nanoTime() < deadline, "second task was not queued");
+            Thread.sleep(5);
+        }
+    }
+
+    // stores the raw password, blocking until released
+    private PasswordEncoder blockingEncoder() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence raw) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return raw.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence raw, String encoded) {
+                return raw.toString().equals(encoded);
+            }
+        };
+    }
+
+    private static PasswordProperties props(int threads, int queue) {
+        PasswordProperties props = new PasswordProperties();
+        props.setHashingThreads(threads);
+        props.setHashingQueueCapacity(queue);
+        props.setRetryAfter(Duration.ofSeconds(3));
+        return props;
+    }
+}
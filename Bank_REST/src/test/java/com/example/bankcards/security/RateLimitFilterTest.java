@@ -0,0 +1,94 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.config.JwtKeyConfig;
+import com.example.bankcards.config.JwtProperties;
+import com.example.bankcards.config.RateLimitProperties;
+import com.example.bankcards.service.JwtService;
+import com.example.bankcards.service.JwtSigningKeys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private JwtService jwtService;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void init() {
+        JwtProperties jwtProps = new JwtProperties();
+        jwtProps.setSecret("test-secret-please-change-me-256bits-min");
+        jwtService = new JwtService(jwtProps, new JwtSigningKeys(jwtProps, new JwtKeyConfig().jwtSecretKey(jwtProps), null, false));
+
+        RateLimitProperties.Group auth = new RateLimitProperties.Group();
+        auth.setPaths(List.of("/api/auth/**"));
+        auth.setPerIp(limit(2));
+        RateLimitProperties.Group transfers = new RateLimitProperties.Group();
+        transfers.setPaths(List.of("/api/transfers/**"));
+        transfers.setPerUser(limit(1));
+        transfers.setPerRole(Map.of("ADMIN", limit(3)));
+
+        RateLimitProperties props = new RateLimitProperties();
+        props.getGroups().put("auth", auth);
+        props.getGroups().put("transfers", transfers);
+        filter = new RateLimitFilter(props, jwtService, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void perIp_ShouldRejectBurstAboveCapacityWithRetryAfter() throws Exception {
+        assertEquals(200, call("/api/auth/login", "10.0.0.1", null).getStatus());
+        assertEquals(200, call("/api/auth/login", "10.0.0.1", null).getStatus());
+
+        MockHttpServletResponse rejected = call("/api/auth/login", "10.0.0.1", null);
+        assertEquals(429, rejected.getStatus());
+        assertNotNull(rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("TOO_MANY_REQUESTS"));
+
+        // other clients and unlimited routes are not affected
+        assertEquals(200, call("/api/auth/login", "10.0.0.2", null).getStatus());
+        assertEquals(200, call("/api/cards", "10.0.0.1", null).getStatus());
+    }
+
+    @Test
+    void perUser_ShouldUseRoleLimitAndKeyByUserId() throws Exception {
+        String user = jwtService.generate("u", Map.of(JwtService.CLAIM_USER_ID, 1L, JwtService.CLAIM_ROLES, List.of("ROLE_USER")));
+        String admin = jwtService.generate("a", Map.of(JwtService.CLAIM_USER_ID, 2L, JwtService.CLAIM_ROLES, List.of("ROLE_ADMIN")));
+
+        assertEquals(200, call("/api/transfers", "10.0.0.1", user).getStatus());
+        assertEquals(429, call("/api/transfers/batch", "10.0.0.3", user).getStatus());
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, call("/api/transfers", "10.0.0.1", admin).getStatus());
+        }
+        assertEquals(429, call("/api/transfers", "10.0.0.1", admin).getStatus());
+
+        // no valid token: not limited per user, authentication rejects it later
+        assertEquals(200, call("/api/transfers", "10.0.0.1", "garbage").getStatus());
+    }
+
+    private MockHttpServletResponse call(String uri, String ip, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setRemoteAddr(ip);
+        if (token != null) {
+            request.addHeader("Authorization", "Bearer " + token);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static RateLimitProperties.Limit limit(int capacity) {
+        RateLimitProperties.Limit l = new RateLimitProperties.Limit();
+        l.setCapacity(capacity);
+        l.setPerSecond(0.01);
+        return l;
+    }
+}
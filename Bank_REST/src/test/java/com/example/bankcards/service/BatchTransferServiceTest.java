@@ -0,0 +1,101 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.transfer.BatchTransferResponse;
+import com.example.bankcards.dto.transfer.TransferRequest;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.TransferStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.support.TestFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BatchTransferServiceTest {
+
+    @Autowired
+    private BatchTransferService batchTransferService;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private CardRepository cardRepo;
+    @Autowired
+    private TransferRepository transferRepo;
+
+    private User owner;
+    private Long cardA;
+    private Long cardB;
+    private Long cardC;
+    private Long foreignCard;
+
+    @BeforeEach
+    void init() {
+        owner = fixtures.saveUser("batch");
+        User stranger = fixtures.saveUser("batch_other");
+
+        cardA = fixtures.saveCard(owner, "1111", BigDecimal.valueOf(300), CardStatus.ACTIVE).getId();
+        cardB = fixtures.saveCard(owner, "2222", BigDecimal.valueOf(100), CardStatus.ACTIVE).getId();
+        cardC = fixtures.saveCard(owner, "3333", BigDecimal.ZERO, CardStatus.BLOCKED).getId();
+        foreignCard = fixtures.saveCard(stranger, "4444", BigDecimal.ZERO, CardStatus.ACTIVE).getId();
+    }
+
+    @Test
+    void transferBatch_ShouldApplyValidItemsAndReportFailures() {
+        long transfersBefore = transferRepo.count();
+
+        List<TransferRequest> items = List.of(
+                request(cardA, cardB, "100"),      // ok: A=200, B=200
+                request(cardB, cardA, "50"),       // ok: A=250, B=150
+                request(cardA, cardC, "10"),       // destination blocked
+                request(cardA, foreignCard, "10"), // not owned
+                request(cardB, cardA, "1000"),     // insufficient funds
+                request(cardA, cardA, "1"),        // same card
+                request(cardA, cardB, "250")       // ok: A=0, B=400
+        );
+
+        BatchTransferResponse resp = batchTransferService.transferBatch(owner.getId(), items);
+
+        assertEquals(3, resp.getSucceeded());
+        assertEquals(4, resp.getFailed());
+        assertEquals(7, resp.getItems().size());
+
+        assertEquals(TransferStatus.SUCCESS, resp.getItems().get(0).getStatus());
+        assertNotNull(resp.getItems().get(0).getTransfer().getId());
+        assertEquals(TransferStatus.SUCCESS, resp.getItems().get(1).getStatus());
+        assertEquals("Destination card is not available", resp.getItems().get(2).getError());
+        assertEquals("Card not found or does not belong to user", resp.getItems().get(3).getError());
+        assertEquals("Insufficient funds", resp.getItems().get(4).getError());
+        assertEquals("Cannot transfer to the same card", resp.getItems().get(5).getError());
+        assertEquals(TransferStatus.SUCCESS, resp.getItems().get(6).getStatus());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(i, resp.getItems().get(i).getIndex());
+        }
+
+        assertEquals(0, cardRepo.findById(cardA).orElseThrow().getBalance().compareTo(BigDecimal.ZERO));
+        assertEquals(0, cardRepo.findById(cardB).orElseThrow().getBalance().compareTo(BigDecimal.valueOf(400)));
+        assertEquals(0, cardRepo.findById(cardC).orElseThrow().getBalance().compareTo(BigDecimal.ZERO));
+        assertEquals(transfersBefore + 3, transferRepo.count());
+    }
+
+    private TransferRequest request(Long from, Long to, String amount) {
+        TransferRequest req = new TransferRequest();
+        req.setFromCardId(from);
+        req.setToCardId(to);
+        req.setAmount(new BigDecimal(amount));
+        req.setDescription("batch");
+        return req;
+    }
+}
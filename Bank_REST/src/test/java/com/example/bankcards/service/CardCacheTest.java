@@ -0,0 +1,116 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardResponse;
+import com.example.bankcards.dto.card.CardStatusUpdateRequest;
+import com.example.bankcards.dto.transfer.TransferRequest;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.BusinessException;
+import com.example.bankcards.support.TestFixtures;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CardCacheTest {
+
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private TransferService transferService;
+    @Autowired
+    private CardCache cardCache;
+
+    private Long ownerId;
+    private Long fromId;
+    private Long toId;
+
+    @BeforeEach
+    void init() {
+        User owner = fixtures.saveUser("cache");
+        ownerId = owner.getId();
+
+        fromId = fixtures.saveCard(owner, "7001", new BigDecimal("100.00")).getId();
+        toId = fixtures.saveCard(owner, "7002", new BigDecimal("0.00")).getId();
+    }
+
+    @Test
+    void repeatedRead_ShouldBeServedFromCache() {
+        CacheStats before = cardCache.stats();
+
+        cardService.findResponseById(fromId);
+        cardService.findResponseById(fromId);
+
+        CacheStats delta = cardCache.stats().minus(before);
+        assertEquals(1, delta.missCount());
+        assertEquals(1, delta.hitCount());
+    }
+
+    @Test
+    void committedTransfer_ShouldEvictBothCards() {
+        assertBalance(fromId, "100.00");
+        assertBalance(toId, "0.00");
+
+        transferService.transfer(ownerId, transfer("30.00"));
+
+        assertBalance(fromId, "70.00");
+        assertBalance(toId, "30.00");
+    }
+
+    @Test
+    void failedTransfer_ShouldKeepCachedCards() {
+        assertBalance(fromId, "100.00");
+        CacheStats before = cardCache.stats();
+
+        assertThrows(BusinessException.class, () -> transferService.transfer(ownerId, transfer("500.00")));
+
+        assertBalance(fromId, "100.00");
+        assertEquals(1, cardCache.stats().minus(before).hitCount());
+    }
+
+    @Test
+    void statusUpdateAndDelete_ShouldEvict() {
+        assertEquals(CardStatus.ACTIVE, cardService.findResponseById(fromId).orElseThrow().getStatus());
+
+        CardStatusUpdateRequest block = new CardStatusUpdateRequest();
+        block.setStatus(CardStatus.BLOCKED);
+        cardService.updateStatus(fromId, block);
+        assertEquals(CardStatus.BLOCKED, cardService.findResponseById(fromId).orElseThrow().getStatus());
+
+        cardService.findResponseById(toId);
+        cardService.delete(toId);
+        assertTrue(cardService.findResponseById(toId).isEmpty());
+    }
+
+    @Test
+    void otherUsersCard_ShouldNotBeReturned() {
+        assertTrue(cardService.findResponseByIdAndUserId(fromId, ownerId).isPresent());
+        assertTrue(cardService.findResponseByIdAndUserId(fromId, ownerId + 1).isEmpty());
+    }
+
+    private void assertBalance(Long cardId, String expected) {
+        CardResponse card = cardService.findResponseById(cardId).orElseThrow();
+        assertEquals(0, new BigDecimal(expected).compareTo(card.getBalance()), () -> "balance " + card.getBalance());
+    }
+
+    private TransferRequest transfer(String amount) {
+        TransferRequest req = new TransferRequest();
+        req.setFromCardId(fromId);
+        req.setToCardId(toId);
+        req.setAmount(new BigDecimal(amount));
+        return req;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardResponse;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.spec.HolderNameMatch;
+import com.example.bankcards.support.TestFixtures;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CardListProjectionTest {
+
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private CardRepository cardRepo;
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    private Long ownerId;
+
+    @BeforeEach
+    void init() {
+        User owner = fixtures.saveUser("projection");
+        ownerId = owner.getId();
+
+        for (int i = 1; i <= 5; i++) {
+            fixtures.saveCard(owner, "000" + i, BigDecimal.valueOf(i * 10L));
+        }
+    }
+
+    @Test
+    void list_ShouldMapAllResponseColumns() {
+        Page<CardResponse> page = cardService.list(ownerId, CardStatus.ACTIVE, null, null, null, null, pageable(0, 2));
+
+        assertEquals(5, page.getTotalElements());
+        CardResponse first = page.getContent().get(0);
+        Card card = cardRepo.findById(first.getId()).orElseThrow();
+        assertEquals(ownerId, first.getOwnerId());
+        assertEquals("**** **** **** 0005", first.getPanMask());
+        assertEquals(TestFixtures.HOLDER_NAME, first.getHolderName());
+        assertEquals(card.getExpiryDate(), first.getExpiryDate());
+        assertEquals(CardStatus.ACTIVE, first.getStatus());
+        assertEquals(0, BigDecimal.valueOf(50).compareTo(first.getBalance()));
+        assertNotNull(first.getCreatedAt());
+    }
+
+    @Test
+    void listSlice_ShouldReturnSameRowsAsPageWithoutTotal() {
+        List<Long> all = cardService.list(ownerId, null, null, null, null, null, pageable(0, 10))
+                .map(CardResponse::getId).getContent();
+
+        Slice<CardResponse> first = slice(0, 2);
+        Slice<CardResponse> last = slice(2, 2);
+
+        assertEquals(all.subList(0, 2), first.map(CardResponse::getId).getContent());
+        assertTrue(first.hasNext());
+        assertEquals(all.subList(4, 5), last.map(CardResponse::getId).getContent());
+        assertFalse(last.hasNext());
+    }
+
+    @Test
+    void listSlice_ShouldNotLoadCardEntities() {
+        new TransactionTemplate(txManager).executeWithoutResult(tx -> {
+            assertEquals(2, slice(0, 2).getNumberOfElements());
+            int managed = em.unwrap(SessionImplementor.class)
+                    .getPersistenceContextInternal()
+                    .getNumberOfManagedEntities();
+            assertEquals(0, managed);
+        });
+    }
+
+    private Slice<CardResponse> slice(int page, int size) {
+        return cardService.listSlice(ownerId, null, null, HolderNameMatch.CONTAINS, null, null, null, pageable(page, size));
+    }
+
+    private static PageRequest pageable(int page, int size) {
+        return PageRequest.of(page, size, Sort.by("id").descending());
+    }
+}
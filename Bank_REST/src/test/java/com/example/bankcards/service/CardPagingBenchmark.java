@@ -0,0 +1,102 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.BankRestApplication;
+import com.example.bankcards.dto.card.CardResponse;
+import com.example.bankcards.dto.common.CursorSlice;
+import com.example.bankcards.repository.spec.HolderNameMatch;
+import com.example.bankcards.support.TestFixtures;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one page of the admin card list at a given depth: OFFSET paging ({@link CardService#listSlice},
+ * no COUNT, so only the OFFSET differs) against the keyset cursor ({@link CardService#scroll}).
+ * Runs against the in-memory H2 of the test profile. Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=CardPagingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardPagingBenchmark {
+
+    private static final int CARDS = 200_000;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10", "1000", "9000"})
+    public int page;
+
+    private ConfigurableApplicationContext ctx;
+    private CardService cardService;
+    private String cursor;
+
+    @Setup
+    public void setUp() {
+        ctx = new SpringApplicationBuilder(BankRestApplication.class)
+                .profiles("test")
+                .properties("server.port=0")
+                .run();
+        cardService = ctx.getBean(CardService.class);
+        insertCards();
+
+        // the cursor a client holds after walking to the requested page
+        cursor = null;
+        for (int i = 0; i < page; i++) {
+            cursor = scroll(cursor).getNextCursor();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public Slice<CardResponse> offset() {
+        return cardService.listSlice(null, null, null, HolderNameMatch.CONTAINS, null, null, null,
+                PageRequest.of(page, PAGE_SIZE, Sort.by("id").descending()));
+    }
+
+    @Benchmark
+    public CursorSlice<CardResponse> keyset() {
+        return scroll(cursor);
+    }
+
+    private CursorSlice<CardResponse> scroll(String after) {
+        return cardService.scroll(null, null, null, HolderNameMatch.CONTAINS, null, null, null, after, PAGE_SIZE);
+    }
+
+    private void insertCards() {
+        Long ownerId = ctx.getBean(TestFixtures.class).saveUser("bench_paging").getId();
+
+        Timestamp now = Timestamp.from(Instant.now());
+        Date expiry = Date.valueOf(LocalDate.now().plusYears(1));
+        List<Object[]> rows = new ArrayList<>(CARDS);
+        for (int i = 0; i < CARDS; i++) {
+            String last4 = String.format("%04d", i % 10_000);
+            rows.add(new Object[]{ownerId, new byte[]{1}, "**** **** **** " + last4, last4, "Bench User",
+                    expiry, "ACTIVE", BigDecimal.ZERO, 0, 0L, now, now});
+        }
+        ctx.getBean(JdbcTemplate.class).batchUpdate(
+                "insert into cards (owner_id, encrypted_pan, pan_mask, last4, holder_name, expiry_date, status, " +
+                        "balance, balance_stripes, version, created_at, updated_at) " +
+                        "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                rows);
+    }
+}
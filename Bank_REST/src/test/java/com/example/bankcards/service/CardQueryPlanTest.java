@@ -0,0 +1,65 @@
+package com.example.bankcards.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards the card list indexes: each CardService.list filter combination must be planned on its composite index.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CardQueryPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void ownerAndStatus_ShouldUseOwnerStatusIndex() {
+        String plan = explain("SELECT id FROM cards WHERE owner_id = 1 AND status = 'ACTIVE' ORDER BY id DESC");
+        assertUsesIndex(plan, "IDX_CARDS_OWNER_STATUS_ID");
+    }
+
+    @Test
+    void ownerOnly_ShouldUseOwnerIdIndex() {
+        // H2 ties idx_cards_owner_id_desc with its own FK index (owner_id + row id), either is fine here
+        String plan = explain("SELECT id FROM cards WHERE owner_id = 1 ORDER BY id DESC").toUpperCase();
+        assertTrue(plan.contains("OWNER_ID = "), () -> "expected an owner_id index in plan: " + plan);
+        assertFalse(plan.contains("TABLESCAN"), () -> "unexpected table scan: " + plan);
+    }
+
+    @Test
+    void ownerIdIndex_ShouldBeOrderedNewestFirst() {
+        List<String> columns = jdbc.queryForList(
+                "SELECT column_name || ' ' || ordering_specification FROM information_schema.index_columns " +
+                        "WHERE index_name = 'IDX_CARDS_OWNER_ID_DESC' ORDER BY ordinal_position", String.class);
+        assertEquals(List.of("OWNER_ID ASC", "ID DESC"), columns);
+    }
+
+    @Test
+    void ownerAndLast4_ShouldUseOwnerLast4Index() {
+        String plan = explain("SELECT id FROM cards WHERE owner_id = 1 AND last4 = '1234'");
+        assertUsesIndex(plan, "IDX_CARDS_OWNER_LAST4");
+    }
+
+    @Test
+    void last4Only_ShouldUseLast4Index() {
+        String plan = explain("SELECT id FROM cards WHERE last4 = '1234'");
+        assertUsesIndex(plan, "IDX_CARDS_LAST4");
+    }
+
+    private String explain(String sql) {
+        return jdbc.queryForObject("EXPLAIN " + sql, String.class);
+    }
+
+    private static void assertUsesIndex(String plan, String index) {
+        assertTrue(plan.toUpperCase().contains(index), () -> "expected " + index + " in plan: " + plan);
+        assertFalse(plan.toUpperCase().contains("TABLESCAN"), () -> "unexpected table scan: " + plan);
+    }
+}
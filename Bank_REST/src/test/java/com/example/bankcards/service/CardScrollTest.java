@@ -0,0 +1,89 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardResponse;
+import com.example.bankcards.dto.common.CursorSlice;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.BusinessException;
+import com.example.bankcards.repository.spec.HolderNameMatch;
+import com.example.bankcards.support.TestFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CardScrollTest {
+
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private TestFixtures fixtures;
+
+    private Long ownerId;
+
+    @BeforeEach
+    void init() {
+        User owner = fixtures.saveUser("scroll");
+        ownerId = owner.getId();
+
+        for (int i = 1; i <= 7; i++) {
+            fixtures.saveCard(owner, "00" + (10 + i), BigDecimal.ZERO,
+                    i % 3 == 0 ? CardStatus.BLOCKED : CardStatus.ACTIVE);
+        }
+    }
+
+    @Test
+    void scroll_ShouldWalkSameCardsAsOffsetPaging() {
+        List<Long> expected = cardService.list(ownerId, CardStatus.ACTIVE, null, null, null, null,
+                        PageRequest.of(0, 10, Sort.by("id").descending()))
+                .map(CardResponse::getId).getContent();
+
+        List<Long> walked = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorSlice<CardResponse> slice = scroll(CardStatus.ACTIVE, cursor, 2);
+            slice.getContent().forEach(c -> walked.add(c.getId()));
+            cursor = slice.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(5, expected.size());
+        assertEquals(expected, walked);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void cursorOfOtherFilters_ShouldBeRejected() {
+        String cursor = scroll(CardStatus.ACTIVE, null, 2).getNextCursor();
+        assertNotNull(cursor);
+
+        assertThrows(BusinessException.class, () -> scroll(CardStatus.BLOCKED, cursor, 2));
+        assertThrows(BusinessException.class, () -> scroll(null, cursor, 2));
+    }
+
+    @Test
+    void invalidCursorOrSize_ShouldBeRejected() {
+        assertThrows(BusinessException.class, () -> scroll(null, "not-a-cursor", 2));
+        assertThrows(BusinessException.class, () -> scroll(null, null, 0));
+        assertThrows(BusinessException.class, () -> scroll(null, null, CardService.MAX_SCROLL_SIZE + 1));
+    }
+
+    private CursorSlice<CardResponse> scroll(CardStatus status, String cursor, int size) {
+        return cardService.scroll(ownerId, status, null, HolderNameMatch.CONTAINS, null, null, null, cursor, size);
+    }
+}
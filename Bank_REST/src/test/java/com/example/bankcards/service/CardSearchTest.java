@@ -0,0 +1,75 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardResponse;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.spec.HolderNameMatch;
+import com.example.bankcards.support.TestFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CardSearchTest {
+
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private TestFixtures fixtures;
+
+    private Long ownerId;
+
+    @BeforeEach
+    void init() {
+        User owner = fixtures.saveUser("search");
+        ownerId = owner.getId();
+
+        saveCard(owner, "Anna_Maria Petrova", "0001");
+        saveCard(owner, "AnnaXMaria Ivanova", "0002");
+        saveCard(owner, "Boris 100% Sidorov", "0003");
+    }
+
+    @Test
+    void contains_ShouldMatchAnywhereIgnoringCase() {
+        assertEquals(List.of("AnnaXMaria Ivanova", "Anna_Maria Petrova"), search("MARIA", HolderNameMatch.CONTAINS));
+        assertEquals(List.of("Anna_Maria Petrova"), search("petr", HolderNameMatch.CONTAINS));
+    }
+
+    @Test
+    void prefix_ShouldMatchStartOfNameOnly() {
+        assertEquals(List.of("Boris 100% Sidorov"), search("boris", HolderNameMatch.PREFIX));
+        assertEquals(List.of(), search("sidorov", HolderNameMatch.PREFIX));
+    }
+
+    @Test
+    void wildcards_ShouldBeMatchedLiterally() {
+        assertEquals(List.of("Anna_Maria Petrova"), search("a_m", HolderNameMatch.CONTAINS));
+        assertEquals(List.of("Boris 100% Sidorov"), search("100%", HolderNameMatch.CONTAINS));
+        assertEquals(List.of(), search("%", HolderNameMatch.PREFIX));
+    }
+
+    private void saveCard(User owner, String holderName, String last4) {
+        Card c = fixtures.card(owner, last4);
+        c.setHolderName(holderName);
+        fixtures.save(c);
+    }
+
+    private List<String> search(String text, HolderNameMatch match) {
+        return cardService.list(ownerId, null, text, match, null, null, null,
+                        PageRequest.of(0, 10, Sort.by("id").descending()))
+                .map(CardResponse::getHolderName)
+                .getContent();
+    }
+}
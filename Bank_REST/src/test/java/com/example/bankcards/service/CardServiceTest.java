@@ -3,6 +3,7 @@ package com.example.bankcards.service;
 import com.example.bankcards.dto.card.CardCreateRequest;
 import com.example.bankcards.entity.*;
 import com.example.bankcards.exception.BusinessException;
+import com.example.bankcards.exception.ConflictException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.util.MaskUtils;
@@ -10,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -27,6 +29,10 @@ class CardServiceTest {
     private UserRepository userRepo;
     @Mock
     private CryptoService crypto;
+    @Mock
+    private LedgerService ledger;
+    @Mock
+    private StripedBalanceService stripes;
 
     @InjectMocks
     private CardService cardService;
@@ -70,4 +76,23 @@ class CardServiceTest {
 
         assertThrows(BusinessException.class, () -> cardService.create(req));
     }
-}
\ No newline at end of file
+
+    @Test
+    void create_ShouldReportConflictWhenSamePanIsSavedConcurrently() {
+        User user = new User();
+        user.setId(1L);
+        when(userRepo.findById(1L)).thenReturn(Optional.of(user));
+        // existsByPanIndex (mocked) found nothing, the unique index catches the concurrent insert
+        when(cardRepo.save(any(Card.class))).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new RuntimeException("duplicate key value violates unique constraint \"uk_cards_pan_index\"")));
+
+        CardCreateRequest req = new CardCreateRequest();
+        req.setOwnerId(1L);
+        req.setPan("1234567812345678");
+        req.setHolderName("Aleks Vol");
+        req.setExpiryDate(LocalDate.now().plusYears(1));
+
+        assertThrows(ConflictException.class, () -> cardService.create(req));
+        verifyNoInteractions(ledger);
+    }
+}
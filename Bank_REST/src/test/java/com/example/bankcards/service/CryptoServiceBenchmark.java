@@ -0,0 +1,82 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.CryptoProperties;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encrypt/decrypt throughput of {@link CryptoService} against the previous per-call
+ * Cipher.getInstance + new SecureRandom() variant. Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec}; compare ops/s per thread count (-t) to get per-core numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CryptoServiceBenchmark {
+
+    private static final String PAN = "4111111111111111";
+
+    private CryptoService crypto;
+    private SecretKeySpec key;
+    private String encrypted;
+
+    @Setup
+    public void setUp() {
+        byte[] raw = new byte[32];
+        new SecureRandom().nextBytes(raw);
+        CryptoProperties props = new CryptoProperties();
+        props.setAesKeyB64(Base64.getEncoder().encodeToString(raw));
+        crypto = new CryptoService(props);
+        crypto.init();
+        key = new SecretKeySpec(raw, "AES");
+        encrypted = crypto.encrypt(PAN);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String encrypt() {
+        return crypto.encrypt(PAN);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String encryptAllCores() {
+        return crypto.encrypt(PAN);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String decrypt() {
+        return crypto.decrypt(encrypted);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String encryptPerCallInstances() throws Exception {
+        byte[] iv = new byte[12];
+        new SecureRandom().nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, iv));
+        byte[] ct = cipher.doFinal(PAN.getBytes(StandardCharsets.UTF_8));
+        byte[] out = new byte[iv.length + ct.length];
+        System.arraycopy(iv, 0, out, 0, iv.length);
+        System.arraycopy(ct, 0, out, iv.length, ct.length);
+        return Base64.getEncoder().encodeToString(out);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String encryptPerCallInstancesAllCores() throws Exception {
+        return encryptPerCallInstances();
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.CryptoProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CryptoServiceTest {
+
+    private CryptoService crypto;
+
+    @BeforeEach
+    void setUp() {
+        CryptoProperties props = new CryptoProperties();
+        props.setAesKeyB64(Base64.getEncoder().encodeToString(new byte[32]));
+        crypto = new CryptoService(props);
+        crypto.init();
+    }
+
+    @Test
+    void encrypt_RoundTripsWithFreshIvEveryCall() {
+        String a = crypto.encrypt("4111111111111111");
+        String b = crypto.encrypt("4111111111111111");
+
+        assertNotEquals(a, b);
+        assertEquals("4111111111111111", crypto.decrypt(a));
+        assertEquals("4111111111111111", crypto.decrypt(b));
+    }
+
+    @Test
+    void encrypt_WritesVersionAndKeyIdHeader() {
+        byte[] raw = Base64.getDecoder().decode(crypto.encrypt("4111111111111111"));
+
+        assertEquals(1, raw[0]);
+        assertEquals(0, raw[1]);
+        assertEquals(0, raw[2]);
+        // header + IV + 16 digits + GCM tag
+        assertEquals(3 + 12 + 16 + 16, raw.length);
+    }
+
+    @Test
+    void decrypt_RejectsUnknownKeyId() {
+        byte[] raw = Base64.getDecoder().decode(crypto.encrypt("4111111111111111"));
+        raw[2] = 7;
+
+        assertThrows(IllegalStateException.class, () -> crypto.decrypt(Base64.getEncoder().encodeToString(raw)));
+    }
+
+    @Test
+    void init_RejectsLegacyKeyUnderAnotherIdThanConvertedRows() {
+        CryptoProperties props = new CryptoProperties();
+        props.setAesKeyB64(Base64.getEncoder().encodeToString(new byte[32]));
+        props.setKeyId(3);
+
+        assertThrows(IllegalStateException.class, () -> new CryptoService(props).init());
+    }
+
+    @Test
+    void rotation_OldVersionsStayReadableAndNewDataUsesActiveKey() {
+        String old = crypto.encrypt("4111111111111111");
+
+        CryptoProperties props = new CryptoProperties();
+        props.setAesKeyB64(Base64.getEncoder().encodeToString(new byte[32]));
+        CryptoProperties.DataKey next = new CryptoProperties.DataKey();
+        next.setId(1);
+        next.setAesKeyB64(Base64.getEncoder().encodeToString(new byte[]{
+                1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16,
+                17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32}));
+        props.getKeys().add(next);
+        CryptoService rotated = new CryptoService(props);
+        rotated.init();
+
+        assertEquals("4111111111111111", rotated.decrypt(old));
+        byte[] fresh = Base64.getDecoder().decode(rotated.encrypt("4111111111111111"));
+        assertEquals(1, CryptoService.keyIdOf(fresh));
+        byte[] moved = rotated.reencrypt(Base64.getDecoder().decode(old));
+        assertEquals(1, CryptoService.keyIdOf(moved));
+        assertEquals("4111111111111111", rotated.decrypt(Base64.getEncoder().encodeToString(moved)));
+    }
+
+    @Test
+    void blindIndex_IsStableOverFormattingAndMatchesEnvelope() {
+        byte[] index = crypto.blindIndex("4111111111111111");
+
+        assertEquals(32, index.length);
+        assertArrayEquals(index, crypto.blindIndex("4111 1111-1111 1111"));
+        assertArrayEquals(index, crypto.blindIndexOf(Base64.getDecoder().decode(crypto.encrypt("4111111111111111"))));
+        assertFalse(Arrays.equals(index, crypto.blindIndex("4111111111111112")));
+    }
+
+    @Test
+    void decrypt_TamperedCiphertextFailsAndCipherStaysUsable() {
+        byte[] raw = Base64.getDecoder().decode(crypto.encrypt("4111111111111111"));
+        raw[raw.length - 1] ^= 1;
+
+        assertThrows(IllegalStateException.class, () -> crypto.decrypt(Base64.getEncoder().encodeToString(raw)));
+        assertEquals("5500000000000004", crypto.decrypt(crypto.encrypt("5500000000000004")));
+    }
+
+    @Test
+    void encrypt_ConcurrentCallersDoNotShareCipherState() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Set<String>>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                results.add(pool.submit(() -> {
+                    Set<String> seen = new HashSet<>();
+                    for (int i = 0; i < 500; i++) {
+                        String pan = String.format("4%07d%08d", thread, i);
+                        String enc = crypto.encrypt(pan);
+                        assertEquals(pan, crypto.decrypt(enc));
+                        seen.add(enc);
+                    }
+                    return seen;
+                }));
+            }
+            Set<String> all = new HashSet<>();
+            for (Future<Set<String>> f : results) {
+                all.addAll(f.get());
+            }
+            assertEquals(8 * 500, all.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardStripesUpdateRequest;
+import com.example.bankcards.dto.transfer.TransferRequest;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.BusinessException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.support.TestFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class GroupCommitTransferPipelineTest {
+
+    @Autowired
+    private GroupCommitTransferPipeline pipeline;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private CardRepository cardRepo;
+    @Autowired
+    private TransferRepository transferRepo;
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private StripedBalanceService stripedBalanceService;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private Long ownerId;
+    private Long cardA;
+    private Long cardB;
+    private Long blocked;
+
+    @BeforeEach
+    void init() {
+        User owner = fixtures.saveUser("group");
+        ownerId = owner.getId();
+
+        cardA = fixtures.saveCard(owner, "1111", BigDecimal.valueOf(100), CardStatus.ACTIVE).getId();
+        cardB = fixtures.saveCard(owner, "2222", BigDecimal.valueOf(100), CardStatus.ACTIVE).getId();
+        blocked = fixtures.saveCard(owner, "3333", BigDecimal.valueOf(100), CardStatus.BLOCKED).getId();
+    }
+
+    @Test
+    void submittedTogether_ShouldCommitValidTransfersAndIsolateFailures() throws Exception {
+        long transfersBefore = transferRepo.count();
+
+        List<CompletableFuture<?>> ok = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ok.add(pipeline.submit(ownerId, request(cardA, cardB, "5"), null));
+            ok.add(pipeline.submit(ownerId, request(cardB, cardA, "2"), null));
+        }
+        CompletableFuture<?> fromBlocked = pipeline.submit(ownerId, request(blocked, cardA, "1"), null);
+        CompletableFuture<?> tooMuch = pipeline.submit(ownerId, request(cardA, cardB, "1000"), null);
+
+        for (CompletableFuture<?> f : ok) {
+            assertNotNull(f.get(10, TimeUnit.SECONDS));
+        }
+        ExecutionException e1 = assertThrows(ExecutionException.class, () -> fromBlocked.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(BusinessException.class, e1.getCause());
+        ExecutionException e2 = assertThrows(ExecutionException.class, () -> tooMuch.get(10, TimeUnit.SECONDS));
+        assertEquals("Insufficient funds", e2.getCause().getMessage());
+
+        // A: 100 - 50 + 20, B: 100 + 50 - 20
+        assertEquals(0, cardRepo.findById(cardA).orElseThrow().getBalance().compareTo(BigDecimal.valueOf(70)));
+        assertEquals(0, cardRepo.findById(cardB).orElseThrow().getBalance().compareTo(BigDecimal.valueOf(130)));
+        assertEquals(0, cardRepo.findById(blocked).orElseThrow().getBalance().compareTo(BigDecimal.valueOf(100)));
+        assertEquals(transfersBefore + 20, transferRepo.count());
+    }
+
+    @Test
+    void creditsToStripedCard_ShouldLandOnStripesOrBeRerunExclusively() throws Exception {
+        CardStripesUpdateRequest striped = new CardStripesUpdateRequest();
+        striped.setStripes(4);
+        cardService.updateStripes(cardB, striped);
+
+        List<CompletableFuture<?>> credits = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            credits.add(pipeline.submit(ownerId, request(cardA, cardB, "1"), null));
+        }
+        for (CompletableFuture<?> f : credits) {
+            assertNotNull(f.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(0, stripedBalanceService.total(cardB).compareTo(BigDecimal.valueOf(10)));
+        assertEquals(0, cardRepo.findById(cardB).orElseThrow().getBalance().compareTo(BigDecimal.valueOf(100)));
+
+        // without its stripe rows the credit cannot land under the shared lock and is committed again on its own
+        jdbc.update("delete from card_balance_stripes where card_id = ?", cardB);
+        credits.clear();
+        for (int i = 0; i < 5; i++) {
+            credits.add(pipeline.submit(ownerId, request(cardA, cardB, "1"), null));
+        }
+        for (CompletableFuture<?> f : credits) {
+            assertNotNull(f.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(0, cardRepo.findById(cardB).orElseThrow().getBalance().compareTo(BigDecimal.valueOf(105)));
+        assertEquals(0, cardRepo.findById(cardA).orElseThrow().getBalance().compareTo(BigDecimal.valueOf(85)));
+    }
+
+    private TransferRequest request(Long from, Long to, String amount) {
+        TransferRequest req = new TransferRequest();
+        req.setFromCardId(from);
+        req.setToCardId(to);
+        req.setAmount(new BigDecimal(amount));
+        req.setDescription("group");
+        return req;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.JwtKeyConfig;
+import com.example.bankcards.config.JwtProperties;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private JwtProperties props;
+    private JwtService jwtService;
+    // shared by all JwtSigningKeys of a test, like jwt_signing_keys is by all instances
+    private JwtKeyStore store;
+
+    @BeforeEach
+    void init() {
+        props = new JwtProperties();
+        props.setSecret("test-secret-please-change-me-256bits-min");
+        props.setExpirationMinutes(5);
+        store = new InMemoryKeyStore();
+        jwtService = new JwtService(props, keys());
+    }
+
+    @Test
+    void verify_ShouldReturnClaimsOfValidToken() {
+        String token = jwtService.generate("alice", Map.of("role", "USER"));
+
+        Optional<Claims> first = jwtService.verify(token);
+        Optional<Claims> second = jwtService.verify(token);
+
+        assertTrue(first.isPresent());
+        assertEquals("alice", first.get().getSubject());
+        assertEquals("USER", first.get().get("role", String.class));
+        // second call is served from the verified-token cache
+        assertSame(first.get(), second.get());
+        assertEquals("alice", jwtService.extractUsername(token));
+    }
+
+    @Test
+    void verify_ShouldRejectTamperedToken() {
+        String token = jwtService.generate("alice", Map.of());
+        jwtService.verify(token);
+
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + jwtService.generate("mallory", Map.of()).split("\\.")[1] + "." + parts[2];
+
+        assertTrue(jwtService.verify(forged).isEmpty());
+        assertFalse(jwtService.isValid("not-a-jwt"));
+    }
+
+    @Test
+    void es256_ShouldSignWithKidAndVerifyAcrossRotation() {
+        props.setAlgorithm("ES256");
+        props.setKeyRotationInterval(Duration.ofDays(7));
+        JwtSigningKeys keys = keys();
+        jwtService = new JwtService(props, keys);
+
+        String before = jwtService.generate("alice", Map.of());
+        keys.rotate();
+        String after = jwtService.generate("bob", Map.of());
+
+        assertEquals("alice", jwtService.extractUsername(before));
+        assertEquals("bob", jwtService.extractUsername(after));
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> jwks = (List<Map<String, Object>>) keys.jwks().get("keys");
+        assertEquals(2, jwks.size());
+        assertEquals("EC", jwks.get(0).get("kty"));
+        assertNotEquals(jwks.get(0).get("kid"), jwks.get(1).get("kid"));
+        assertFalse(jwks.get(0).containsKey("d"));
+    }
+
+    @Test
+    void es256_ShouldVerifyKeysRotatedByAnotherInstance() {
+        props.setAlgorithm("ES256");
+        props.setKeyRotationInterval(Duration.ofDays(7));
+        props.setKeyReloadMinInterval(Duration.ZERO);
+        JwtSigningKeys keysA = keys();
+        JwtSigningKeys keysB = keys();
+        JwtService a = new JwtService(props, keysA);
+        JwtService b = new JwtService(props, keysB);
+
+        // both instances start with the key already in the store
+        assertEquals("alice", b.extractUsername(a.generate("alice", Map.of())));
+
+        keysA.rotate();
+        assertEquals("bob", b.extractUsername(a.generate("bob", Map.of())));
+
+        // a key pair outside the shared store cannot verify
+        JwtService other = new JwtService(props, new JwtSigningKeys(props, new JwtKeyConfig().jwtSecretKey(props),
+                new InMemoryKeyStore(), false));
+        assertTrue(a.verify(other.generate("mallory", Map.of())).isEmpty());
+    }
+
+    @Test
+    void es256_ShouldRejectKidlessTokensUnlessLegacyWindowIsOpen() {
+        String legacy = jwtService.generate("alice", Map.of());
+        props.setAlgorithm("ES256");
+        props.setKeyRotationInterval(Duration.ofDays(7));
+
+        assertTrue(new JwtService(props, keys()).verify(legacy).isEmpty());
+
+        props.setLegacyHs256Until(Instant.now().plus(Duration.ofHours(1)));
+        assertEquals("alice", new JwtService(props, keys()).extractUsername(legacy));
+
+        props.setLegacyHs256Until(Instant.now().minusSeconds(1));
+        assertTrue(new JwtService(props, keys()).verify(legacy).isEmpty());
+    }
+
+    @Test
+    void es256_ShouldRefuseGeneratedKeysOutsideDev() {
+        props.setAlgorithm("ES256");
+        assertThrows(IllegalStateException.class,
+                () -> new JwtSigningKeys(props, new JwtKeyConfig().jwtSecretKey(props), store, false));
+        assertTrue(new JwtSigningKeys(props, new JwtKeyConfig().jwtSecretKey(props), store, true).isAsymmetric());
+    }
+
+    private JwtSigningKeys keys() {
+        return new JwtSigningKeys(props, new JwtKeyConfig().jwtSecretKey(props), store, false);
+    }
+
+    private static class InMemoryKeyStore implements JwtKeyStore {
+        private final List<StoredKey> keys = new CopyOnWriteArrayList<>();
+
+        @Override
+        public List<StoredKey> findAll(String algorithm) {
+            return keys.stream()
+                    .filter(k -> k.algorithm().equals(algorithm))
+                    .sorted(Comparator.comparing(StoredKey::createdAt).reversed())
+                    .toList();
+        }
+
+        @Override
+        public void insert(StoredKey key) {
+            keys.add(key);
+        }
+
+        @Override
+        public void delete(String kid) {
+            keys.removeIf(k -> k.kid().equals(kid));
+        }
+    }
+}
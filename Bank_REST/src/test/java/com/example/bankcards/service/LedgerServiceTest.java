@@ -0,0 +1,189 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.LedgerProperties;
+import com.example.bankcards.config.TransferProperties;
+import com.example.bankcards.dto.card.CardCreateRequest;
+import com.example.bankcards.dto.ledger.LedgerBalanceResponse;
+import com.example.bankcards.dto.ledger.ReconciliationReport;
+import com.example.bankcards.dto.transfer.TransferRequest;
+import com.example.bankcards.exception.BusinessException;
+import com.example.bankcards.support.TestFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LedgerServiceTest {
+
+    private static final AtomicInteger PAN_SEQ = new AtomicInteger();
+
+    @Autowired
+    private LedgerService ledgerService;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private TransferService transferService;
+    @Autowired
+    private BatchTransferService batchTransferService;
+    @Autowired
+    private LedgerProperties props;
+    @Autowired
+    private TransferProperties transferProps;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private Long ownerId;
+    private Long cardA;
+    private Long cardB;
+
+    @BeforeEach
+    void init() {
+        ownerId = fixtures.saveUser("ledger").getId();
+
+        cardA = createCard("300");
+        cardB = createCard("0");
+
+        props.setMaxReportedMismatches(Integer.MAX_VALUE);
+    }
+
+    @AfterEach
+    void restore() {
+        props.setMaxReportedMismatches(new LedgerProperties().getMaxReportedMismatches());
+        transferProps.setEngine(TransferProperties.Engine.PESSIMISTIC);
+    }
+
+    @Test
+    void transfers_ShouldKeepLedgerInLineWithCardBalance() {
+        transferService.transfer(ownerId, request(cardA, cardB, "100"));
+        batchTransferService.transferBatch(ownerId, List.of(
+                request(cardB, cardA, "30"),
+                request(cardA, cardB, "1000") // fails, no entries
+        ));
+
+        assertBalance(cardA, "230");
+        assertBalance(cardB, "70");
+
+        assertTrue(ledgerService.snapshot() >= 2);
+        LedgerBalanceResponse snapshotted = ledgerService.balance(cardA);
+        assertNotNull(snapshotted.getSnapshotEntryId());
+        assertEquals(snapshotted.getLastEntryId(), snapshotted.getSnapshotEntryId());
+
+        // balance read = snapshot + entries after it
+        transferService.transfer(ownerId, request(cardA, cardB, "30"));
+        assertBalance(cardA, "200");
+        assertBalance(cardB, "100");
+        assertTrue(ledgerService.balance(cardA).getLastEntryId() > snapshotted.getSnapshotEntryId());
+
+        ReconciliationReport report = ledgerService.reconcile();
+        assertTrue(report.getCardsChecked() >= 2);
+        assertTrue(report.getItems().stream().noneMatch(i -> i.getCardId().equals(cardA) || i.getCardId().equals(cardB)));
+    }
+
+    @Test
+    void reconcile_ShouldReportBalanceChangedOutsideLedger() {
+        jdbc.update("update cards set balance = balance + 1 where id = ?", cardB);
+
+        ReconciliationReport report = ledgerService.reconcile();
+
+        LedgerBalanceResponse mismatch = report.getItems().stream()
+                .filter(i -> i.getCardId().equals(cardB))
+                .findFirst().orElseThrow();
+        assertEquals(0, mismatch.getCardBalance().compareTo(BigDecimal.ONE));
+        assertEquals(0, mismatch.getLedgerBalance().compareTo(BigDecimal.ZERO));
+    }
+
+    @Test
+    void reconcile_ShouldRewriteSnapshotThatMissedAnEntry() {
+        transferService.transfer(ownerId, request(cardA, cardB, "40"));
+        ledgerService.snapshot();
+        // a snapshot that no longer matches the entries it claims to cover
+        jdbc.update("update card_balance_snapshots set balance = balance - 40 where card_id = ?", cardB);
+
+        ReconciliationReport report = ledgerService.reconcile();
+
+        assertTrue(report.getRepairedSnapshots() >= 1);
+        assertTrue(report.getItems().stream().noneMatch(i -> i.getCardId().equals(cardB)));
+        assertBalance(cardB, "40");
+    }
+
+    @Test
+    void ledgerEngine_ShouldOnlyInsertAndReadSnapshotPlusDelta() {
+        transferProps.setEngine(TransferProperties.Engine.LEDGER);
+
+        transferService.transfer(ownerId, request(cardA, cardB, "100"));
+        batchTransferService.transferBatch(ownerId, List.of(
+                request(cardB, cardA, "30"),
+                request(cardB, cardA, "71") // only 70 left on the ledger
+        ));
+        assertThrows(BusinessException.class, () -> transferService.transfer(ownerId, request(cardB, cardA, "71")));
+
+        // cards.balance keeps the opening balance, reads come from the ledger
+        assertEquals(0, cardColumnBalance(cardA).compareTo(new BigDecimal("300")));
+        assertEquals(0, cardColumnBalance(cardB).compareTo(BigDecimal.ZERO));
+        assertEquals(0, balanceOf(cardA).compareTo(new BigDecimal("230")));
+        assertEquals(0, balanceOf(cardB).compareTo(new BigDecimal("70")));
+        assertEquals(0, cardService.listSlice(ownerId, null, null, null, null, null, null, PageRequest.of(0, 10))
+                .stream().filter(c -> c.getId().equals(cardB)).findFirst().orElseThrow()
+                .getBalance().compareTo(new BigDecimal("70")));
+
+        ledgerService.snapshot();
+        transferService.transfer(ownerId, request(cardA, cardB, "30"));
+        LedgerBalanceResponse a = ledgerService.balance(cardA);
+        assertTrue(a.getLastEntryId() > a.getSnapshotEntryId());
+        assertBalance(cardA, "200");
+        assertEquals(0, balanceOf(cardB).compareTo(new BigDecimal("100")));
+
+        ReconciliationReport report = ledgerService.reconcile();
+        assertTrue(report.getItems().stream().noneMatch(i -> i.getCardId().equals(cardA) || i.getCardId().equals(cardB)));
+    }
+
+    private BigDecimal balanceOf(Long cardId) {
+        return cardService.toResponse(cardService.findById(cardId).orElseThrow()).getBalance();
+    }
+
+    private BigDecimal cardColumnBalance(Long cardId) {
+        return jdbc.queryForObject("select balance from cards where id = ?", BigDecimal.class, cardId);
+    }
+
+    private void assertBalance(Long cardId, String expected) {
+        LedgerBalanceResponse b = ledgerService.balance(cardId);
+        assertEquals(0, b.getCardBalance().compareTo(new BigDecimal(expected)));
+        assertEquals(0, b.getLedgerBalance().compareTo(new BigDecimal(expected)));
+    }
+
+    private Long createCard(String balance) {
+        CardCreateRequest req = new CardCreateRequest();
+        req.setOwnerId(ownerId);
+        req.setPan(String.format("5000%012d", PAN_SEQ.incrementAndGet()));
+        req.setHolderName("Ledger User");
+        req.setExpiryDate(LocalDate.now().plusYears(2));
+        req.setInitialBalance(new BigDecimal(balance));
+        return cardService.create(req).getId();
+    }
+
+    private TransferRequest request(Long from, Long to, String amount) {
+        TransferRequest req = new TransferRequest();
+        req.setFromCardId(from);
+        req.setToCardId(to);
+        req.setAmount(new BigDecimal(amount));
+        return req;
+    }
+}
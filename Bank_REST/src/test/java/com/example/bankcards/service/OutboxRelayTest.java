@@ -0,0 +1,158 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.OutboxProperties;
+import com.example.bankcards.dto.card.CardCreateRequest;
+import com.example.bankcards.dto.transfer.TransferRequest;
+import com.example.bankcards.dto.transfer.TransferResponse;
+import com.example.bankcards.entity.OutboxEvent;
+import com.example.bankcards.repository.OutboxJdbcRepository;
+import com.example.bankcards.support.TestFixtures;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxRelayTest {
+
+    private static final AtomicInteger PAN_SEQ = new AtomicInteger();
+
+    @Autowired
+    private OutboxRelay relay;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private QueueOutboxSink sink;
+    @Autowired
+    private OutboxJdbcRepository outboxRepo;
+    @Autowired
+    private OutboxProperties props;
+    @Autowired
+    private PlatformTransactionManager txManager;
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private TransferService transferService;
+    @Autowired
+    private BatchTransferService batchTransferService;
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Long ownerId;
+    private Long cardA;
+    private Long cardB;
+
+    @BeforeEach
+    void init() {
+        ownerId = fixtures.saveUser("outbox").getId();
+
+        cardA = createCard("300");
+        cardB = createCard("0");
+    }
+
+    @Test
+    void relay_ShouldPublishCommittedTransfersAndDeleteThem() throws Exception {
+        TransferResponse single = transferService.transfer(ownerId, request(cardA, cardB, "100"));
+        batchTransferService.transferBatch(ownerId, List.of(
+                request(cardB, cardA, "30"),
+                request(cardA, cardB, "1000") // fails, no event
+        ));
+
+        List<OutboxEvent> published = drain();
+
+        List<OutboxEvent> ours = published.stream()
+                .filter(e -> e.getPayload().contains("\"fromCardId\":" + cardA + ",")
+                        || e.getPayload().contains("\"fromCardId\":" + cardB + ","))
+                .toList();
+        assertEquals(2, ours.size());
+        OutboxEvent first = ours.get(0);
+        assertEquals("transfer", first.getAggregateType());
+        assertEquals("TransferCompleted", first.getEventType());
+        assertEquals(single.getId(), first.getAggregateId());
+        JsonNode payload = objectMapper.readTree(first.getPayload());
+        assertEquals(0, payload.get("amount").decimalValue().compareTo(new BigDecimal("100")));
+        assertEquals(cardB, payload.get("toCardId").asLong());
+
+        assertEquals(0, count());
+    }
+
+    @Test
+    void relay_ShouldKeepEventsWhenSinkRejectsThem() {
+        transferService.transfer(ownerId, request(cardA, cardB, "10"));
+        long before = count();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        OutboxRelay failing = new OutboxRelay(outboxRepo, batch -> {
+            throw new IOException("sink is down");
+        }, props, txManager, registry);
+
+        assertEquals(0, failing.relayOnce());
+
+        assertEquals(before, count());
+        assertEquals(1.0, registry.counter("outbox.publish.failures").count());
+
+        drain();
+    }
+
+    @Test
+    void relay_ShouldRefuseNonDurableSinkWhenRequired() {
+        OutboxProperties prod = new OutboxProperties();
+        prod.setSink("queue");
+        prod.setRequireDurableSink(true);
+
+        assertThrows(IllegalStateException.class,
+                () -> new OutboxRelay(outboxRepo, sink, prod, txManager, new SimpleMeterRegistry()));
+    }
+
+    private List<OutboxEvent> drain() {
+        List<OutboxEvent> published = new ArrayList<>();
+        // other tests leave their events behind as well
+        do {
+            sink.queue().drainTo(published);
+        } while (relay.relayOnce() > 0);
+        sink.queue().drainTo(published);
+        return published;
+    }
+
+    private long count() {
+        return jdbc.queryForObject("select count(*) from outbox_events", Long.class);
+    }
+
+    private Long createCard(String balance) {
+        CardCreateRequest req = new CardCreateRequest();
+        req.setOwnerId(ownerId);
+        req.setPan(String.format("5100%012d", PAN_SEQ.incrementAndGet()));
+        req.setHolderName("Outbox User");
+        req.setExpiryDate(LocalDate.now().plusYears(2));
+        req.setInitialBalance(new BigDecimal(balance));
+        return cardService.create(req).getId();
+    }
+
+    private TransferRequest request(Long from, Long to, String amount) {
+        TransferRequest req = new TransferRequest();
+        req.setFromCardId(from);
+        req.setToCardId(to);
+        req.setAmount(new BigDecimal(amount));
+        return req;
+    }
+}
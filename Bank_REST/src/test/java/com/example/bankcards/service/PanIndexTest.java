@@ -0,0 +1,85 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardCreateRequest;
+import com.example.bankcards.dto.card.CardResponse;
+import com.example.bankcards.exception.ConflictException;
+import com.example.bankcards.exception.NotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.support.TestFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PanIndexTest {
+
+    private static final AtomicInteger PAN_SEQ = new AtomicInteger();
+
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private PanIndexBackfillService backfill;
+    @Autowired
+    private CardRepository cardRepo;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private Long ownerId;
+
+    @BeforeEach
+    void init() {
+        ownerId = fixtures.saveUser("panindex").getId();
+    }
+
+    @Test
+    void lookup_ShouldFindCardByFullPanAndRejectDuplicates() {
+        String pan = nextPan();
+        CardResponse created = cardService.create(request(pan));
+
+        assertEquals(created.getId(), cardService.findByPan(pan).getId());
+        assertThrows(NotFoundException.class, () -> cardService.findByPan(nextPan()));
+        assertThrows(ConflictException.class, () -> cardService.create(request(pan)));
+    }
+
+    @Test
+    void backfill_ShouldIndexCardsCreatedWithoutIndex() {
+        String pan = nextPan();
+        Long id = cardService.create(request(pan)).getId();
+        jdbc.update("update cards set pan_index = null where id = ?", id);
+        assertThrows(NotFoundException.class, () -> cardService.findByPan(pan));
+
+        assertTrue(backfill.backfill() >= 1);
+
+        assertEquals(id, cardService.findByPan(pan).getId());
+        assertNotNull(cardRepo.findById(id).orElseThrow().getPanIndex());
+    }
+
+    private static String nextPan() {
+        return String.format("5300%012d", PAN_SEQ.incrementAndGet());
+    }
+
+    private CardCreateRequest request(String pan) {
+        CardCreateRequest req = new CardCreateRequest();
+        req.setOwnerId(ownerId);
+        req.setPan(pan);
+        req.setHolderName("Pan Index");
+        req.setExpiryDate(LocalDate.now().plusYears(2));
+        req.setInitialBalance(BigDecimal.ZERO);
+        return req;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.CryptoProperties;
+import com.example.bankcards.dto.crypto.ReencryptionStatus;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardPanJdbcRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.PanReencryptionCheckpointRepository;
+import com.example.bankcards.repository.PanReencryptionTargetRepository;
+import com.example.bankcards.support.TestFixtures;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PanReencryptionWorkerTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private CardRepository cardRepo;
+    @Autowired
+    private CardPanJdbcRepository cardPans;
+    @Autowired
+    private PanReencryptionCheckpointRepository checkpoints;
+    @Autowired
+    private PanReencryptionTargetRepository targets;
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    @Test
+    void worker_ShouldMoveCardsToActiveKeyAndResumeFromCheckpoint() {
+        String oldKey = randomKey();
+        String newKey = randomKey();
+        CryptoService before = crypto(key(5, oldKey));
+        CryptoService after = crypto(key(5, oldKey), key(6, newKey));
+        assertEquals(6, after.activeKeyId());
+
+        User owner = fixtures.saveUser("reencrypt");
+
+        Map<Long, String> pans = new LinkedHashMap<>();
+        for (int i = 0; i < 7; i++) {
+            String pan = "520000000000000" + i;
+            Card card = fixtures.card(owner, pan.substring(12));
+            card.setEncryptedPan(before.encrypt(pan));
+            pans.put(fixtures.save(card).getId(), pan);
+        }
+
+        // one chunk, then a "restart" with a fresh worker that continues from the checkpoint
+        assertTrue(worker(after).runChunk());
+        assertTrue(checkpoints.findById(6).orElseThrow().getLastCardId() > 0);
+        PanReencryptionWorker restarted = worker(after);
+        int chunks = 0;
+        while (restarted.runChunk()) {
+            assertTrue(++chunks < 10_000, "re-encryption does not terminate");
+        }
+        assertFalse(restarted.runChunk());
+
+        for (Map.Entry<Long, String> e : pans.entrySet()) {
+            Card card = cardRepo.findById(e.getKey()).orElseThrow();
+            assertEquals(6, CryptoService.keyIdOf(Base64.getDecoder().decode(card.getEncryptedPan())));
+            assertEquals(e.getValue(), after.decrypt(card.getEncryptedPan()));
+            assertEquals(1L, card.getVersion());
+        }
+        ReencryptionStatus status = restarted.status();
+        assertEquals(7, status.getReencrypted());
+        assertNotNull(status.getFinishedAt());
+    }
+
+    @Test
+    void worker_ShouldStartOverWhenKeyBecomesActiveAgain() {
+        CryptoProperties.DataKey a = key(7, randomKey());
+        CryptoProperties.DataKey b = key(8, randomKey());
+        CryptoService onA = crypto(7, a, b);
+        CryptoService onB = crypto(8, a, b);
+
+        User owner = fixtures.saveUser("rekey");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Card card = fixtures.card(owner, "700" + i);
+            card.setEncryptedPan(onA.encrypt("520000000000700" + i));
+            ids.add(fixtures.save(card).getId());
+        }
+
+        // A -> B -> A: the checkpoint A finished with must not stop the cards moving back from B
+        drain(worker(onA));
+        drain(worker(onB));
+        drain(worker(onA));
+
+        for (Long id : ids) {
+            Card card = cardRepo.findById(id).orElseThrow();
+            assertEquals(7, CryptoService.keyIdOf(Base64.getDecoder().decode(card.getEncryptedPan())));
+        }
+        assertEquals(4, checkpoints.findById(7).orElseThrow().getReencrypted());
+    }
+
+    @Test
+    void worker_ShouldNotSwitchTargetBackDuringRollingKeySwitch() {
+        CryptoProperties.DataKey a = key(9, randomKey());
+        CryptoProperties.DataKey b = key(10, randomKey());
+        CryptoService onA = crypto(9, a, b);
+        CryptoService onB = crypto(10, a, b);
+
+        User owner = fixtures.saveUser("rolling");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            Card card = fixtures.card(owner, "900" + i);
+            card.setEncryptedPan(onA.encrypt("520000000000900" + i));
+            ids.add(fixtures.save(card).getId());
+        }
+
+        // an old instance is running on A when the first new instance comes up on B
+        PanReencryptionWorker oldInstance = worker(onA);
+        drain(oldInstance);
+        PanReencryptionWorker newInstance = worker(onB);
+        assertTrue(newInstance.runChunk());
+        long lastCardId = checkpoints.findById(10).orElseThrow().getLastCardId();
+
+        // the old instance follows the switch instead of taking the target back to A and resetting B
+        assertFalse(oldInstance.runChunk());
+        assertEquals(lastCardId, checkpoints.findById(10).orElseThrow().getLastCardId());
+        drain(newInstance);
+
+        for (Long id : ids) {
+            Card card = cardRepo.findById(id).orElseThrow();
+            assertEquals(10, CryptoService.keyIdOf(Base64.getDecoder().decode(card.getEncryptedPan())));
+        }
+        assertEquals(10, newInstance.status().getTargetKeyId());
+        assertEquals(10, oldInstance.status().getTargetKeyId());
+    }
+
+    private static void drain(PanReencryptionWorker worker) {
+        int chunks = 0;
+        while (worker.runChunk()) {
+            assertTrue(++chunks < 10_000, "re-encryption does not terminate");
+        }
+    }
+
+    private PanReencryptionWorker worker(CryptoService crypto) {
+        CryptoProperties props = new CryptoProperties();
+        props.getReencryption().setChunkSize(3);
+        props.getReencryption().setThreads(2);
+        return new PanReencryptionWorker(crypto, cardPans, checkpoints, targets, props, txManager,
+                new SimpleMeterRegistry());
+    }
+
+    private static CryptoService crypto(CryptoProperties.DataKey... keys) {
+        return crypto(null, keys);
+    }
+
+    private static CryptoService crypto(Integer activeKeyId, CryptoProperties.DataKey... keys) {
+        CryptoProperties props = new CryptoProperties();
+        props.setKeys(List.of(keys));
+        props.setActiveKeyId(activeKeyId);
+        CryptoService crypto = new CryptoService(props);
+        crypto.init();
+        return crypto;
+    }
+
+    private static CryptoProperties.DataKey key(int id, String b64) {
+        CryptoProperties.DataKey k = new CryptoProperties.DataKey();
+        k.setId(id);
+        k.setAesKeyB64(b64);
+        return k;
+    }
+
+    private static String randomKey() {
+        byte[] raw = new byte[32];
+        new SecureRandom().nextBytes(raw);
+        return Base64.getEncoder().encodeToString(raw);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.TransferProperties;
+import com.example.bankcards.dto.transfer.TransferRequest;
+import com.example.bankcards.dto.transfer.TransferResponse;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.BusinessException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.support.TestFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SerializedTransferExecutorTest {
+
+    @Autowired
+    private SerializedTransferExecutor executor;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private CardRepository cardRepo;
+    @Autowired
+    private TransferRepository transferRepo;
+    @Autowired
+    private TransferProperties props;
+
+    private User owner;
+    private Long ownerId;
+    private Long hotCard;
+    private Long cardB;
+    private Long cardC;
+
+    @BeforeEach
+    void init() {
+        owner = fixtures.saveUser("serial");
+        ownerId = owner.getId();
+
+        hotCard = fixtures.saveCard(owner, "1111", BigDecimal.valueOf(200)).getId();
+        cardB = fixtures.saveCard(owner, "2222", BigDecimal.ZERO).getId();
+        cardC = fixtures.saveCard(owner, "3333", BigDecimal.ZERO).getId();
+    }
+
+    @Test
+    void concurrentTransfersFromHotCard_ShouldCommitUntilFundsRunOut() throws Exception {
+        long transfersBefore = transferRepo.count();
+        int requests = 30;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            Long to = i % 2 == 0 ? cardB : cardC;
+            results.add(pool.submit(() -> {
+                start.await();
+                try {
+                    TransferResponse resp = executor.submit(ownerId, request(hotCard, to, "10"), null)
+                            .get(10, TimeUnit.SECONDS);
+                    assertNotNull(resp.getId());
+                    return true;
+                } catch (ExecutionException e) {
+                    assertInstanceOf(BusinessException.class, e.getCause());
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        int succeeded = 0;
+        for (Future<Boolean> f : results) {
+            if (f.get(15, TimeUnit.SECONDS)) {
+                succeeded++;
+            }
+        }
+        pool.shutdown();
+
+        // 200 / 10: exactly twenty transfers fit, the rest fail in their own savepoint
+        assertEquals(20, succeeded);
+        BigDecimal from = cardRepo.findById(hotCard).orElseThrow().getBalance();
+        BigDecimal b = cardRepo.findById(cardB).orElseThrow().getBalance();
+        BigDecimal c = cardRepo.findById(cardC).orElseThrow().getBalance();
+        assertEquals(0, from.compareTo(BigDecimal.ZERO));
+        assertEquals(0, from.add(b).add(c).compareTo(BigDecimal.valueOf(200)));
+        assertEquals(transfersBefore + 20, transferRepo.count());
+    }
+
+    @Test
+    void crossTransfersOnDifferentWriters_ShouldAllCommit() throws Exception {
+        Long a = fixtures.saveCard(owner, "4444", BigDecimal.valueOf(100)).getId();
+        Long b;
+        do {
+            b = fixtures.saveCard(owner, "5555", BigDecimal.valueOf(100)).getId();
+        } while (SerializedTransferExecutor.stripeOf(a, props.getSerialized().getStripes())
+                == SerializedTransferExecutor.stripeOf(b, props.getSerialized().getStripes()));
+
+        // A -> B and B -> A are queued on two writers whose groups both lock A and B
+        List<CompletableFuture<TransferResponse>> results = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            results.add(i % 2 == 0
+                    ? executor.submit(ownerId, request(a, b, "1"), null)
+                    : executor.submit(ownerId, request(b, a, "1"), null));
+        }
+        for (CompletableFuture<TransferResponse> f : results) {
+            assertNotNull(f.get(15, TimeUnit.SECONDS).getId());
+        }
+
+        assertEquals(0, cardRepo.findById(a).orElseThrow().getBalance().compareTo(BigDecimal.valueOf(100)));
+        assertEquals(0, cardRepo.findById(b).orElseThrow().getBalance().compareTo(BigDecimal.valueOf(100)));
+    }
+
+    private TransferRequest request(Long from, Long to, String amount) {
+        TransferRequest req = new TransferRequest();
+        req.setFromCardId(from);
+        req.setToCardId(to);
+        req.setAmount(new BigDecimal(amount));
+        req.setDescription("serialized");
+        return req;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.TransferProperties;
+import com.example.bankcards.dto.card.CardStripesUpdateRequest;
+import com.example.bankcards.dto.transfer.TransferRequest;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.BusinessException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.support.TestFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StripedBalanceServiceTest {
+
+    @Autowired
+    private TransferService transferService;
+    @Autowired
+    private TransferDispatcher transferDispatcher;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private StripedBalanceService stripedBalanceService;
+    @Autowired
+    private CardRepository cardRepo;
+    @Autowired
+    private TransferProperties props;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private Long ownerId;
+    private Long hotCard;
+    private final List<Long> senders = new ArrayList<>();
+
+    @BeforeEach
+    void init() {
+        User owner = fixtures.saveUser("striped");
+        ownerId = owner.getId();
+
+        hotCard = fixtures.saveCard(owner, "9999", BigDecimal.valueOf(10)).getId();
+        senders.clear();
+        for (int i = 0; i < 4; i++) {
+            senders.add(fixtures.saveCard(owner, "100" + i, BigDecimal.valueOf(100)).getId());
+        }
+
+        CardStripesUpdateRequest req = new CardStripesUpdateRequest();
+        req.setStripes(4);
+        cardService.updateStripes(hotCard, req);
+    }
+
+    @AfterEach
+    void restore() {
+        props.setEngine(TransferProperties.Engine.PESSIMISTIC);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = TransferProperties.Engine.class, names = {"PESSIMISTIC", "CONDITIONAL"})
+    void creditsToStripedCard_ShouldAddUpAndBeSpendable(TransferProperties.Engine engine) throws Exception {
+        props.setEngine(engine);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (Long sender : senders) {
+            for (int i = 0; i < 10; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return transferService.transfer(ownerId, request(sender, hotCard, "10"));
+                }));
+            }
+        }
+        start.countDown();
+        for (Future<?> f : results) {
+            f.get(15, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // credits landed on the stripes, the exposed balance is their sum plus cards.balance
+        assertEquals(0, cardRepo.findById(hotCard).orElseThrow().getBalance().compareTo(BigDecimal.valueOf(10)));
+        assertEquals(0, stripedBalanceService.total(hotCard).compareTo(BigDecimal.valueOf(400)));
+        assertEquals(0, balanceOf(hotCard).compareTo(BigDecimal.valueOf(410)));
+
+        // a debit larger than cards.balance sweeps the stripes first
+        transferService.transfer(ownerId, request(hotCard, senders.get(0), "405"));
+        assertEquals(0, balanceOf(hotCard).compareTo(BigDecimal.valueOf(5)));
+        assertEquals(0, stripedBalanceService.total(hotCard).compareTo(BigDecimal.ZERO));
+        assertThrows(BusinessException.class,
+                () -> transferService.transfer(ownerId, request(hotCard, senders.get(1), "6")));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = TransferProperties.Engine.class, names = {"PESSIMISTIC", "CONDITIONAL"})
+    void creditWithoutStripeRow_ShouldFallBackToCardBalance(TransferProperties.Engine engine) {
+        props.setEngine(engine);
+        jdbc.update("delete from card_balance_stripes where card_id = ?", hotCard);
+
+        // the pessimistic engine gives up its shared lock and is rerun with exclusive locks by the dispatcher
+        transferDispatcher.transfer(ownerId, request(senders.get(0), hotCard, "25"), null);
+
+        assertEquals(0, cardRepo.findById(hotCard).orElseThrow().getBalance().compareTo(BigDecimal.valueOf(35)));
+        assertEquals(0, balanceOf(hotCard).compareTo(BigDecimal.valueOf(35)));
+    }
+
+    private BigDecimal balanceOf(Long cardId) {
+        return cardService.toResponse(cardService.findById(cardId).orElseThrow()).getBalance();
+    }
+
+    private TransferRequest request(Long from, Long to, String amount) {
+        TransferRequest req = new TransferRequest();
+        req.setFromCardId(from);
+        req.setToCardId(to);
+        req.setAmount(new BigDecimal(amount));
+        return req;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.transfer.TransferRequest;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.support.TestFixtures;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransferExportServiceTest {
+
+    @Autowired
+    private TransferExportService exportService;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private TransferService transferService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Long cardA;
+    private Long cardB;
+    private Long cardC;
+
+    @BeforeEach
+    void init() {
+        User owner = fixtures.saveUser("export");
+
+        cardA = fixtures.saveCard(owner, "1111", BigDecimal.valueOf(100)).getId();
+        cardB = fixtures.saveCard(owner, "2222", BigDecimal.valueOf(100)).getId();
+        cardC = fixtures.saveCard(owner, "3333", BigDecimal.valueOf(100)).getId();
+
+        transferService.transfer(owner.getId(), request(cardA, cardB, "10", "rent, march"));
+        transferService.transfer(owner.getId(), request(cardB, cardA, "5", "say \"thanks\""));
+        transferService.transfer(owner.getId(), request(cardB, cardC, "1", null));
+    }
+
+    @Test
+    void ndjson_ShouldStreamCardStatementOldestFirst() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.export(cardA, null, null, TransferExportService.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows);
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertEquals(cardA.longValue(), first.get("fromCardId").asLong());
+        assertEquals(cardA.longValue(), second.get("toCardId").asLong());
+        assertTrue(first.get("id").asLong() < second.get("id").asLong());
+    }
+
+    @Test
+    void csv_ShouldQuoteDescriptions() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(cardB, null, null, TransferExportService.Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("id,from_card_id,to_card_id,amount,status,description,created_at", lines[0]);
+        assertTrue(lines[1].contains(",\"rent, march\","));
+        assertTrue(lines[2].contains(",\"say \"\"thanks\"\"\","));
+        assertTrue(lines[3].contains(",1.00,SUCCESS,,"));
+    }
+
+    private TransferRequest request(Long from, Long to, String amount, String description) {
+        TransferRequest req = new TransferRequest();
+        req.setFromCardId(from);
+        req.setToCardId(to);
+        req.setAmount(new BigDecimal(amount));
+        req.setDescription(description);
+        return req;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.common.CursorSlice;
+import com.example.bankcards.dto.transfer.TransferRequest;
+import com.example.bankcards.dto.transfer.TransferResponse;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.BusinessException;
+import com.example.bankcards.support.TestFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransferHistoryServiceTest {
+
+    @Autowired
+    private TransferHistoryService historyService;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private TransferService transferService;
+
+    private Long ownerId;
+    private Long cardA;
+    private Long cardB;
+    private Long cardC;
+    private final List<Long> created = new ArrayList<>();
+
+    @BeforeEach
+    void init() {
+        User owner = fixtures.saveUser("history");
+        ownerId = owner.getId();
+
+        cardA = fixtures.saveCard(owner, "1111", BigDecimal.valueOf(100)).getId();
+        cardB = fixtures.saveCard(owner, "2222", BigDecimal.valueOf(100)).getId();
+        cardC = fixtures.saveCard(owner, "3333", BigDecimal.valueOf(100)).getId();
+
+        created.clear();
+        for (int i = 0; i < 25; i++) {
+            Long from = i % 3 == 0 ? cardA : i % 3 == 1 ? cardB : cardC;
+            Long to = i % 3 == 0 ? cardB : i % 3 == 1 ? cardC : cardA;
+            created.add(transferService.transfer(ownerId, request(from, to)).getId());
+        }
+    }
+
+    @Test
+    void userHistory_ShouldWalkAllTransfersNewestFirst() {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorSlice<TransferResponse> slice = historyService.userHistory(ownerId, cursor, 10);
+            slice.getContent().forEach(t -> seen.add(t.getId()));
+            cursor = slice.getNextCursor();
+            assertEquals(cursor != null, slice.isHasNext());
+            pages++;
+        } while (cursor != null);
+
+        List<Long> newestFirst = new ArrayList<>(created);
+        Collections.reverse(newestFirst);
+        assertEquals(3, pages);
+        assertEquals(newestFirst, seen);
+    }
+
+    @Test
+    void adminHistory_ShouldFilterByCard() {
+        CursorSlice<TransferResponse> first = historyService.adminHistory(cardA, null, 5);
+        CursorSlice<TransferResponse> second = historyService.adminHistory(cardA, first.getNextCursor(), 100);
+
+        List<TransferResponse> all = new ArrayList<>(first.getContent());
+        all.addAll(second.getContent());
+        // cardA sends in every third transfer and receives in every third
+        assertEquals(17, all.size());
+        assertTrue(all.stream().allMatch(t -> t.getFromCardId().equals(cardA) || t.getToCardId().equals(cardA)));
+        assertFalse(second.isHasNext());
+    }
+
+    @Test
+    void invalidCursorOrSize_ShouldBeRejected() {
+        assertThrows(BusinessException.class, () -> historyService.userHistory(ownerId, "not-a-cursor", 10));
+        assertThrows(BusinessException.class, () -> historyService.userHistory(ownerId, null, 0));
+        assertThrows(BusinessException.class,
+                () -> historyService.adminHistory(null, null, TransferHistoryService.MAX_PAGE_SIZE + 1));
+    }
+
+    private TransferRequest request(Long from, Long to) {
+        TransferRequest req = new TransferRequest();
+        req.setFromCardId(from);
+        req.setToCardId(to);
+        req.setAmount(BigDecimal.ONE);
+        return req;
+    }
+}
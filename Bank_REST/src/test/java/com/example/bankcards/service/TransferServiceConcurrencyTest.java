@@ -57,8 +57,9 @@ class TransferServiceConcurrencyTest {
         // Create source card with initial balance
         Card cardFrom = new Card();
         cardFrom.setOwner(owner);
-        cardFrom.setEncryptedPan("enc-1111");
+        cardFrom.setEncryptedPan("ZW5jLTExMTE=");
         cardFrom.setPanMask("**** **** **** 1111");
+        cardFrom.setLast4("1111");
         cardFrom.setHolderName("Test User");
         cardFrom.setExpiryDate(LocalDate.now().plusYears(1));
         cardFrom.setStatus(CardStatus.ACTIVE);
@@ -67,8 +68,9 @@ class TransferServiceConcurrencyTest {
         // Create destination card with zero balance
         Card cardTo = new Card();
         cardTo.setOwner(owner);
-        cardTo.setEncryptedPan("enc-2222");
+        cardTo.setEncryptedPan("ZW5jLTIyMjI=");
         cardTo.setPanMask("**** **** **** 2222");
+        cardTo.setLast4("2222");
         cardTo.setHolderName("Test User");
         cardTo.setExpiryDate(LocalDate.now().plusYears(1));
         cardTo.setStatus(CardStatus.ACTIVE);
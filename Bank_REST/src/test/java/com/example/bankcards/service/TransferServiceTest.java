@@ -1,8 +1,10 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.config.TransferProperties;
 import com.example.bankcards.dto.transfer.TransferRequest;
 import com.example.bankcards.entity.*;
 import com.example.bankcards.exception.BusinessException;
+import com.example.bankcards.exception.RetryableTransferException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.TransferRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,6 +12,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
@@ -19,6 +22,7 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +32,18 @@ class TransferServiceTest {
     private CardRepository cardRepo;
     @Mock
     private TransferRepository transferRepo;
+    @Mock
+    private IdempotencyService idempotency;
+    @Mock
+    private LedgerService ledger;
+    @Mock
+    private StripedBalanceService stripes;
+    @Mock
+    private OutboxService outbox;
+    @Mock
+    private CardCache cardCache;
+    @Spy
+    private TransferProperties props = new TransferProperties();
 
     @InjectMocks
     private TransferService transferService;
@@ -105,4 +121,70 @@ class TransferServiceTest {
 
         assertThrows(com.example.bankcards.exception.NotFoundException.class, () -> transferService.transfer(1L, req));
     }
+
+    @Test
+    void transfer_ShouldNotUpgradeSharedLockWhenStripesWereRemoved() {
+        // the unlocked read still saw stripes, the card was unstriped before the shared lock was granted
+        when(cardRepo.findBalanceStripesById(20L)).thenReturn(Optional.of(4));
+        when(cardRepo.findByIdAndOwner_IdForUpdate(10L, 1L)).thenReturn(Optional.of(cardFrom));
+        when(cardRepo.findByIdAndOwner_IdForShare(20L, 1L)).thenReturn(Optional.of(cardTo));
+
+        TransferRequest req = new TransferRequest();
+        req.setFromCardId(10L);
+        req.setToCardId(20L);
+        req.setAmount(BigDecimal.valueOf(100));
+
+        assertThrows(RetryableTransferException.class, () -> transferService.transfer(1L, req));
+        verify(cardRepo, never()).findByIdAndOwner_IdForUpdate(eq(20L), any());
+        verify(transferRepo, never()).save(any());
+
+        // the rerun locks both cards exclusively and credits cards.balance
+        when(cardRepo.findByIdAndOwner_IdForUpdate(20L, 1L)).thenReturn(Optional.of(cardTo));
+        cardFrom.setBalance(BigDecimal.valueOf(200));
+        transferService.transferExclusive(1L, req, null);
+
+        assertEquals(BigDecimal.valueOf(150), cardTo.getBalance());
+        verify(transferRepo).save(any(Transfer.class));
+    }
+
+    @Test
+    void transfer_Conditional_ShouldUseGuardedUpdates() {
+        props.setEngine(TransferProperties.Engine.CONDITIONAL);
+        when(cardRepo.debitIfAvailable(eq(10L), eq(1L), eq(BigDecimal.valueOf(100)), eq(CardStatus.ACTIVE), any()))
+                .thenReturn(1);
+        when(cardRepo.creditIfActive(eq(20L), eq(1L), eq(BigDecimal.valueOf(100)), eq(CardStatus.ACTIVE), any()))
+                .thenReturn(1);
+        when(cardRepo.getReferenceById(10L)).thenReturn(cardFrom);
+        when(cardRepo.getReferenceById(20L)).thenReturn(cardTo);
+
+        TransferRequest req = new TransferRequest();
+        req.setFromCardId(10L);
+        req.setToCardId(20L);
+        req.setAmount(BigDecimal.valueOf(100));
+
+        var resp = transferService.transfer(1L, req);
+
+        assertEquals(10L, resp.getFromCardId());
+        assertEquals(20L, resp.getToCardId());
+        verify(cardRepo, never()).findByIdAndOwner_IdForUpdate(any(), any());
+        verify(transferRepo).save(any(Transfer.class));
+    }
+
+    @Test
+    void transfer_Conditional_ShouldReportInsufficientFundsWhenDebitMatchesNoRow() {
+        props.setEngine(TransferProperties.Engine.CONDITIONAL);
+        cardFrom.setBalance(BigDecimal.valueOf(10));
+        when(cardRepo.debitIfAvailable(eq(10L), eq(1L), any(), eq(CardStatus.ACTIVE), any())).thenReturn(0);
+        when(cardRepo.findByIdAndOwner_Id(10L, 1L)).thenReturn(Optional.of(cardFrom));
+
+        TransferRequest req = new TransferRequest();
+        req.setFromCardId(10L);
+        req.setToCardId(20L);
+        req.setAmount(BigDecimal.valueOf(100));
+
+        BusinessException ex = assertThrows(BusinessException.class, () -> transferService.transfer(1L, req));
+        assertEquals("Insufficient funds", ex.getMessage());
+        verify(cardRepo, never()).creditIfActive(any(), any(), any(), any(), any());
+        verify(transferRepo, never()).save(any());
+    }
 }
@@ -0,0 +1,73 @@
+package com.example.bankcards.support;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Users and cards for integration tests, saved straight through the repositories: no PAN index and no opening
+ * ledger entry, so tests that need those create cards through CardService instead.
+ */
+@Component
+public class TestFixtures {
+
+    public static final String HOLDER_NAME = "Test User";
+
+    private final UserRepository userRepo;
+    private final CardRepository cardRepo;
+
+    public TestFixtures(UserRepository userRepo, CardRepository cardRepo) {
+        this.userRepo = userRepo;
+        this.cardRepo = cardRepo;
+    }
+
+    /**
+     * Enabled USER with password "pwd" and a unique username starting with {@code prefix}.
+     */
+    public User saveUser(String prefix) {
+        User u = new User();
+        u.setUsername(prefix + "_" + UUID.randomUUID().toString().substring(0, 8));
+        u.setPasswordHash("{noop}pwd");
+        u.setRole(User.Role.USER);
+        u.setEnabled(true);
+        return userRepo.save(u);
+    }
+
+    /**
+     * Unsaved active card with a zero balance; adjust it and pass it to {@link #save(Card)}.
+     */
+    public Card card(User owner, String last4) {
+        Card c = new Card();
+        c.setOwner(owner);
+        c.setEncryptedPan("ZW5j" + last4);
+        c.setPanMask("**** **** **** " + last4);
+        c.setLast4(last4);
+        c.setHolderName(HOLDER_NAME);
+        c.setExpiryDate(LocalDate.now().plusYears(1));
+        c.setStatus(CardStatus.ACTIVE);
+        c.setBalance(BigDecimal.ZERO);
+        return c;
+    }
+
+    public Card save(Card card) {
+        return cardRepo.save(card);
+    }
+
+    public Card saveCard(User owner, String last4, BigDecimal balance) {
+        return saveCard(owner, last4, balance, CardStatus.ACTIVE);
+    }
+
+    public Card saveCard(User owner, String last4, BigDecimal balance, CardStatus status) {
+        Card c = card(owner, last4);
+        c.setBalance(balance);
+        c.setStatus(status);
+        return cardRepo.save(c);
+    }
+}